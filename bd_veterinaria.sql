@@ -11,8 +11,10 @@ CREATE TABLE usuarios (
     telefono VARCHAR(15) NOT NULL,
     password_hash VARCHAR(255) NOT NULL,
     rol ENUM('usuario', 'admin') DEFAULT 'usuario',
-    fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-    
+    fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version_credenciales INT NOT NULL DEFAULT 0,
+    credenciales_cambiadas_en DATETIME,
+    INDEX idx_usuarios_credenciales (credenciales_cambiadas_en)
 );
 
 -- ===========================================
@@ -27,7 +29,7 @@ CREATE TABLE mascotas (
     edad INT NOT NULL,
     tamano ENUM('pequeño', 'mediano', 'grande') NOT NULL,
     descripcion TEXT,
-    foto_url VARCHAR(255),
+    foto_url VARCHAR(500),
      tipo ENUM('propia','adopcion') DEFAULT 'propia',
     estado_adopcion ENUM('disponible','adoptado','en_proceso','no_disponible') DEFAULT 'disponible',
     vacunado BOOLEAN DEFAULT FALSE,
@@ -121,6 +123,20 @@ CREATE TABLE citas (
     FOREIGN KEY (servicio_id) REFERENCES servicios(id),
     FOREIGN KEY (sede_id) REFERENCES sedes(id)
 );
+-- ===========================================
+-- TABLA RESERVAS DE HORARIO (evita dobles reservas)
+-- ===========================================
+CREATE TABLE reservas_horario (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    sede_id INT NOT NULL,
+    fecha DATE NOT NULL,
+    hora TIME NOT NULL,
+    cita_id INT NOT NULL,
+    CONSTRAINT uk_reserva_sede_fecha_hora UNIQUE (sede_id, fecha, hora),
+    CONSTRAINT uk_reserva_cita UNIQUE (cita_id),
+    FOREIGN KEY (cita_id) REFERENCES citas(id) ON DELETE CASCADE
+);
+
 -- ===========================================
 -- TABLA CATEGORIA
 -- ===========================================
@@ -201,7 +217,7 @@ CREATE TABLE pedidos (
 -- ===========================================
 
 CREATE TABLE pedido_detalles (
-    id INT AUTO_INCREMENT PRIMARY KEY,
+    id INT PRIMARY KEY,
     pedido_id INT NOT NULL,
     producto_id INT NOT NULL,
     cantidad INT NOT NULL,
@@ -211,12 +227,65 @@ CREATE TABLE pedido_detalles (
     FOREIGN KEY (producto_id) REFERENCES productos(id)
 );
 
+-- Generador de ids por bloques (permite inserts en batch de pedido_detalles)
+CREATE TABLE id_generadores (
+    entidad VARCHAR(255) PRIMARY KEY,
+    siguiente_id BIGINT
+);
+
+-- Respuestas de creación de pedidos por Idempotency-Key (compartidas entre instancias)
+CREATE TABLE idempotencia_pedidos (
+    clave VARCHAR(150) PRIMARY KEY,
+    huella_solicitud VARCHAR(64) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    estado_http INT,
+    respuesta LONGTEXT,
+    expira_en DATETIME NOT NULL,
+    en_curso_hasta DATETIME,
+    propietario VARCHAR(36),
+    INDEX idx_idempotencia_expira (expira_en)
+);
+
+CREATE TABLE imagenes_archivos (
+    nombre VARCHAR(80) PRIMARY KEY,
+    referencias INT NOT NULL,
+    tamano BIGINT NOT NULL,
+    creado_en DATETIME NOT NULL
+);
+
+-- Refresh tokens (solo el SHA-256); cada login abre una familia que se rota en cada uso
+CREATE TABLE refresh_tokens (
+    id VARCHAR(64) PRIMARY KEY,
+    usuario_id INT NOT NULL,
+    familia VARCHAR(36) NOT NULL,
+    expira_en DATETIME NOT NULL,
+    creado_en DATETIME NOT NULL,
+    usado_en DATETIME,
+    reemplazado_por VARCHAR(64),
+    INDEX idx_refresh_familia (familia),
+    INDEX idx_refresh_usuario (usuario_id),
+    INDEX idx_refresh_expira (expira_en)
+);
+
+-- Access tokens revocados antes de su exp (jti); se cargan en memoria al arrancar
+CREATE TABLE tokens_revocados (
+    jti VARCHAR(36) PRIMARY KEY,
+    expira_en DATETIME NOT NULL,
+    revocado_en DATETIME NOT NULL,
+    INDEX idx_revocados_expira (expira_en),
+    INDEX idx_revocados_revocado (revocado_en)
+);
+
 -- ===========================================
 -- INDEX
 -- ===========================================
 
 CREATE INDEX idx_citas_usuario ON citas(usuario_id);
+CREATE INDEX idx_citas_fecha_hora ON citas(fecha, hora, id);
+CREATE INDEX idx_citas_sede_fecha ON citas(sede_id, fecha);
 CREATE INDEX idx_pedidos_usuario ON pedidos(usuario_id);
+CREATE INDEX idx_pedidos_fecha ON pedidos(fecha_pedido, id);
+CREATE INDEX idx_pedidos_estado_fecha ON pedidos(estado, fecha_pedido);
 CREATE INDEX idx_mascotas_estado ON mascotas(estado_adopcion);
 CREATE INDEX idx_productos_categoria ON productos(categoria_id);
 
@@ -0,0 +1,58 @@
+package com.PetsSecrets.Veterinaria_Backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import javax.sql.DataSource;
+
+// Modo de ejecución y protección de la base de datos.
+// - spring.threads.virtual.enabled elige entre hilos de plataforma (pool de Tomcat) e hilos
+//   virtuales para Tomcat, @Async y las tareas programadas.
+// - El DataSource de Hikari se envuelve en un BulkheadDataSource con el tamaño del pool
+//   como límite explícito de concurrencia contra la base de datos.
+@Configuration
+@EnableAsync
+public class BaseDatosConfig {
+
+    @Bean
+    static BeanPostProcessor bulkheadBaseDatos(@Value("${app.bd.bulkhead.habilitado:true}") boolean habilitado,
+                                               @Value("${app.bd.bulkhead.reserva:2}") int reserva,
+                                               @Value("${app.bd.bulkhead.espera-ms:2000}") long esperaMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (!habilitado || !(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                return new BulkheadDataSource(hikari, hikari.getMaximumPoolSize(), reserva, esperaMs);
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder metricasBulkhead(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BulkheadDataSource bulkhead) {
+                registrarMetricas(registry, bulkhead);
+            }
+        };
+    }
+
+    private static void registrarMetricas(MeterRegistry registry, BulkheadDataSource bulkhead) {
+        Gauge.builder("bd.bulkhead.disponibles", bulkhead, BulkheadDataSource::getDisponibles)
+                .description("Conexiones que aún pueden prestarse").register(registry);
+        Gauge.builder("bd.bulkhead.en-espera", bulkhead, BulkheadDataSource::getEnEspera)
+                .description("Solicitudes esperando una conexión").register(registry);
+        FunctionCounter.builder("bd.bulkhead.rechazos", bulkhead, BulkheadDataSource::getRechazos)
+                .description("Solicitudes que agotaron la espera de conexión").register(registry);
+    }
+}
@@ -0,0 +1,138 @@
+package com.PetsSecrets.Veterinaria_Backend.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bulkhead de la base de datos con el tamaño del pool de Hikari como límite explícito.
+// Con hilos virtuales no hay un pool de hilos que acote la concurrencia, así que miles de
+// solicitudes podrían esperar en Hikari; aquí esperan en un semáforo justo con un tiempo máximo
+// corto y fallan rápido en vez de acumularse.
+// - El permiso lo toma la primera conexión de cada hilo. Una segunda conexión del mismo hilo
+//   (REQUIRES_NEW, bloque nuevo del TableGenerator) no espera en el semáforo: si esperara, con
+//   todos los permisos en manos de hilos que piden su segunda conexión ninguno avanzaría.
+// - Esas segundas conexiones salen de "reserva": el semáforo tiene limite - reserva permisos,
+//   así que Hikari siempre conserva conexiones libres para ellas.
+// - El permiso se devuelve al cerrar la conexión (una sola vez aunque se cierre dos veces).
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final int limite;
+    private final int reserva;
+    private final long esperaMs;
+    private final LongAdder rechazos = new LongAdder();
+
+    // Conexiones abiertas por el hilo actual (hilos virtuales incluidos)
+    private final ThreadLocal<AtomicInteger> abiertasPorHilo = ThreadLocal.withInitial(AtomicInteger::new);
+
+    public BulkheadDataSource(DataSource destino, int limite, int reserva, long esperaMs) {
+        super(destino);
+        if (reserva < 0 || reserva >= limite) {
+            throw new IllegalArgumentException(
+                    "La reserva del bulkhead (" + reserva + ") debe ser menor que el pool (" + limite + ")");
+        }
+        this.limite = limite;
+        this.reserva = reserva;
+        this.esperaMs = esperaMs;
+        this.permisos = new Semaphore(limite - reserva, true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return prestar(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return prestar(username, password);
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public int getReserva() {
+        return reserva;
+    }
+
+    public int getDisponibles() {
+        return permisos.availablePermits();
+    }
+
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    public long getRechazos() {
+        return rechazos.sum();
+    }
+
+    private Connection prestar(String username, String password) throws SQLException {
+        AtomicInteger abiertas = abiertasPorHilo.get();
+        boolean conPermiso = abiertas.get() == 0;
+        if (conPermiso) {
+            adquirir();
+        }
+        try {
+            Connection conexion = username != null
+                    ? obtainTargetDataSource().getConnection(username, password)
+                    : obtainTargetDataSource().getConnection();
+            abiertas.incrementAndGet();
+            return envolver(conexion, abiertas, conPermiso);
+        } catch (SQLException | RuntimeException e) {
+            if (conPermiso) {
+                permisos.release();
+            }
+            throw e;
+        }
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                rechazos.increment();
+                throw new SQLTransientConnectionException("Base de datos saturada: "
+                        + (limite - reserva) + " conexiones en uso tras esperar " + esperaMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Espera de conexión interrumpida", e);
+        }
+    }
+
+    // El contador es el del hilo que abrió la conexión, aunque la cierre otro
+    private Connection envolver(Connection conexion, AtomicInteger abiertas, boolean conPermiso) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("close") && args == null) {
+                        if (liberada.compareAndSet(false, true)) {
+                            try {
+                                conexion.close();
+                            } finally {
+                                abiertas.decrementAndGet();
+                                if (conPermiso) {
+                                    permisos.release();
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,48 @@
+package com.PetsSecrets.Veterinaria_Backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Id de correlación por solicitud: se toma de X-Request-Id (si viene de un proxy) o se genera,
+// se devuelve en la respuesta y queda en el MDC para que aparezca en cada línea de log.
+// Va antes que la cadena de Spring Security para cubrir también los logs de autenticación.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    // Un id externo solo se acepta si es corto y sin caracteres que ensucien los logs
+    private static final Pattern VALIDO = Pattern.compile("^[A-Za-z0-9._-]{1,64}$");
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String requestId = request.getHeader(CABECERA);
+        if (requestId == null || !VALIDO.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        MDC.put(MDC_REQUEST_ID, requestId);
+        response.setHeader(CABECERA, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+        }
+    }
+}
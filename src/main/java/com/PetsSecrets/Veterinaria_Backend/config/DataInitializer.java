@@ -2,9 +2,13 @@ package com.PetsSecrets.Veterinaria_Backend.config;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoRequest;
+import com.PetsSecrets.Veterinaria_Backend.models.PedidoDetalle;
+import com.PetsSecrets.Veterinaria_Backend.repositories.PedidoDetalleRepository;
 import com.PetsSecrets.Veterinaria_Backend.services.CategoriaService;
 import com.PetsSecrets.Veterinaria_Backend.services.ProductoService;
 import com.PetsSecrets.Veterinaria_Backend.services.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -12,6 +16,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class DataInitializer implements CommandLineRunner {
 
+    private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
+
     @Autowired
     private UsuarioService usuarioService;
     
@@ -21,8 +27,14 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private PedidoDetalleRepository pedidoDetalleRepository;
+
     @Override
     public void run(String... args) throws Exception {
+        // Dejar el generador de ids de detalles por encima de los ids existentes (datos previos)
+        pedidoDetalleRepository.sincronizarGeneradorIds(2 * PedidoDetalle.BLOQUE_IDS + 1);
+
         // Crear usuario administrador por defecto
         usuarioService.crearUsuarioAdminSiNoExiste();
         
@@ -88,10 +100,10 @@ public class DataInitializer implements CommandLineRunner {
                         .build();
                 productoService.crearProducto(producto3);
                 
-                System.out.println("Datos de prueba inicializados correctamente");
+                logger.info("Datos de prueba inicializados correctamente");
             }
         } catch (Exception e) {
-            System.err.println("Error al inicializar datos de prueba: " + e.getMessage());
+            logger.warn("Error al inicializar datos de prueba: {}", e.getMessage());
         }
     }
 }
\ No newline at end of file
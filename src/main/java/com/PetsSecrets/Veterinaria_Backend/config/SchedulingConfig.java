@@ -0,0 +1,10 @@
+package com.PetsSecrets.Veterinaria_Backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas programadas (reconciliación de contadores del dashboard)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.PetsSecrets.Veterinaria_Backend.config;
 
 import com.PetsSecrets.Veterinaria_Backend.jwt.JwtAuthenticationFilter;
+import com.PetsSecrets.Veterinaria_Backend.services.HashContrasenaService;
 import com.PetsSecrets.Veterinaria_Backend.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -38,9 +39,17 @@ public class SecurityConfig {
     @Value("${app.jwt.expiration:86400000}")
     private Long jwtExpirationMs;
 
+    // 0 = calibrar al arrancar el costo que tarde como mucho objetivo-ms en este equipo
+    @Value("${app.auth.bcrypt.costo:0}")
+    private int costoBCrypt;
+
+    @Value("${app.auth.bcrypt.objetivo-ms:250}")
+    private long objetivoMsBCrypt;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int costo = costoBCrypt > 0 ? costoBCrypt : HashContrasenaService.calibrarCosto(objetivoMsBCrypt);
+        return new BCryptPasswordEncoder(costo);
     }
 
     @Bean
@@ -70,6 +79,8 @@ public class SecurityConfig {
                 // Endpoints públicos para servicios y sedes (para el formulario)
                 .requestMatchers("GET", "/api/servicios/**").permitAll()
                 .requestMatchers("GET", "/api/sedes/**").permitAll()
+                // Fotos de mascotas (direccionadas por contenido)
+                .requestMatchers("GET", "/api/fotos/**").permitAll()
                 // Endpoints de administración (requieren autenticación)
                 .requestMatchers("POST", "/api/productos/**").authenticated()
                 .requestMatchers("PUT", "/api/productos/**").authenticated()
@@ -81,6 +92,9 @@ public class SecurityConfig {
                 .requestMatchers("/api/carrito/**").authenticated()
                 // Pedidos requieren autenticación
                 .requestMatchers("/api/pedidos/**").authenticated()
+                // Actuator: health público, métricas solo administradores
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().permitAll()
             )
             .authenticationProvider(authenticationProvider())
@@ -1,17 +1,31 @@
 package com.PetsSecrets.Veterinaria_Backend.config;
 
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioActualArgumentResolver;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final UsuarioActualArgumentResolver usuarioActualArgumentResolver;
+
     @Override
     public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
         // Servir archivos desde la carpeta uploads
         registry.addResourceHandler("/uploads/**")
                 .addResourceLocations("file:uploads/");
     }
-}
\ No newline at end of file
+
+    // Parámetros @UsuarioActual en los controladores (id del usuario tomado del token)
+    @Override
+    public void addArgumentResolvers(@NonNull List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(usuarioActualArgumentResolver);
+    }
+}
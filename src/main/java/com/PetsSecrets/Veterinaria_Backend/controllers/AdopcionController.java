@@ -4,13 +4,13 @@ import com.PetsSecrets.Veterinaria_Backend.dtos.AdopcionRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.AdopcionResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.AdopcionUpdateRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioActual;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioPrincipal;
 import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
-import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
 import com.PetsSecrets.Veterinaria_Backend.services.AdopcionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,17 +24,13 @@ import java.util.List;
 public class AdopcionController {
 
     private final AdopcionService adopcionService;
-    private final UsuarioRepository usuarioRepository;
 
     // Crear nueva solicitud de adopción (requiere autenticación)
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> crearSolicitudAdopcion(@Valid @RequestBody AdopcionRequest request,
-                                                   Authentication authentication) {
+                                                   @UsuarioActual Integer usuarioId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Integer usuarioId = getUserIdFromUserDetails(userDetails);
-            
             AdopcionResponse adopcion = adopcionService.crearSolicitudAdopcion(request, usuarioId);
             return ResponseEntity.ok(adopcion);
         } catch (Exception e) {
@@ -54,10 +50,7 @@ public class AdopcionController {
     // Obtener mis solicitudes de adopción (requiere autenticación)
     @GetMapping("/mis-solicitudes")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<AdopcionResponse>> obtenerMisSolicitudes(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        Integer usuarioId = getUserIdFromUserDetails(userDetails);
-        
+    public ResponseEntity<List<AdopcionResponse>> obtenerMisSolicitudes(@UsuarioActual Integer usuarioId) {
         List<AdopcionResponse> adopciones = adopcionService.obtenerAdopcionesPorUsuario(usuarioId);
         return ResponseEntity.ok(adopciones);
     }
@@ -66,15 +59,12 @@ public class AdopcionController {
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> obtenerAdopcionPorId(@PathVariable Integer id,
-                                                 Authentication authentication) {
+                                                 @UsuarioActual UsuarioPrincipal usuario) {
         try {
             AdopcionResponse adopcion = adopcionService.obtenerAdopcionPorId(id);
             
             // Verificar permisos: admin puede ver todas, usuario solo las suyas
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Integer usuarioId = getUserIdFromUserDetails(userDetails);
-            
-            if (!isAdmin(userDetails) && !adopcion.getUsuarioId().equals(usuarioId)) {
+            if (!isAdmin(usuario) && !adopcion.getUsuarioId().equals(usuario.getId())) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("No tienes permisos para ver esta solicitud"));
             }
@@ -127,11 +117,8 @@ public class AdopcionController {
     @PutMapping("/{id}/cancelar")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> cancelarSolicitud(@PathVariable Integer id,
-                                              Authentication authentication) {
+                                              @UsuarioActual Integer usuarioId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Integer usuarioId = getUserIdFromUserDetails(userDetails);
-            
             adopcionService.cancelarSolicitud(id, usuarioId);
             return ResponseEntity.ok(new MessageResponse("Solicitud cancelada exitosamente"));
         } catch (Exception e) {
@@ -144,10 +131,7 @@ public class AdopcionController {
     @GetMapping("/puede-adoptar/{mascotaId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> puedeAdoptar(@PathVariable Integer mascotaId,
-                                         Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        Integer usuarioId = getUserIdFromUserDetails(userDetails);
-        
+                                         @UsuarioActual Integer usuarioId) {
         boolean puedeAdoptar = adopcionService.puedeAdoptar(usuarioId, mascotaId);
         return ResponseEntity.ok(new MessageResponse("Puede adoptar: " + puedeAdoptar));
     }
@@ -160,27 +144,6 @@ public class AdopcionController {
         return ResponseEntity.ok(estadisticas);
     }
 
-    // Método auxiliar para obtener el ID del usuario del token JWT
-    private Integer getUserIdFromUserDetails(UserDetails userDetails) {
-        return obtenerUsuarioIdDelToken();
-    }
-    
-    private Integer obtenerUsuarioIdDelToken() {
-        Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Usuario no autenticado");
-        }
-        
-        // El username en el token es el email del usuario
-        String email = authentication.getName();
-        
-        // Buscar el usuario por email
-        com.PetsSecrets.Veterinaria_Backend.models.Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con email: " + email));
-        
-        return usuario.getId();
-    }
-
     // Método auxiliar para verificar si es admin
     private boolean isAdmin(UserDetails userDetails) {
         return userDetails.getAuthorities().stream()
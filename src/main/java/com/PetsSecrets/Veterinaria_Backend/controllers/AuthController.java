@@ -2,15 +2,23 @@ package com.PetsSecrets.Veterinaria_Backend.controllers;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.*;
 import com.PetsSecrets.Veterinaria_Backend.jwt.JwtUtils;
+import com.PetsSecrets.Veterinaria_Backend.jwt.TokensRevocados;
+import com.PetsSecrets.Veterinaria_Backend.jwt.VerificadorTokens;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import com.PetsSecrets.Veterinaria_Backend.services.LimiteLoginService;
+import com.PetsSecrets.Veterinaria_Backend.services.RefreshTokenService;
 import com.PetsSecrets.Veterinaria_Backend.services.UsuarioService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -23,8 +31,29 @@ public class AuthController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private LimiteLoginService limiteLoginService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokensRevocados tokensRevocados;
+
+    @Autowired
+    private VerificadorTokens verificadorTokens;
+
+    // Detrás de un proxy, getRemoteAddr es la IP del cliente si server.forward-headers-strategy está activo
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                              HttpServletRequest request) {
+        long espera = limiteLoginService.esperaSegundos(request.getRemoteAddr(), loginRequest.getEmail());
+        if (espera > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(espera))
+                    .body(new MessageResponse("Demasiados intentos de inicio de sesión. Intenta de nuevo en " + espera + " segundos"));
+        }
+
         try {
             // Verificar credenciales
             Optional<Usuario> usuario = usuarioService.autenticarUsuario(loginRequest);
@@ -34,14 +63,17 @@ public class AuthController {
                         .body(new MessageResponse("Error: Credenciales inválidas"));
             }
 
-            // Generar token JWT
-            String jwt = jwtUtils.generateJwtToken(usuario.get().getEmail());
+            // Access token de corta duración y refresh token para renovarlo
+            String jwt = jwtUtils.generateJwtToken(usuario.get());
+            String refreshToken = refreshTokenService.emitir(usuario.get().getId());
             
-            // Retornar respuesta con token y datos del usuario
-            JwtResponse response = new JwtResponse(jwt, usuario.get());
+            // Retornar respuesta con tokens y datos del usuario
+            JwtResponse response = new JwtResponse(jwt, refreshToken, jwtUtils.getExpiracionSegundos(), usuario.get());
             
             return ResponseEntity.ok(response);
 
+        } catch (RejectedExecutionException e) {
+            return servicioOcupado(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new MessageResponse("Error interno del servidor"));
@@ -55,6 +87,8 @@ public class AuthController {
             
             return ResponseEntity.ok(new MessageResponse("Usuario registrado exitosamente!"));
             
+        } catch (RejectedExecutionException e) {
+            return servicioOcupado(e);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse(e.getMessage()));
@@ -64,15 +98,59 @@ public class AuthController {
         }
     }
 
+    // Canjea el refresh token por un access token nuevo y otro refresh token (el anterior deja de valer)
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            Optional<RefreshTokenService.Rotacion> rotacion = refreshTokenService.rotar(request.getRefreshToken());
+            if (rotacion.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new MessageResponse("Refresh token inválido o expirado"));
+            }
+
+            Usuario usuario = rotacion.get().usuario();
+            String jwt = jwtUtils.generateJwtToken(usuario);
+            return ResponseEntity.ok(new JwtResponse(jwt, rotacion.get().refreshToken(),
+                    jwtUtils.getExpiracionSegundos(), usuario));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Error interno del servidor"));
+        }
+    }
+
+    // Revoca el refresh token (con su familia) y el access token de la cabecera, si vienen
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        try {
+            if (request != null && request.getRefreshToken() != null && !request.getRefreshToken().isBlank()) {
+                refreshTokenService.revocar(request.getRefreshToken());
+            }
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                Claims claims = jwtUtils.parseValidClaims(authHeader.substring(7));
+                if (claims != null) {
+                    tokensRevocados.revocar(claims.getId(), claims.getExpiration());
+                }
+            }
+            return ResponseEntity.ok(new MessageResponse("Sesión cerrada"));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Error interno del servidor"));
+        }
+    }
+
     @GetMapping("/verify")
     public ResponseEntity<?> verifyToken(@RequestHeader("Authorization") String authHeader) {
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
                 
-                if (jwtUtils.validateJwtToken(token)) {
-                    String email = jwtUtils.getEmailFromJwtToken(token);
-                    Optional<Usuario> usuario = usuarioService.buscarPorEmail(email);
+                // Mismas comprobaciones que JwtAuthenticationFilter, revocaciones incluidas
+                VerificadorTokens.Resultado resultado = verificadorTokens.verificar(token);
+                if (resultado.esValido()) {
+                    Optional<Usuario> usuario = usuarioService.obtenerUsuarioPorId(resultado.principal().getId());
                     
                     if (usuario.isPresent()) {
                         JwtResponse response = new JwtResponse(token, usuario.get());
@@ -89,4 +167,11 @@ public class AuthController {
                     .body(new MessageResponse("Token inválido"));
         }
     }
-}
\ No newline at end of file
+
+    // El pool de BCrypt está saturado: se rechaza sin ocupar más hilos de Tomcat
+    private ResponseEntity<?> servicioOcupado(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse(e.getMessage()));
+    }
+}
@@ -3,10 +3,11 @@ package com.PetsSecrets.Veterinaria_Backend.controllers;
 import com.PetsSecrets.Veterinaria_Backend.dtos.CarritoItemRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.CarritoResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
-import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
-import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioActual;
 import com.PetsSecrets.Veterinaria_Backend.services.CarritoService;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,37 +19,30 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class CarritoController {
 
+    private static final Logger logger = LoggerFactory.getLogger(CarritoController.class);
+
     private final CarritoService carritoService;
-    private final UsuarioRepository usuarioRepository;
 
     // Endpoint de prueba para verificar autenticación
     @GetMapping("/test-auth")
-    public ResponseEntity<?> testAuth() {
-        System.out.println("=== TEST AUTH ENDPOINT ===");
+    public ResponseEntity<?> testAuth(@UsuarioActual Integer usuarioId) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            System.out.println("Authentication: " + authentication);
-            System.out.println("Is authenticated: " + (authentication != null ? authentication.isAuthenticated() : "null"));
-            
             if (authentication != null) {
-                System.out.println("Principal: " + authentication.getPrincipal());
-                System.out.println("Name: " + authentication.getName());
-                System.out.println("Authorities: " + authentication.getAuthorities());
+                logger.debug("test-auth: {} autenticado={} authorities={}", authentication.getName(),
+                        authentication.isAuthenticated(), authentication.getAuthorities());
             }
-            
-            Integer usuarioId = obtenerUsuarioIdDelToken();
+
             return ResponseEntity.ok(new MessageResponse("Usuario autenticado correctamente. ID: " + usuarioId));
         } catch (Exception e) {
-            System.err.println("Error en test-auth: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error en test-auth: {}", e.getMessage());
             return ResponseEntity.status(403).body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
 
     @GetMapping
-    public ResponseEntity<?> obtenerCarrito() {
+    public ResponseEntity<?> obtenerCarrito(@UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             CarritoResponse carrito = carritoService.obtenerCarritoPorUsuario(usuarioId);
             return ResponseEntity.ok(carrito);
         } catch (RuntimeException e) {
@@ -61,41 +55,28 @@ public class CarritoController {
     }
 
     @PostMapping("/agregar")
-    public ResponseEntity<?> agregarProducto(@RequestBody CarritoItemRequest request) {
-        System.out.println("=== ENDPOINT AGREGAR PRODUCTO ===");
-        System.out.println("Request recibido: " + request);
-        System.out.println("ProductoId: " + request.getProductoId());
-        System.out.println("Cantidad: " + request.getCantidad());
-        
+    public ResponseEntity<?> agregarProducto(@RequestBody CarritoItemRequest request,
+                                             @UsuarioActual Integer usuarioId) {
         try {
             // Validaciones básicas
             if (request.getProductoId() == null) {
-                System.err.println("ERROR: ProductoId es null");
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("El ID del producto es requerido"));
             }
             if (request.getCantidad() == null || request.getCantidad() <= 0) {
-                System.err.println("ERROR: Cantidad inválida: " + request.getCantidad());
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("La cantidad debe ser mayor a 0"));
             }
 
-            System.out.println("Validaciones pasadas, obteniendo usuario...");
-            Integer usuarioId = obtenerUsuarioIdDelToken();
-            
-            System.out.println("Llamando al servicio con usuarioId: " + usuarioId + ", request: " + request);
             CarritoResponse carrito = carritoService.agregarProductoAlCarrito(usuarioId, request);
-            
-            System.out.println("SUCCESS: Carrito actualizado: " + carrito);
+            logger.debug("Producto {} x{} agregado al carrito", request.getProductoId(), request.getCantidad());
             return ResponseEntity.ok(carrito);
         } catch (RuntimeException e) {
-            System.err.println("ERROR RuntimeException: " + e.getMessage());
-            e.printStackTrace();
+            logger.debug("No se pudo agregar el producto {}: {}", request.getProductoId(), e.getMessage());
             return ResponseEntity.badRequest()
                     .body(new MessageResponse(e.getMessage()));
         } catch (Exception e) {
-            System.err.println("ERROR Exception: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error al agregar el producto {} al carrito", request.getProductoId(), e);
             return ResponseEntity.internalServerError()
                     .body(new MessageResponse("Error interno del servidor"));
         }
@@ -103,14 +84,14 @@ public class CarritoController {
 
     @PutMapping("/item/{itemId}")
     public ResponseEntity<?> actualizarCantidad(@PathVariable Integer itemId, 
-                                               @RequestParam Integer cantidad) {
+                                               @RequestParam Integer cantidad,
+                                               @UsuarioActual Integer usuarioId) {
         try {
             if (cantidad < 0) {
                 return ResponseEntity.badRequest()
                         .body(new MessageResponse("La cantidad no puede ser negativa"));
             }
 
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             CarritoResponse carrito = carritoService.actualizarCantidadItem(usuarioId, itemId, cantidad);
             return ResponseEntity.ok(carrito);
         } catch (RuntimeException e) {
@@ -123,9 +104,8 @@ public class CarritoController {
     }
 
     @DeleteMapping("/item/{itemId}")
-    public ResponseEntity<?> eliminarItem(@PathVariable Integer itemId) {
+    public ResponseEntity<?> eliminarItem(@PathVariable Integer itemId, @UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             CarritoResponse carrito = carritoService.eliminarItemDelCarrito(usuarioId, itemId);
             return ResponseEntity.ok(carrito);
         } catch (RuntimeException e) {
@@ -138,9 +118,8 @@ public class CarritoController {
     }
 
     @DeleteMapping("/vaciar")
-    public ResponseEntity<MessageResponse> vaciarCarrito() {
+    public ResponseEntity<MessageResponse> vaciarCarrito(@UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             carritoService.vaciarCarrito(usuarioId);
             return ResponseEntity.ok(new MessageResponse("Carrito vaciado exitosamente"));
         } catch (RuntimeException e) {
@@ -153,9 +132,9 @@ public class CarritoController {
     }
 
     @DeleteMapping("/producto/{productoId}")
-    public ResponseEntity<?> eliminarProducto(@PathVariable Integer productoId) {
+    public ResponseEntity<?> eliminarProducto(@PathVariable Integer productoId,
+                                              @UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             CarritoResponse carrito = carritoService.eliminarProductoDelCarrito(usuarioId, productoId);
             return ResponseEntity.ok(carrito);
         } catch (RuntimeException e) {
@@ -167,17 +146,4 @@ public class CarritoController {
         }
     }
 
-    // Método auxiliar para obtener el ID del usuario del token JWT
-    private Integer obtenerUsuarioIdDelToken() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
-        if (authentication != null && authentication.isAuthenticated()) {
-            String email = authentication.getName();
-            Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            return usuario.getId();
-        }
-        
-        throw new RuntimeException("Usuario no autenticado");
-    }
 }
\ No newline at end of file
@@ -1,17 +1,21 @@
 package com.PetsSecrets.Veterinaria_Backend.controllers;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.*;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioActual;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioPrincipal;
 import com.PetsSecrets.Veterinaria_Backend.models.Cita;
 import com.PetsSecrets.Veterinaria_Backend.services.CitaService;
-import com.PetsSecrets.Veterinaria_Backend.services.UsuarioService;
+import com.PetsSecrets.Veterinaria_Backend.services.ExportacionService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
@@ -23,16 +27,14 @@ import java.util.List;
 public class CitaController {
 
     private final CitaService citaService;
-    private final UsuarioService usuarioService;
+    private final ExportacionService exportacionService;
 
     // Crear nueva cita
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> crearCita(@Valid @RequestBody CitaRequest request,
-                                      Authentication authentication) {
+                                      @UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = usuarioService.buscarPorEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado")).getId();
             CitaResponse cita = citaService.crearCita(request, usuarioId);
             return ResponseEntity.ok(cita);
         } catch (Exception e) {
@@ -52,9 +54,7 @@ public class CitaController {
     // Obtener citas del usuario actual
     @GetMapping("/mis-citas")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<CitaResponse>> obtenerMisCitas(Authentication authentication) {
-        Integer usuarioId = usuarioService.buscarPorEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado")).getId();
+    public ResponseEntity<List<CitaResponse>> obtenerMisCitas(@UsuarioActual Integer usuarioId) {
         List<CitaResponse> citas = citaService.obtenerCitasPorUsuario(usuarioId);
         return ResponseEntity.ok(citas);
     }
@@ -62,9 +62,7 @@ public class CitaController {
     // Obtener citas próximas del usuario
     @GetMapping("/proximas")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<CitaResponse>> obtenerCitasProximas(Authentication authentication) {
-        Integer usuarioId = usuarioService.buscarPorEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado")).getId();
+    public ResponseEntity<List<CitaResponse>> obtenerCitasProximas(@UsuarioActual Integer usuarioId) {
         List<CitaResponse> citas = citaService.obtenerCitasProximasUsuario(usuarioId);
         return ResponseEntity.ok(citas);
     }
@@ -98,16 +96,12 @@ public class CitaController {
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> obtenerCitaPorId(@PathVariable Integer id,
-                                             Authentication authentication) {
+                                             @UsuarioActual UsuarioPrincipal usuario) {
         try {
             CitaResponse cita = citaService.obtenerCitaPorId(id);
             
             // Verificar que la cita pertenece al usuario o que es admin
-            Integer usuarioId = usuarioService.buscarPorEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado")).getId();
-            if (!cita.getUsuarioId().equals(usuarioId) && 
-                !authentication.getAuthorities().stream()
-                    .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            if (!cita.getUsuarioId().equals(usuario.getId()) && !usuario.esAdmin()) {
                 return ResponseEntity.status(403)
                         .body(new MessageResponse("No tienes permisos para ver esta cita"));
             }
@@ -134,6 +128,55 @@ public class CitaController {
         return ResponseEntity.ok(citas);
     }
 
+    // Buscar citas con filtros paginadas por cursor
+    @GetMapping("/buscar/pagina")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> buscarConFiltrosPaginado(
+            @RequestParam(required = false) Cita.EstadoCita estado,
+            @RequestParam(required = false) Integer usuarioId,
+            @RequestParam(required = false) Integer mascotaId,
+            @RequestParam(required = false) Integer sedeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        try {
+            CitaPaginaResponse pagina = citaService.buscarCitasPaginadas(
+                    estado, usuarioId, mascotaId, sedeId, fechaInicio, fechaFin, cursor, tamano);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error al buscar citas: " + e.getMessage()));
+        }
+    }
+
+    // Exportación CSV/NDJSON en streaming (rango de fechas obligatorio)
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportarCitas(
+            @RequestParam(required = false) Cita.EstadoCita estado,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(defaultValue = "csv") String formato,
+            HttpServletResponse response) throws IOException {
+        ExportacionService.Formato formatoExportacion;
+        try {
+            formatoExportacion = exportacionService.parsearFormato(formato);
+            exportacionService.validarRango(fechaInicio, fechaFin);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+
+        response.setContentType(formatoExportacion.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                + formatoExportacion.nombreArchivo("citas_" + fechaInicio + "_" + fechaFin) + "\"");
+        exportacionService.exportarCitas(estado, fechaInicio, fechaFin, formatoExportacion,
+                response.getOutputStream());
+        return null;
+    }
+
     // Actualizar estado de cita (solo admin)
     @PutMapping("/{id}/estado")
     @PreAuthorize("hasRole('ADMIN')")
@@ -154,10 +197,8 @@ public class CitaController {
     public ResponseEntity<?> reprogramarCita(@PathVariable Integer id,
                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime hora,
-                                           Authentication authentication) {
+                                           @UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = usuarioService.buscarPorEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado")).getId();
             CitaResponse cita = citaService.reprogramarCita(id, fecha, hora, usuarioId);
             return ResponseEntity.ok(cita);
         } catch (Exception e) {
@@ -170,10 +211,8 @@ public class CitaController {
     @PutMapping("/{id}/cancelar")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> cancelarCita(@PathVariable Integer id,
-                                         Authentication authentication) {
+                                         @UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = usuarioService.buscarPorEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado")).getId();
             citaService.cancelarCita(id, usuarioId);
             return ResponseEntity.ok(new MessageResponse("Cita cancelada exitosamente"));
         } catch (Exception e) {
@@ -194,6 +233,22 @@ public class CitaController {
             disponible ? "Horario disponible" : "Horario no disponible"));
     }
 
+    // Calendario de disponibilidad de una sede en un rango de fechas
+    @GetMapping("/disponibilidad/calendario")
+    public ResponseEntity<?> obtenerCalendarioDisponibilidad(
+            @RequestParam Integer sedeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        try {
+            DisponibilidadCalendarioResponse calendario =
+                    citaService.obtenerCalendarioDisponibilidad(sedeId, fechaInicio, fechaFin);
+            return ResponseEntity.ok(calendario);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error al obtener disponibilidad: " + e.getMessage()));
+        }
+    }
+
     // Obtener estadísticas de citas (solo admin)
     @GetMapping("/estadisticas")
     @PreAuthorize("hasRole('ADMIN')")
@@ -1,25 +1,42 @@
 package com.PetsSecrets.Veterinaria_Backend.controllers;
 
+import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
+import com.PetsSecrets.Veterinaria_Backend.services.EnvioArchivosService;
+import com.PetsSecrets.Veterinaria_Backend.services.ImagenStorageService;
+import com.PetsSecrets.Veterinaria_Backend.services.MiniaturasService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/files")
+@RequiredArgsConstructor
 @CrossOrigin(origins = {"http://localhost:4200", "http://127.0.0.1:4200"})
 public class FileController {
 
-    private final String UPLOAD_DIR = "uploads/images/";
+    private static final Logger logger = LoggerFactory.getLogger(FileController.class);
+
+    private final ImagenStorageService imagenStorageService;
+    private final MiniaturasService miniaturasService;
+    private final EnvioArchivosService envioArchivosService;
 
     @PostMapping("/upload-image")
     public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
@@ -40,23 +57,16 @@ public class FileController {
                 return ResponseEntity.badRequest().body(Map.of("error", "El archivo es demasiado grande. Máximo 5MB."));
             }
 
-            // Crear directorio si no existe
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            // Guardar por contenido: la misma imagen subida varias veces ocupa un solo archivo
+            ImagenStorageService.Imagen imagen;
+            try (InputStream contenido = file.getInputStream()) {
+                imagen = imagenStorageService.guardar(contenido, getFileExtension(contentType));
             }
+            String uniqueFilename = imagen.nombre();
+            String fileUrl = imagen.url();
 
-            // Generar nombre único para el archivo
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFilename);
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-
-            // Guardar el archivo
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Crear la URL del archivo
-            String fileUrl = "/uploads/images/" + uniqueFilename;
+            // Generar las variantes por ancho en segundo plano
+            miniaturasService.programar(imagen.ruta());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -66,32 +76,52 @@ public class FileController {
 
             return ResponseEntity.ok(response);
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error al guardar la imagen subida", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Error al guardar el archivo: " + e.getMessage()));
         }
     }
 
+    // Con imágenes compartidas solo se borra el archivo al liberar la última referencia
     @DeleteMapping("/delete-image")
     public ResponseEntity<?> deleteImage(@RequestParam("filename") String filename) {
         try {
-            Path filePath = Paths.get(UPLOAD_DIR + filename);
-            
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                return ResponseEntity.ok(Map.of("success", true, "message", "Archivo eliminado exitosamente"));
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-            
-        } catch (IOException e) {
-            e.printStackTrace();
+            Optional<Path> eliminado = imagenStorageService.liberar(filename);
+            eliminado.ifPresent(miniaturasService::eliminarVariantes);
+            return ResponseEntity.ok(Map.of("success", true, "message", "Archivo eliminado exitosamente"));
+        } catch (ImagenStorageService.ImagenNoEncontradaException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new MessageResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            // Error de disco o de base de datos: no es un 404, el cliente puede reintentar
+            logger.error("Error al eliminar la imagen {}", filename, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error al eliminar el archivo: " + e.getMessage()));
+                    .body(new MessageResponse("Error al eliminar el archivo"));
         }
     }
 
+    // Imagen con ancho adaptado: ?w=320 sirve la variante más pequeña que cubre ese ancho
+    @GetMapping("/images/{filename:.+}")
+    public void getImage(@PathVariable String filename,
+                         @RequestParam(value = "w", required = false) Integer ancho,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> original = imagenStorageService.buscar(filename);
+        if (original.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path filePath = original.get();
+
+        Path archivo = miniaturasService.resolver(filePath, ancho);
+        // El original puede servirse mientras la variante se genera: caché corta en ese caso
+        CacheControl cacheControl = archivo.equals(filePath) && ancho != null
+                ? CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic()
+                : envioArchivosService.cacheControl(archivo);
+        MediaType tipo = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        envioArchivosService.enviar(request, response, archivo, tipo, cacheControl);
+    }
+
     private boolean isValidImageType(String contentType) {
         return contentType.equals("image/jpeg") ||
                contentType.equals("image/jpg") ||
@@ -100,10 +130,12 @@ public class FileController {
                contentType.equals("image/gif");
     }
 
-    private String getFileExtension(String filename) {
-        if (filename == null || filename.lastIndexOf(".") == -1) {
-            return ".jpg"; // Default extension
-        }
-        return filename.substring(filename.lastIndexOf("."));
+    private String getFileExtension(String contentType) {
+        return switch (contentType) {
+            case "image/png" -> "png";
+            case "image/webp" -> "webp";
+            case "image/gif" -> "gif";
+            default -> "jpg";
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.PetsSecrets.Veterinaria_Backend.controllers;
+
+import com.PetsSecrets.Veterinaria_Backend.services.EnvioArchivosService;
+import com.PetsSecrets.Veterinaria_Backend.services.FotoStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/fotos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class FotoController {
+
+    private final FotoStorageService fotoStorageService;
+    private final EnvioArchivosService envioArchivosService;
+
+    // El nombre es el hash del contenido: ETag fuerte y caché inmutable (ver EnvioArchivosService)
+    @GetMapping("/{nombre:.+}")
+    public void obtenerFoto(@PathVariable String nombre,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> archivo = fotoStorageService.buscar(nombre);
+        if (archivo.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        envioArchivosService.enviar(request, response, archivo.get(),
+                MediaType.parseMediaType(fotoStorageService.tipoContenido(nombre)));
+    }
+}
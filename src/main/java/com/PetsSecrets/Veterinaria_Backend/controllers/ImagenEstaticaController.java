@@ -0,0 +1,54 @@
+package com.PetsSecrets.Veterinaria_Backend.controllers;
+
+import com.PetsSecrets.Veterinaria_Backend.services.EnvioArchivosService;
+import com.PetsSecrets.Veterinaria_Backend.services.ImagenStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Sirve las URL de /uploads/images con ETag, rangos y sendfile. Tiene prioridad sobre el
+// ResourceHandler de WebConfig, que sigue sirviendo el resto de /uploads/**.
+@RestController
+@RequiredArgsConstructor
+public class ImagenEstaticaController {
+
+    private final ImagenStorageService imagenStorageService;
+    private final EnvioArchivosService envioArchivosService;
+
+    // Direccionadas por contenido: /uploads/images/ab/cd/abcd...ef.jpg
+    @GetMapping("/uploads/images/{primero}/{segundo}/{nombre:.+}")
+    public void obtenerImagen(@PathVariable String primero, @PathVariable String segundo, @PathVariable String nombre,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!nombre.startsWith(primero + segundo)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        enviar(nombre, request, response);
+    }
+
+    // Subidas anteriores en el directorio plano
+    @GetMapping("/uploads/images/{nombre:.+}")
+    public void obtenerImagenAnterior(@PathVariable String nombre,
+                                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        enviar(nombre, request, response);
+    }
+
+    private void enviar(String nombre, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> archivo = imagenStorageService.buscar(nombre);
+        if (archivo.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        MediaType tipo = MediaTypeFactory.getMediaType(nombre).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        envioArchivosService.enviar(request, response, archivo.get(), tipo);
+    }
+}
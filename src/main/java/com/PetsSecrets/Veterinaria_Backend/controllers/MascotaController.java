@@ -3,14 +3,12 @@ package com.PetsSecrets.Veterinaria_Backend.controllers;
 import com.PetsSecrets.Veterinaria_Backend.dtos.MascotaRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.MascotaResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioActual;
 import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
-import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
 import com.PetsSecrets.Veterinaria_Backend.services.MascotaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -23,17 +21,13 @@ import java.util.List;
 public class MascotaController {
 
     private final MascotaService mascotaService;
-    private final UsuarioRepository usuarioRepository;
 
     // Crear nueva mascota (requiere autenticación)
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> crearMascota(@Valid @RequestBody MascotaRequest request, 
-                                         Authentication authentication) {
+                                         @UsuarioActual Integer usuarioId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Integer usuarioId = getUserIdFromUserDetails(userDetails);
-            
             MascotaResponse mascota = mascotaService.crearMascota(request, usuarioId);
             return ResponseEntity.ok(mascota);
         } catch (Exception e) {
@@ -71,10 +65,7 @@ public class MascotaController {
     // Obtener mis mascotas (requiere autenticación)
     @GetMapping("/mis-mascotas")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<List<MascotaResponse>> obtenerMisMascotas(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        Integer usuarioId = getUserIdFromUserDetails(userDetails);
-        
+    public ResponseEntity<List<MascotaResponse>> obtenerMisMascotas(@UsuarioActual Integer usuarioId) {
         List<MascotaResponse> mascotas = mascotaService.obtenerMascotasPorUsuario(usuarioId);
         return ResponseEntity.ok(mascotas);
     }
@@ -107,11 +98,8 @@ public class MascotaController {
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> actualizarMascota(@PathVariable Integer id,
                                               @Valid @RequestBody MascotaRequest request,
-                                              Authentication authentication) {
+                                              @UsuarioActual Integer usuarioId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Integer usuarioId = getUserIdFromUserDetails(userDetails);
-            
             MascotaResponse mascota = mascotaService.actualizarMascota(id, request, usuarioId);
             return ResponseEntity.ok(mascota);
         } catch (Exception e) {
@@ -138,11 +126,8 @@ public class MascotaController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<?> eliminarMascota(@PathVariable Integer id,
-                                           Authentication authentication) {
+                                           @UsuarioActual Integer usuarioId) {
         try {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            Integer usuarioId = getUserIdFromUserDetails(userDetails);
-            
             mascotaService.eliminarMascota(id, usuarioId);
             return ResponseEntity.ok(new MessageResponse("Mascota eliminada exitosamente"));
         } catch (Exception e) {
@@ -158,25 +143,4 @@ public class MascotaController {
         MascotaService.MascotaEstadisticas estadisticas = mascotaService.obtenerEstadisticas();
         return ResponseEntity.ok(estadisticas);
     }
-
-    // Método auxiliar para obtener el ID del usuario del token JWT
-    private Integer getUserIdFromUserDetails(UserDetails userDetails) {
-        return obtenerUsuarioIdDelToken();
-    }
-    
-    private Integer obtenerUsuarioIdDelToken() {
-        Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Usuario no autenticado");
-        }
-        
-        // El username en el token es el email del usuario
-        String email = authentication.getName();
-        
-        // Buscar el usuario por email
-        com.PetsSecrets.Veterinaria_Backend.models.Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con email: " + email));
-        
-        return usuario.getId();
-    }
 }
\ No newline at end of file
@@ -1,17 +1,27 @@
 package com.PetsSecrets.Veterinaria_Backend.controllers;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoPaginaResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.StockInsuficienteResponse;
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioActual;
+import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
-import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import com.PetsSecrets.Veterinaria_Backend.services.ExportacionService;
+import com.PetsSecrets.Veterinaria_Backend.services.IdempotenciaService;
 import com.PetsSecrets.Veterinaria_Backend.services.PedidoService;
+import com.PetsSecrets.Veterinaria_Backend.services.StockInsuficienteException;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -21,23 +31,91 @@ import java.util.List;
 public class PedidoController {
 
     private final PedidoService pedidoService;
-    private final UsuarioRepository usuarioRepository;
+    private final IdempotenciaService idempotenciaService;
+    private final ExportacionService exportacionService;
 
+    // Sin pagina ni tamano: la lista completa de siempre, marcada como obsoleta (Deprecation y
+    // Link a /pagina, que trae filtros y metadatos). Con pagina o tamano: esa página como lista,
+    // los más recientes primero, con el total en X-Total-Count.
     @GetMapping
-    public ResponseEntity<?> obtenerPedidos() {
+    public ResponseEntity<?> obtenerPedidos(@RequestParam(required = false) Integer pagina,
+                                            @RequestParam(required = false) Integer tamano) {
         try {
-            List<PedidoResponse> pedidos = pedidoService.obtenerTodosLosPedidos();
+            if (pagina == null && tamano == null) {
+                return ResponseEntity.ok()
+                        .header("Deprecation", "true")
+                        .header(HttpHeaders.LINK, "</api/pedidos/pagina>; rel=\"successor-version\"")
+                        .body(pedidoService.obtenerTodosLosPedidos());
+            }
+            PedidoPaginaResponse resultado = pedidoService.buscarPedidosPaginados(
+                    null, null, null, null, pagina != null ? pagina : 0, tamano != null ? tamano : 50);
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(resultado.getTotalElementos()))
+                    .body(resultado.getPedidos());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(new MessageResponse("Error interno del servidor"));
+        }
+    }
+
+    // Listado paginado con filtros (estado, usuario, rango de fechas)
+    @GetMapping("/pagina")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> obtenerPedidosPaginados(
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) Integer usuarioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "50") int tamano) {
+        try {
+            PedidoPaginaResponse pedidos = pedidoService.buscarPedidosPaginados(
+                    estado, usuarioId, fechaInicio, fechaFin, pagina, tamano);
             return ResponseEntity.ok(pedidos);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(new MessageResponse("Error interno del servidor"));
         }
     }
 
+    // Exportación CSV/NDJSON en streaming (rango de fechas obligatorio)
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportarPedidos(
+            @RequestParam(required = false) String estado,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(defaultValue = "csv") String formato,
+            HttpServletResponse response) throws IOException {
+        ExportacionService.Formato formatoExportacion;
+        Pedido.EstadoPedido estadoPedido;
+        try {
+            formatoExportacion = exportacionService.parsearFormato(formato);
+            estadoPedido = exportacionService.parsearEstadoPedido(estado);
+            exportacionService.validarRango(fechaInicio, fechaFin);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+
+        response.setContentType(formatoExportacion.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                + formatoExportacion.nombreArchivo("pedidos_" + fechaInicio + "_" + fechaFin) + "\"");
+        exportacionService.exportarPedidos(estadoPedido, fechaInicio, fechaFin, formatoExportacion,
+                response.getOutputStream());
+        return null;
+    }
+
     @GetMapping("/mis-pedidos")
-    public ResponseEntity<?> obtenerMisPedidos() {
+    public ResponseEntity<?> obtenerMisPedidos(@UsuarioActual Integer usuarioId) {
         try {
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             List<PedidoResponse> pedidos = pedidoService.obtenerPedidosPorUsuario(usuarioId);
             return ResponseEntity.ok(pedidos);
         } catch (RuntimeException e) {
@@ -76,7 +154,23 @@ public class PedidoController {
     }
 
     @PostMapping("/crear-desde-carrito")
-    public ResponseEntity<?> crearPedidoDesdeCarrito(@RequestBody PedidoRequest request) {
+    public ResponseEntity<?> crearPedidoDesdeCarrito(@RequestBody PedidoRequest request,
+                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                     @UsuarioActual Integer usuarioId) {
+        if (idempotencyKey == null) {
+            return procesarPedidoDesdeCarrito(request, usuarioId);
+        }
+        try {
+            // Los reintentos con la misma clave devuelven la respuesta original sin volver a ejecutar
+            return idempotenciaService.ejecutar(usuarioId, idempotencyKey, request,
+                    () -> procesarPedidoDesdeCarrito(request, usuarioId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> procesarPedidoDesdeCarrito(PedidoRequest request, Integer usuarioId) {
         try {
             // Validaciones básicas
             if (request.getDireccion() == null || request.getDireccion().trim().isEmpty()) {
@@ -92,9 +186,11 @@ public class PedidoController {
                         .body(new MessageResponse("El método de pago es requerido"));
             }
 
-            Integer usuarioId = obtenerUsuarioIdDelToken();
             PedidoResponse pedido = pedidoService.crearPedidoDesdeCarrito(usuarioId, request);
             return ResponseEntity.ok(pedido);
+        } catch (StockInsuficienteException e) {
+            return ResponseEntity.status(409)
+                    .body(new StockInsuficienteResponse(e.getMessage(), e.getFaltantes()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse(e.getMessage()));
@@ -154,20 +250,4 @@ public class PedidoController {
         }
     }
 
-    // Método auxiliar para obtener el ID del usuario del token JWT
-    private Integer obtenerUsuarioIdDelToken() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Usuario no autenticado");
-        }
-        
-        // El username en el token es el email del usuario
-        String email = authentication.getName();
-        
-        // Buscar el usuario por email
-        Usuario usuario = usuarioRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con email: " + email));
-        
-        return usuario.getId();
-    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.PetsSecrets.Veterinaria_Backend.controllers;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoFacetasResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoPaginaResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
 import com.PetsSecrets.Veterinaria_Backend.services.ProductoService;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -166,6 +169,46 @@ public class ProductoController {
         }
     }
 
+    // Búsqueda por relevancia (tildes, prefijos y errores de tipeo) con paginación
+    @GetMapping("/busqueda")
+    public ResponseEntity<?> buscarProductos(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano) {
+        try {
+            ProductoPaginaResponse resultado = productoService.buscarProductos(q, pagina, tamano);
+            return ResponseEntity.ok(resultado);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(new MessageResponse("Error interno del servidor"));
+        }
+    }
+
+    // Navegación por facetas: categoria y precio admiten varios valores (?categoria=1&categoria=2)
+    @GetMapping("/facetas")
+    public ResponseEntity<?> buscarPorFacetas(
+            @RequestParam(name = "categoria", required = false) Set<Integer> categorias,
+            @RequestParam(name = "precio", required = false) Set<String> rangosPrecio,
+            @RequestParam(required = false) Boolean enStock,
+            @RequestParam(required = false) String estado,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano) {
+        try {
+            ProductoFacetasResponse resultado = productoService.buscarPorFacetas(
+                    categorias, rangosPrecio, enStock, estado, pagina, tamano);
+            return ResponseEntity.ok(resultado);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(new MessageResponse("Error interno del servidor"));
+        }
+    }
+
     @GetMapping("/precio")
     public ResponseEntity<List<ProductoResponse>> buscarProductosPorRangoPrecio(
             @RequestParam double min, @RequestParam double max) {
@@ -0,0 +1,24 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// Proyección plana de una cita para exportaciones (sin cargar entidades)
+public record CitaFila(
+        Integer id,
+        LocalDate fecha,
+        LocalTime hora,
+        Cita.EstadoCita estado,
+        Integer usuarioId,
+        String usuarioNombre,
+        String usuarioEmail,
+        String mascotaNombre,
+        String servicioNombre,
+        Double servicioPrecio,
+        String sedeNombre,
+        String notas,
+        LocalDateTime fechaCreacion) {
+}
@@ -0,0 +1,21 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CitaPaginaResponse {
+
+    private List<CitaResponse> citas;
+
+    // Cursor opaco para pedir la siguiente página (null si no hay más)
+    private String siguienteCursor;
+    private boolean hayMas;
+}
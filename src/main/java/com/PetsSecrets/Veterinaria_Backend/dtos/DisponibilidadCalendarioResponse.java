@@ -0,0 +1,39 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DisponibilidadCalendarioResponse {
+
+    private Integer sedeId;
+    private Integer duracionSlotMinutos;
+    private List<DiaDisponibilidad> dias;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DiaDisponibilidad {
+        private LocalDate fecha;
+        private List<SlotDisponibilidad> slots;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SlotDisponibilidad {
+        private LocalTime hora;
+        private boolean disponible;
+    }
+}
@@ -0,0 +1,5 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+// Valor de una faceta y cantidad de productos que coinciden con él
+public record FacetaConteo(String valor, String etiqueta, long cantidad) {
+}
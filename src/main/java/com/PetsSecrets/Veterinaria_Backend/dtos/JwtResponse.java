@@ -12,6 +12,9 @@ public class JwtResponse {
     
     private String token;
     private String type = "Bearer";
+    private String refreshToken;
+    // Vigencia del access token en segundos
+    private Long expiresIn;
     private Integer id;
     private String email;
     private String nombreCompleto;
@@ -26,4 +29,10 @@ public class JwtResponse {
         this.telefono = usuario.getTelefono();
         this.rol = usuario.getRol().name();
     }
+
+    public JwtResponse(String accessToken, String refreshToken, Long expiresIn, Usuario usuario) {
+        this(accessToken, usuario);
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
 }
\ No newline at end of file
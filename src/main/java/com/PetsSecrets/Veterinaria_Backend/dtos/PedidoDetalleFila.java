@@ -0,0 +1,15 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import java.math.BigDecimal;
+
+// Proyección de un detalle de pedido con los datos del producto
+public record PedidoDetalleFila(
+        Integer pedidoId,
+        Integer id,
+        Integer productoId,
+        String productoNombre,
+        String productoImagenUrl,
+        Integer cantidad,
+        BigDecimal precioUnitario,
+        BigDecimal subtotal) {
+}
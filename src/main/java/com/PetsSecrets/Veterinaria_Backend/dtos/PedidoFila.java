@@ -0,0 +1,27 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Proyección de una fila de pedido con los datos del usuario (sin cargar entidades)
+public record PedidoFila(
+        Integer id,
+        String codigo,
+        Integer usuarioId,
+        String usuarioNombre,
+        String usuarioEmail,
+        LocalDateTime fechaPedido,
+        Pedido.EstadoPedido estado,
+        BigDecimal subtotal,
+        BigDecimal envio,
+        BigDecimal total,
+        String direccion,
+        String ciudad,
+        String codigoPostal,
+        String telefonoContacto,
+        Pedido.MetodoPago metodoPago,
+        LocalDate fechaEntrega) {
+}
@@ -0,0 +1,28 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoFacetasResponse {
+
+    private List<ProductoResponse> productos;
+
+    private int pagina;
+    private int tamano;
+    private long totalElementos;
+    private int totalPaginas;
+
+    // Conteos por faceta (cada uno aplica los filtros de las demás facetas)
+    private List<FacetaConteo> categorias;
+    private List<FacetaConteo> rangosPrecio;
+    private List<FacetaConteo> stock;
+    private List<FacetaConteo> estados;
+}
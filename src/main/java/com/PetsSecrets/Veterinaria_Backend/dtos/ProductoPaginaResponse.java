@@ -0,0 +1,22 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductoPaginaResponse {
+
+    private List<ProductoResponse> productos;
+
+    private int pagina;
+    private int tamano;
+    private long totalElementos;
+    private int totalPaginas;
+}
@@ -0,0 +1,11 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+
+    @NotBlank(message = "El refresh token es requerido")
+    private String refreshToken;
+}
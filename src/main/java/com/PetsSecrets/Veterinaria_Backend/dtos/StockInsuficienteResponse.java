@@ -0,0 +1,14 @@
+package com.PetsSecrets.Veterinaria_Backend.dtos;
+
+import com.PetsSecrets.Veterinaria_Backend.services.StockInsuficienteException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class StockInsuficienteResponse {
+    private String message;
+    private List<StockInsuficienteException.Faltante> faltantes;
+}
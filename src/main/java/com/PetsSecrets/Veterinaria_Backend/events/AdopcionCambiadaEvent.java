@@ -0,0 +1,11 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
+
+// Publicado al crear una solicitud de adopción o cambiar su estado.
+// En la creación el estado anterior es null.
+public record AdopcionCambiadaEvent(
+        Integer adopcionId,
+        Adopcion.EstadoAdopcion estadoAnterior,
+        Adopcion.EstadoAdopcion estadoNuevo) {
+}
@@ -0,0 +1,5 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+// Publicado al crear, actualizar o eliminar una categoría
+public record CategoriaCambiadaEvent(Integer categoriaId) {
+}
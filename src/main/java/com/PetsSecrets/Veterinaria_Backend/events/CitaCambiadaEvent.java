@@ -0,0 +1,11 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+import java.time.LocalDate;
+
+// Publicado al crear una cita o cambiar su fecha.
+// En la creación la fecha anterior es null.
+public record CitaCambiadaEvent(
+        Integer citaId,
+        LocalDate fechaAnterior,
+        LocalDate fechaNueva) {
+}
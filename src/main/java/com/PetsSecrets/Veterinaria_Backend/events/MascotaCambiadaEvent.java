@@ -0,0 +1,13 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
+
+// Publicado al crear una mascota o cambiar su estado de adopción / actividad.
+// En la creación el estado anterior es null.
+public record MascotaCambiadaEvent(
+        Integer mascotaId,
+        Mascota.EstadoAdopcion estadoAnterior,
+        boolean activaAnterior,
+        Mascota.EstadoAdopcion estadoNuevo,
+        boolean activaNueva) {
+}
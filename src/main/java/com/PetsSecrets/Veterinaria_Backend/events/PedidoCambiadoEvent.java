@@ -0,0 +1,15 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
+
+import java.math.BigDecimal;
+
+// Publicado al crear un pedido o cambiar su estado.
+// En la creación el estado anterior es null.
+public record PedidoCambiadoEvent(
+        Integer pedidoId,
+        Pedido.EstadoPedido estadoAnterior,
+        Pedido.EstadoPedido estadoNuevo,
+        BigDecimal total,
+        long unidades) {
+}
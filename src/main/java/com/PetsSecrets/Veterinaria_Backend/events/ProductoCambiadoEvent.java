@@ -0,0 +1,11 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+// Publicado cuando cambia el stock o el precio de un producto.
+// Creación: stock anterior 0. Eliminación: stock nuevo 0.
+public record ProductoCambiadoEvent(
+        Integer productoId,
+        int stockAnterior,
+        double precioAnterior,
+        int stockNuevo,
+        double precioNuevo) {
+}
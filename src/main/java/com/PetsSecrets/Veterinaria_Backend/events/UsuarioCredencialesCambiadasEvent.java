@@ -0,0 +1,5 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+// Publicado al cambiar el email, el rol o la contraseña de un usuario: sus tokens emitidos antes dejan de valer
+public record UsuarioCredencialesCambiadasEvent(Integer usuarioId, Integer versionCredenciales) {
+}
@@ -0,0 +1,5 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+// Publicado al eliminar un usuario
+public record UsuarioEliminadoEvent(Integer usuarioId) {
+}
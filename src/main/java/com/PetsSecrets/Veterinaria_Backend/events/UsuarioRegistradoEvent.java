@@ -0,0 +1,5 @@
+package com.PetsSecrets.Veterinaria_Backend.events;
+
+// Publicado al crear un usuario
+public record UsuarioRegistradoEvent(Integer usuarioId) {
+}
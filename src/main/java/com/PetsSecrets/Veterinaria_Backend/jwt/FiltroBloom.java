@@ -0,0 +1,79 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom sobre cadenas, seguro entre hilos y sin bloqueos.
+// "No contiene" es exacto; "podría contener" es un falso positivo con la probabilidad configurada
+// y se confirma contra el conjunto exacto. No admite borrados: se reconstruye al purgar.
+final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int numHashes;
+    private final int capacidad;
+
+    FiltroBloom(int capacidad, double probabilidadFalsoPositivo) {
+        this.capacidad = Math.max(1, capacidad);
+        double ln2 = Math.log(2);
+        long optimo = (long) Math.ceil(-this.capacidad * Math.log(probabilidadFalsoPositivo) / (ln2 * ln2));
+        this.numBits = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 64, optimo));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacidad * ln2));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+    }
+
+    int capacidad() {
+        return capacidad;
+    }
+
+    int numBits() {
+        return numBits;
+    }
+
+    void agregar(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, numBits);
+            int palabra = bit >>> 6;
+            long mascara = 1L << bit;
+            long actual;
+            do {
+                actual = bits.get(palabra);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+        }
+    }
+
+    boolean podriaContener(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits seguido de un mezclado final (doble hashing: h1 + i * h2)
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -6,66 +6,72 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    @Autowired
-    private JwtUtils jwtUtils;
+    // Clave MDC con el id del usuario autenticado (aparece en cada línea de log de la solicitud)
+    public static final String MDC_USUARIO = "usuarioId";
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private VerificadorTokens verificadorTokens;
+
+    // Una de cada N decisiones de autenticación se registra en DEBUG (1 = todas)
+    @Value("${app.logging.auth-muestreo:100}")
+    private long muestreo;
+
+    private final AtomicLong decisiones = new AtomicLong();
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, 
                                   @NonNull HttpServletResponse response, 
                                   @NonNull FilterChain filterChain) throws ServletException, IOException {
         
-        String requestURI = request.getRequestURI();
-        System.out.println("=== JWT FILTER - URI: " + requestURI + " ===");
-        
+        String decision = "sin_token";
         try {
             String jwt = parseJwt(request);
-            System.out.println("JWT extraído: " + (jwt != null ? jwt.substring(0, Math.min(20, jwt.length())) + "..." : "null"));
-            
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                System.out.println("JWT válido");
-                String email = jwtUtils.getEmailFromJwtToken(jwt);
-                System.out.println("Email del JWT: " + email);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                System.out.println("UserDetails cargado: " + userDetails.getUsername());
-                System.out.println("Authorities: " + userDetails.getAuthorities());
-                
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            if (jwt != null) {
+                VerificadorTokens.Resultado resultado = verificadorTokens.verificar(jwt);
+                decision = resultado.decision().name();
+                if (resultado.esValido()) {
+                    UsuarioPrincipal principal = resultado.principal();
+                    UsernamePasswordAuthenticationToken authentication = 
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                System.out.println("Autenticación establecida correctamente");
-            } else {
-                System.out.println("JWT nulo o inválido");
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    MDC.put(MDC_USUARIO, String.valueOf(principal.getId()));
+                }
             }
         } catch (Exception e) {
-            System.err.println("Error en JWT filter: " + e.getMessage());
-            e.printStackTrace();
-            logger.error("Cannot set user authentication: {}", e);
+            decision = "error";
+            logger.warn("No se pudo autenticar la solicitud {} {}: {}", request.getMethod(), request.getRequestURI(), e.toString());
+            logger.debug("Detalle del error de autenticación", e);
         }
 
-        filterChain.doFilter(request, response);
+        if (logger.isDebugEnabled() && decisiones.incrementAndGet() % Math.max(1, muestreo) == 0) {
+            logger.debug("Autenticación {} {}: {}", request.getMethod(), request.getRequestURI(), decision);
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_USUARIO);
+        }
     }
 
     private String parseJwt(HttpServletRequest request) {
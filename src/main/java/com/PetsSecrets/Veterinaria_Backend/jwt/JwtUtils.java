@@ -1,59 +1,162 @@
 package com.PetsSecrets.Veterinaria_Backend.jwt;
 
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+
+    public static final String CLAIM_USUARIO_ID = "uid";
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_VERSION_CREDENCIALES = "ver";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
-    
+
     @Value("${app.jwt.expiration}")
     private Long jwtExpirationMs;
-    
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+    @Value("${app.jwt.cache.max-entradas:10000}")
+    private int maxEntradasCache;
+
+    @Value("${app.jwt.cache.ttl-segundos:300}")
+    private long ttlCacheSegundos;
+
+    // La clave y el parser son inmutables y seguros entre hilos: se crean una sola vez
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Tokens ya verificados (LRU por acceso), indexados por el SHA-256 del token
+    private Map<String, TokenVerificado> verificados;
+
+    private record TokenVerificado(Claims claims, long expiraEn) {
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verificados = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenVerificado> eldest) {
+                return size() > maxEntradasCache;
+            }
+        };
+    }
+
+    public long getExpiracionSegundos() {
+        return jwtExpirationMs / 1000;
     }
-    
-    public String generateJwtToken(String email) {
+
+    // jti identifica el token para poder revocarlo (logout) antes de su expiración.
+    // uid y rol permiten autenticar cada solicitud sin buscar al usuario en la base de datos;
+    // ver es la versión de credenciales del usuario al emitirlo (ver RevocacionTokens)
+    public String generateJwtToken(Usuario usuario) {
+        Date ahora = new Date();
         return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(new Date().getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setSubject(usuario.getEmail())
+                .claim(CLAIM_USUARIO_ID, usuario.getId())
+                .claim(CLAIM_ROL, usuario.getRol().name())
+                .claim(CLAIM_VERSION_CREDENCIALES, usuario.getVersionCredenciales())
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(ahora)
+                .setExpiration(new Date(ahora.getTime() + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-    
+
     public String getEmailFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-    
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    // Valida firma y expiración y devuelve los claims; null si el token no es válido.
+    // Un token ya verificado se sirve desde la caché hasta su exp (como mucho ttl-segundos).
+    public Claims parseValidClaims(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            return null;
+        }
+        String clave = huella(authToken);
+        long ahora = System.currentTimeMillis();
+        synchronized (verificados) {
+            TokenVerificado cacheado = verificados.get(clave);
+            if (cacheado != null) {
+                if (cacheado.expiraEn() > ahora) {
+                    return cacheado.claims();
+                }
+                verificados.remove(clave);
+            }
+        }
+
+        Claims claims = verificar(authToken);
+        if (claims != null) {
+            long expiraEn = ahora + ttlCacheSegundos * 1000;
+            if (claims.getExpiration() != null) {
+                expiraEn = Math.min(expiraEn, claims.getExpiration().getTime());
+            }
+            synchronized (verificados) {
+                verificados.put(clave, new TokenVerificado(claims, expiraEn));
+            }
+        }
+        return claims;
+    }
+
     public boolean validateJwtToken(String authToken) {
+        return parseValidClaims(authToken) != null;
+    }
+
+    // Un token inválido es un error del cliente: DEBUG, sin stack trace
+    private Claims verificar(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            Claims claims = parser.parseClaimsJws(authToken).getBody();
+            if (!tieneFormaDeAccessToken(claims)) {
+                logger.debug("JWT rechazado: sin jti, iat o exp, o con una vida mayor que app.jwt.expiration");
+                return null;
+            }
+            return claims;
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
-        } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+            logger.debug("JWT expirado: {}", e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("JWT inválido ({}): {}", e.getClass().getSimpleName(), e.getMessage());
+        }
+        return null;
+    }
+
+    // Solo se aceptan tokens como los que emite generateJwtToken: sin jti no se podrían revocar
+    // con logout, y uno con una vida mayor que la configurada (emitido con otra configuración o
+    // antes de acortarla) no debe seguir valiendo. iat y exp van en segundos: 1 s de margen.
+    private boolean tieneFormaDeAccessToken(Claims claims) {
+        if (claims.getId() == null || claims.getId().isEmpty()
+                || claims.getIssuedAt() == null || claims.getExpiration() == null) {
+            return false;
+        }
+        long vidaMs = claims.getExpiration().getTime() - claims.getIssuedAt().getTime();
+        return vidaMs <= jwtExpirationMs + 1_000;
+    }
+
+    // La caché no guarda el token en claro
+    private static String huella(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
         }
-        return false;
     }
 }
@@ -0,0 +1,115 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioCredencialesCambiadasEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioEliminadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioRegistradoEvent;
+import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Comprobación de revocación de los tokens con uid, sin ir a la base de datos en cada solicitud.
+// - Cambio de email, rol o contraseña: sube usuarios.version_credenciales y solo valen los tokens
+//   emitidos con la versión actual (claim ver). Al estar en la base de datos sobrevive a reinicios
+//   y lo ven todas las instancias; no depende de la precisión de iat.
+// - Usuarios eliminados: se rechaza cualquier token de un uid que ya no existe.
+// - Las versiones se cargan al arrancar y se sincronizan por credenciales_cambiadas_en;
+//   un uid desconocido (p. ej. registrado en otra instancia) se consulta una vez.
+@Component
+@RequiredArgsConstructor
+public class RevocacionTokens {
+
+    // Usuario eliminado (o inexistente): ninguna versión de token coincide
+    private static final int ELIMINADO = -1;
+
+    // Margen al sincronizar por credenciales_cambiadas_en, para cambios con el reloj algo atrasado
+    private static final long MARGEN_SEGUNDOS = 5;
+
+    private final UsuarioRepository usuarioRepository;
+
+    // uid -> versión de credenciales vigente
+    private final Map<Integer, Integer> versiones = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime ultimaSincronizacion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (UsuarioRepository.VersionCredenciales version : usuarioRepository.findVersionesCredenciales()) {
+            actualizar(version.getId(), version.getVersion());
+        }
+        ultimaSincronizacion = ahora;
+    }
+
+    // Tokens sin claim ver (emitidos antes de la versión de credenciales) cuentan como versión 0
+    public boolean estaRevocado(Integer usuarioId, Integer versionToken) {
+        Integer vigente = versiones.get(usuarioId);
+        if (vigente == null) {
+            vigente = usuarioRepository.findVersionCredenciales(usuarioId).orElse(ELIMINADO);
+            actualizar(usuarioId, vigente);
+        }
+        return vigente == ELIMINADO || vigente != (versionToken != null ? versionToken : 0);
+    }
+
+    // Cambios de credenciales hechos en otras instancias
+    @Scheduled(initialDelayString = "${app.jwt.revocacion.sincronizacion-ms:30000}",
+               fixedDelayString = "${app.jwt.revocacion.sincronizacion-ms:30000}")
+    public void sincronizar() {
+        LocalDateTime desde = ultimaSincronizacion;
+        if (desde == null) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (UsuarioRepository.VersionCredenciales version
+                : usuarioRepository.findVersionesCambiadasDesde(desde.minusSeconds(MARGEN_SEGUNDOS))) {
+            actualizar(version.getId(), version.getVersion());
+        }
+        ultimaSincronizacion = ahora;
+    }
+
+    // Usuarios eliminados en otras instancias: sus filas ya no están, se detectan con la lista completa.
+    // Un uid que falte se vuelve a consultar en su siguiente solicitud.
+    @Scheduled(initialDelayString = "${app.jwt.revocacion.recarga-ms:300000}",
+               fixedDelayString = "${app.jwt.revocacion.recarga-ms:300000}")
+    public void recargar() {
+        List<UsuarioRepository.VersionCredenciales> todas = usuarioRepository.findVersionesCredenciales();
+        Set<Integer> existentes = new HashSet<>();
+        for (UsuarioRepository.VersionCredenciales version : todas) {
+            existentes.add(version.getId());
+            actualizar(version.getId(), version.getVersion());
+        }
+        versiones.entrySet().removeIf(entrada -> entrada.getValue() != ELIMINADO && !existentes.contains(entrada.getKey()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioRegistrado(UsuarioRegistradoEvent event) {
+        versiones.put(event.usuarioId(), 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioEliminado(UsuarioEliminadoEvent event) {
+        versiones.put(event.usuarioId(), ELIMINADO);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCredencialesCambiadas(UsuarioCredencialesCambiadasEvent event) {
+        actualizar(event.usuarioId(), event.versionCredenciales());
+    }
+
+    // Las versiones solo suben: una lectura atrasada no deshace un cambio ya visto.
+    // Un usuario eliminado no vuelve (los ids no se reutilizan).
+    private void actualizar(Integer usuarioId, int version) {
+        versiones.merge(usuarioId, version,
+                (actual, nueva) -> actual == ELIMINADO ? ELIMINADO : Math.max(actual, nueva));
+    }
+}
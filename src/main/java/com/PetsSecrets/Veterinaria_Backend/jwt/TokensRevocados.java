@@ -0,0 +1,137 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.models.TokenRevocado;
+import com.PetsSecrets.Veterinaria_Backend.repositories.TokenRevocadoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Access tokens revocados (por jti) antes de su expiración, comprobados sin ir a la base de datos.
+// - Un filtro de Bloom descarta en nanosegundos los tokens no revocados (casi todos); sus
+//   positivos se confirman en el conjunto exacto jti -> exp.
+// - La tabla tokens_revocados es la fuente: se carga al arrancar y se sincroniza cada pocos
+//   segundos para recoger las revocaciones hechas en otras instancias.
+// - Al purgar los expirados se reconstruye el filtro (un filtro de Bloom no admite borrados).
+@Component
+public class TokensRevocados {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokensRevocados.class);
+
+    // Margen al sincronizar por revocado_en, para revocaciones con el reloj algo atrasado
+    private static final long MARGEN_SEGUNDOS = 5;
+
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+    private final int capacidadInicial;
+    private final double probabilidadFalsoPositivo;
+
+    // jti -> exp (epoch ms); el filtro se lee sin bloqueo y se reemplaza al reconstruir
+    private final Map<String, Long> exactos = new ConcurrentHashMap<>();
+    private volatile FiltroBloom filtro;
+
+    private volatile LocalDateTime ultimaSincronizacion;
+
+    public TokensRevocados(TokenRevocadoRepository tokenRevocadoRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.jwt.revocacion.capacidad:100000}") int capacidadInicial,
+                           @Value("${app.jwt.revocacion.falsos-positivos:0.01}") double probabilidadFalsoPositivo) {
+        this.tokenRevocadoRepository = tokenRevocadoRepository;
+        this.capacidadInicial = capacidadInicial;
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+        this.filtro = new FiltroBloom(capacidadInicial, probabilidadFalsoPositivo);
+        Gauge.builder("jwt.revocados.entradas", exactos, Map::size)
+                .description("Access tokens revocados aún vigentes en memoria").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<TokenRevocado> vigentes = tokenRevocadoRepository.findVigentes(ahora);
+        synchronized (this) {
+            vigentes.forEach(token -> exactos.put(token.getJti(), aEpochMs(token.getExpiraEn())));
+            reconstruir();
+        }
+        ultimaSincronizacion = ahora;
+        logger.info("Tokens revocados cargados: {}", vigentes.size());
+    }
+
+    public boolean estaRevocado(String jti) {
+        if (jti == null || !filtro.podriaContener(jti)) {
+            return false;
+        }
+        return exactos.containsKey(jti);
+    }
+
+    // Un token ya expirado no necesita revocarse: la validación de exp lo rechaza
+    public void revocar(String jti, Date expiraEn) {
+        if (jti == null || expiraEn == null || expiraEn.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        LocalDateTime expira = LocalDateTime.ofInstant(expiraEn.toInstant(), ZoneId.systemDefault());
+        tokenRevocadoRepository.save(new TokenRevocado(jti, expira, LocalDateTime.now()));
+        agregar(jti, expiraEn.getTime());
+    }
+
+    @Scheduled(initialDelayString = "${app.jwt.revocacion.sincronizacion-ms:30000}",
+               fixedDelayString = "${app.jwt.revocacion.sincronizacion-ms:30000}")
+    public void sincronizar() {
+        LocalDateTime desde = ultimaSincronizacion;
+        if (desde == null) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        for (TokenRevocado token : tokenRevocadoRepository.findRevocadosDesde(desde.minusSeconds(MARGEN_SEGUNDOS), ahora)) {
+            if (!exactos.containsKey(token.getJti())) {
+                agregar(token.getJti(), aEpochMs(token.getExpiraEn()));
+            }
+        }
+        ultimaSincronizacion = ahora;
+    }
+
+    // Quitar los expirados de memoria y de la tabla
+    @Scheduled(fixedDelayString = "${app.jwt.revocacion.limpieza-ms:3600000}")
+    public void limpiarExpirados() {
+        long ahora = System.currentTimeMillis();
+        synchronized (this) {
+            if (exactos.values().removeIf(expira -> expira <= ahora)) {
+                reconstruir();
+            }
+        }
+        int eliminados = tokenRevocadoRepository.deleteExpirados(LocalDateTime.now());
+        if (eliminados > 0) {
+            logger.info("Tokens revocados expirados eliminados: {}", eliminados);
+        }
+    }
+
+    synchronized void agregar(String jti, long expiraEnMs) {
+        exactos.put(jti, expiraEnMs);
+        if (exactos.size() > filtro.capacidad()) {
+            reconstruir();
+        } else {
+            filtro.agregar(jti);
+        }
+    }
+
+    // Llamar con el monitor tomado; se dimensiona con holgura para no reconstruir en cada alta
+    private void reconstruir() {
+        FiltroBloom nuevo = new FiltroBloom(Math.max(capacidadInicial, exactos.size() * 2), probabilidadFalsoPositivo);
+        exactos.keySet().forEach(nuevo::agregar);
+        filtro = nuevo;
+    }
+
+    private static long aEpochMs(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
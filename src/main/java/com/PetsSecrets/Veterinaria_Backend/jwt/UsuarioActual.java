@@ -0,0 +1,13 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Parámetro de controlador con el usuario autenticado: Integer (id) o UsuarioPrincipal.
+// Lo resuelve UsuarioActualArgumentResolver desde el token, sin consultar la base de datos.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UsuarioActual {
+}
@@ -0,0 +1,34 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class UsuarioActualArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(@NonNull MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(UsuarioActual.class)
+                && (parameter.getParameterType() == Integer.class
+                    || parameter.getParameterType() == UsuarioPrincipal.class);
+    }
+
+    @Override
+    public Object resolveArgument(@NonNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  @NonNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UsuarioPrincipal principal)) {
+            // Sin token válido: Spring Security responde como a cualquier acceso no autenticado
+            throw new AuthenticationCredentialsNotFoundException("Usuario no autenticado");
+        }
+        return parameter.getParameterType() == Integer.class ? principal.getId() : principal;
+    }
+}
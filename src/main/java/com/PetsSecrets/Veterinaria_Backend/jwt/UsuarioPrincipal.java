@@ -0,0 +1,59 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Usuario autenticado construido a partir de los claims del JWT (uid, rol), sin consultar la base de datos.
+// Implementa UserDetails para que el código que ya lee authentication.getPrincipal() siga funcionando.
+@Getter
+public class UsuarioPrincipal implements UserDetails {
+
+    private final Integer id;
+    private final String email;
+    private final Usuario.Rol rol;
+    private final List<GrantedAuthority> authorities;
+
+    // Solo lo llevan los cargados por UserDetailsServiceImpl (login); nunca los construidos desde el token
+    private final String password;
+
+    public UsuarioPrincipal(Integer id, String email, Usuario.Rol rol) {
+        this(id, email, rol, null);
+    }
+
+    private UsuarioPrincipal(Integer id, String email, Usuario.Rol rol, String password) {
+        this.id = id;
+        this.email = email;
+        this.rol = rol;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + rol.name().toUpperCase()));
+        this.password = password;
+    }
+
+    public static UsuarioPrincipal conPassword(Usuario usuario) {
+        return new UsuarioPrincipal(usuario.getId(), usuario.getEmail(), usuario.getRol(), usuario.getPasswordHash());
+    }
+
+    public boolean esAdmin() {
+        return rol == Usuario.Rol.admin;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+}
@@ -0,0 +1,51 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// Verificación completa de un access token, compartida por JwtAuthenticationFilter y /api/auth/verify:
+// firma y forma (JwtUtils), principal desde los claims y las dos revocaciones
+// (logout por jti y cambio de credenciales o usuario eliminado por uid/ver).
+@Component
+@RequiredArgsConstructor
+public class VerificadorTokens {
+
+    public enum Decision { invalido, revocado, valido }
+
+    public record Resultado(Decision decision, Claims claims, UsuarioPrincipal principal) {
+        public boolean esValido() {
+            return decision == Decision.valido;
+        }
+    }
+
+    private final JwtUtils jwtUtils;
+    private final RevocacionTokens revocacionTokens;
+    private final TokensRevocados tokensRevocados;
+
+    public Resultado verificar(String token) {
+        Claims claims = jwtUtils.parseValidClaims(token);
+        UsuarioPrincipal principal = claims != null ? construirPrincipal(claims) : null;
+        if (principal == null) {
+            return new Resultado(Decision.invalido, claims, null);
+        }
+        if (tokensRevocados.estaRevocado(claims.getId())
+                || revocacionTokens.estaRevocado(principal.getId(),
+                        claims.get(JwtUtils.CLAIM_VERSION_CREDENCIALES, Integer.class))) {
+            return new Resultado(Decision.revocado, claims, principal);
+        }
+        return new Resultado(Decision.valido, claims, principal);
+    }
+
+    // Todo access token vigente lleva uid y rol (JwtUtils exige además jti, iat y exp):
+    // el principal sale de los claims, sin consultar la base de datos
+    private UsuarioPrincipal construirPrincipal(Claims claims) {
+        Integer usuarioId = claims.get(JwtUtils.CLAIM_USUARIO_ID, Integer.class);
+        String rol = claims.get(JwtUtils.CLAIM_ROL, String.class);
+        if (usuarioId == null || rol == null) {
+            return null;
+        }
+        return new UsuarioPrincipal(usuarioId, claims.getSubject(), Usuario.Rol.valueOf(rol));
+    }
+}
@@ -12,7 +12,10 @@ import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "citas")
+@Table(name = "citas", indexes = {
+        @Index(name = "idx_citas_fecha_hora", columnList = "fecha, hora, id"),
+        @Index(name = "idx_citas_sede_fecha", columnList = "sede_id, fecha")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
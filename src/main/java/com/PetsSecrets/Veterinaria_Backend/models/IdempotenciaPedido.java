@@ -0,0 +1,52 @@
+package com.PetsSecrets.Veterinaria_Backend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Resultado de una creación de pedido identificada por Idempotency-Key.
+// Compartido entre instancias: la clave primaria impide que dos nodos ejecuten la misma clave.
+@Entity
+@Table(name = "idempotencia_pedidos", indexes = {
+        @Index(name = "idx_idempotencia_expira", columnList = "expira_en")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotenciaPedido {
+
+    // usuarioId + ":" + Idempotency-Key
+    @Id
+    @Column(length = 150)
+    private String clave;
+
+    // SHA-256 del cuerpo de la solicitud original
+    @Column(name = "huella_solicitud", nullable = false, length = 64)
+    private String huellaSolicitud;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Estado estado;
+
+    @Column(name = "estado_http")
+    private Integer estadoHttp;
+
+    @Lob
+    @Column(name = "respuesta", columnDefinition = "LONGTEXT")
+    private String respuesta;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // Plazo de la reserva en_curso: vencido, otra solicitud con la misma clave toma el relevo
+    @Column(name = "en_curso_hasta")
+    private LocalDateTime enCursoHasta;
+
+    // Identifica la ejecución que tiene la reserva: solo ella la renueva, completa o libera
+    @Column(length = 36)
+    private String propietario;
+
+    public enum Estado { en_curso, completado }
+}
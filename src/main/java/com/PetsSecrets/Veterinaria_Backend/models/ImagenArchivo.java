@@ -0,0 +1,30 @@
+package com.PetsSecrets.Veterinaria_Backend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Índice de las imágenes subidas direccionadas por contenido (<sha256>.<ext>).
+// Cada subida del mismo contenido suma una referencia; el archivo se borra al liberar la última.
+@Entity
+@Table(name = "imagenes_archivos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImagenArchivo {
+
+    @Id
+    @Column(length = 80)
+    private String nombre;
+
+    @Column(nullable = false)
+    private Integer referencias;
+
+    @Column(nullable = false)
+    private Long tamano;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+}
@@ -41,8 +41,8 @@ public class Mascota {
     @Column(name = "descripcion")
     private String descripcion;
 
-    @Lob
-    @Column(name = "foto_url", columnDefinition = "LONGTEXT")
+    // Referencia a la foto (/api/fotos/<sha256>.<ext> o URL externa), nunca la imagen en base64
+    @Column(name = "foto_url", length = 500)
     private String fotoUrl;
 
     @Enumerated(EnumType.STRING)
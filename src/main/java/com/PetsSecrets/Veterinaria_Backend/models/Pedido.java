@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+        @Index(name = "idx_pedidos_fecha", columnList = "fecha_pedido, id"),
+        @Index(name = "idx_pedidos_estado_fecha", columnList = "estado, fecha_pedido")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
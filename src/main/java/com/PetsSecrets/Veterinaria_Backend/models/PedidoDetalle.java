@@ -14,8 +14,22 @@ import java.math.BigDecimal;
 @Builder
 public class PedidoDetalle {
 
+    public static final int BLOQUE_IDS = 50;
+
+    // Ids por bloques desde una tabla generadora (IDENTITY impide los inserts en batch).
+    // Al agotarse un bloque, Hibernate lo pide en una transacción aislada con una segunda
+    // conexión del pool, mientras la del checkout sigue abierta. El bulkhead deja
+    // app.bd.bulkhead.reserva conexiones del pool libres para esas segundas conexiones.
+    // El sincronizado con los ids existentes se hace al arrancar (DataInitializer).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pedido_detalles_gen")
+    @TableGenerator(
+            name = "pedido_detalles_gen",
+            table = "id_generadores",
+            pkColumnName = "entidad",
+            valueColumnName = "siguiente_id",
+            pkColumnValue = "pedido_detalles",
+            allocationSize = PedidoDetalle.BLOQUE_IDS)
     private Integer id;
 
     @ManyToOne(fetch = FetchType.LAZY)
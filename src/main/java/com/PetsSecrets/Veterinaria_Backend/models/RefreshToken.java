@@ -0,0 +1,47 @@
+package com.PetsSecrets.Veterinaria_Backend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Refresh token de un solo uso. Se guarda el SHA-256, nunca el token.
+// Todos los tokens rotados desde un mismo login comparten familia: si se reusa uno ya usado,
+// se revoca la familia completa (el token fue robado o copiado).
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_familia", columnList = "familia"),
+        @Index(name = "idx_refresh_usuario", columnList = "usuario_id"),
+        @Index(name = "idx_refresh_expira", columnList = "expira_en")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    // SHA-256 (hex) del token entregado al cliente
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Integer usuarioId;
+
+    @Column(nullable = false, length = 36)
+    private String familia;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    // null mientras no se haya rotado
+    @Column(name = "usado_en")
+    private LocalDateTime usadoEn;
+
+    // SHA-256 del último token emitido al rotar este (margen de rotaciones simultáneas)
+    @Column(name = "reemplazado_por", length = 64)
+    private String reemplazadoPor;
+}
@@ -0,0 +1,37 @@
+package com.PetsSecrets.Veterinaria_Backend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Reserva única de un horario (sede, fecha, hora) por una cita activa.
+// La restricción UNIQUE es la que impide dobles reservas bajo concurrencia.
+@Entity
+@Table(name = "reservas_horario", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_reserva_sede_fecha_hora", columnNames = {"sede_id", "fecha", "hora"}),
+        @UniqueConstraint(name = "uk_reserva_cita", columnNames = {"cita_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservaHorario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "sede_id", nullable = false)
+    private Integer sedeId;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(nullable = false)
+    private LocalTime hora;
+
+    @Column(name = "cita_id", nullable = false)
+    private Integer citaId;
+}
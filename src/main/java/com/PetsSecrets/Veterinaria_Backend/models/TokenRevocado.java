@@ -0,0 +1,29 @@
+package com.PetsSecrets.Veterinaria_Backend.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Access token revocado antes de su expiración (logout). La fila sobra una vez pasado expira_en.
+@Entity
+@Table(name = "tokens_revocados", indexes = {
+        @Index(name = "idx_revocados_expira", columnList = "expira_en"),
+        @Index(name = "idx_revocados_revocado", columnList = "revocado_en")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocado {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "revocado_en", nullable = false)
+    private LocalDateTime revocadoEn;
+}
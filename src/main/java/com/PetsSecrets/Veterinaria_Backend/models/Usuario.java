@@ -39,6 +39,15 @@ public class Usuario {
     @Column(name = "fecha_registro")
     private LocalDateTime fechaRegistro = LocalDateTime.now();
 
+    // Sube al cambiar email, rol o contraseña; el token lleva la versión con la que se emitió
+    // y deja de valer en cuanto no coincide (en todas las instancias, también tras reiniciar)
+    @Builder.Default
+    @Column(name = "version_credenciales", nullable = false)
+    private Integer versionCredenciales = 0;
+
+    @Column(name = "credenciales_cambiadas_en")
+    private LocalDateTime credencialesCambiadasEn;
+
     // Relación con mascotas (un usuario puede tener muchas mascotas)
     @OneToMany(mappedBy = "usuario", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<Mascota> mascotas;
@@ -31,5 +31,8 @@ public interface CarritoItemRepository extends JpaRepository<CarritoItem, Intege
     @Modifying
     void deleteByCarritoAndProducto(Carrito carrito, Producto producto);
     
-    void deleteByCarritoId(Integer carritoId);
+    // Un único DELETE en lugar de cargar y borrar cada item
+    @Modifying
+    @Query("DELETE FROM CarritoItem ci WHERE ci.carrito.id = :carritoId")
+    void deleteByCarritoId(@Param("carritoId") Integer carritoId);
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package com.PetsSecrets.Veterinaria_Backend.repositories;
 
+import com.PetsSecrets.Veterinaria_Backend.dtos.CitaFila;
 import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,9 +15,10 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CitaRepository extends JpaRepository<Cita, Integer> {
+public interface CitaRepository extends JpaRepository<Cita, Integer>, JpaSpecificationExecutor<Cita> {
     
     // Buscar citas por usuario
     List<Cita> findByUsuarioIdOrderByFechaDescHoraDesc(Integer usuarioId);
@@ -56,6 +62,14 @@ public interface CitaRepository extends JpaRepository<Cita, Integer> {
                                     @Param("hora") LocalTime hora, 
                                     @Param("sedeId") Integer sedeId);
     
+    // Horas ocupadas de una sede en una fecha (para el índice de disponibilidad)
+    @Query("SELECT c.hora FROM Cita c WHERE c.sede.id = :sedeId AND c.fecha = :fecha AND c.estado != 'cancelada'")
+    List<LocalTime> findHorasOcupadas(@Param("sedeId") Integer sedeId, @Param("fecha") LocalDate fecha);
+    
+    // Horarios ocupados desde una fecha: [sedeId, fecha, hora]
+    @Query("SELECT c.sede.id, c.fecha, c.hora FROM Cita c WHERE c.fecha >= :desde AND c.estado != 'cancelada'")
+    List<Object[]> findHorariosOcupadosDesde(@Param("desde") LocalDate desde);
+    
     // Buscar citas de un usuario para una fecha específica
     @Query("SELECT c FROM Cita c WHERE c.usuario.id = :usuarioId AND c.fecha = :fecha AND c.estado != 'cancelada'")
     List<Cita> findCitasUsuarioEnFecha(@Param("usuarioId") Integer usuarioId, @Param("fecha") LocalDate fecha);
@@ -68,6 +82,10 @@ public interface CitaRepository extends JpaRepository<Cita, Integer> {
     @Query("SELECT COUNT(c) FROM Cita c WHERE c.estado = :estado")
     Long countByEstado(@Param("estado") Cita.EstadoCita estado);
     
+    // Histograma de citas por estado en una sola consulta: [estado, cantidad]
+    @Query("SELECT c.estado, COUNT(c) FROM Cita c GROUP BY c.estado")
+    List<Object[]> getEstadisticasCitas();
+    
     // Buscar citas por rango de fechas
     @Query("SELECT c FROM Cita c WHERE c.fecha BETWEEN :fechaInicio AND :fechaFin ORDER BY c.fecha ASC, c.hora ASC")
     List<Cita> findCitasEnRangoFechas(@Param("fechaInicio") LocalDate fechaInicio, 
@@ -83,4 +101,20 @@ public interface CitaRepository extends JpaRepository<Cita, Integer> {
                                    @Param("hora") LocalTime hora, 
                                    @Param("sedeId") Integer sedeId,
                                    @Param("citaId") Integer citaId);
-}
\ No newline at end of file
+
+    // Exportación: cursor de solo avance (fetch size MIN_VALUE = streaming fila a fila en MySQL)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.PetsSecrets.Veterinaria_Backend.dtos.CitaFila(" +
+           "c.id, c.fecha, c.hora, c.estado, u.id, u.nombreCompleto, u.email, m.nombre, " +
+           "s.nombre, s.precio, se.nombre, c.notas, c.fechaCreacion) " +
+           "FROM Cita c JOIN c.usuario u JOIN c.mascota m JOIN c.servicio s JOIN c.sede se " +
+           "WHERE (:estado IS NULL OR c.estado = :estado) " +
+           "AND c.fecha BETWEEN :fechaInicio AND :fechaFin " +
+           "ORDER BY c.fecha ASC, c.hora ASC, c.id ASC")
+    Stream<CitaFila> streamCitas(@Param("estado") Cita.EstadoCita estado,
+                                 @Param("fechaInicio") LocalDate fechaInicio,
+                                 @Param("fechaFin") LocalDate fechaFin);
+}
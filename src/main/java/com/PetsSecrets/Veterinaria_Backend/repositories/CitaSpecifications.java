@@ -0,0 +1,90 @@
+package com.PetsSecrets.Veterinaria_Backend.repositories;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CitaSpecifications {
+
+    // Orden estable para listados y paginación por cursor
+    public static final Sort ORDEN_FECHA_HORA_ID = Sort.by(
+            Sort.Order.asc("fecha"),
+            Sort.Order.asc("hora"),
+            Sort.Order.asc("id"));
+
+    private CitaSpecifications() {
+    }
+
+    // Filtros opcionales de búsqueda (los nulos se ignoran)
+    public static Specification<Cita> conFiltros(
+            Cita.EstadoCita estado,
+            Integer usuarioId,
+            Integer mascotaId,
+            Integer sedeId,
+            LocalDate fechaInicio,
+            LocalDate fechaFin) {
+
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+
+            if (estado != null) {
+                predicados.add(cb.equal(root.get("estado"), estado));
+            }
+            if (usuarioId != null) {
+                predicados.add(cb.equal(root.get("usuario").get("id"), usuarioId));
+            }
+            if (mascotaId != null) {
+                predicados.add(cb.equal(root.get("mascota").get("id"), mascotaId));
+            }
+            if (sedeId != null) {
+                predicados.add(cb.equal(root.get("sede").get("id"), sedeId));
+            }
+            if (fechaInicio != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("fecha"), fechaInicio));
+            }
+            if (fechaFin != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("fecha"), fechaFin));
+            }
+
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+
+    // Cargar usuario, mascota, servicio y sede en la misma consulta para evitar N+1
+    public static Specification<Cita> conRelaciones() {
+        return (root, query, cb) -> {
+            // Las consultas COUNT no admiten fetch joins
+            if (query != null && !esConsultaConteo(query.getResultType())) {
+                root.fetch("usuario", JoinType.INNER);
+                root.fetch("mascota", JoinType.INNER);
+                root.fetch("servicio", JoinType.INNER);
+                root.fetch("sede", JoinType.INNER);
+            }
+            return null;
+        };
+    }
+
+    // Keyset: citas estrictamente posteriores a (fecha, hora, id) según ORDEN_FECHA_HORA_ID
+    public static Specification<Cita> despuesDe(LocalDate fecha, LocalTime hora, Integer id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("fecha"), fecha),
+                cb.and(
+                        cb.equal(root.get("fecha"), fecha),
+                        cb.or(
+                                cb.greaterThan(root.get("hora"), hora),
+                                cb.and(
+                                        cb.equal(root.get("hora"), hora),
+                                        cb.greaterThan(root.get("id"), id)))));
+    }
+
+    private static boolean esConsultaConteo(Class<?> resultType) {
+        return Long.class.equals(resultType) || long.class.equals(resultType);
+    }
+}
@@ -0,0 +1,73 @@
+package com.PetsSecrets.Veterinaria_Backend.repositories;
+
+import com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotenciaPedidoRepository extends JpaRepository<IdempotenciaPedido, String> {
+
+    // INSERT explícito (no merge): si la clave ya existe lanza DataIntegrityViolationException
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotencia_pedidos (clave, huella_solicitud, estado, expira_en, en_curso_hasta, propietario) " +
+                   "VALUES (:clave, :huella, 'en_curso', :expiraEn, :enCursoHasta, :propietario)",
+           nativeQuery = true)
+    int reservar(@Param("clave") String clave, @Param("huella") String huella, @Param("propietario") String propietario,
+                 @Param("expiraEn") LocalDateTime expiraEn, @Param("enCursoHasta") LocalDateTime enCursoHasta);
+
+    // Solo una solicitud gana el relevo de una reserva vencida (las demás actualizan 0 filas).
+    // La huella no cambia: el relevo solo lo toma la misma solicitud.
+    // en_curso_hasta NULL: reservas anteriores a la columna, sin plazo propio
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotenciaPedido i SET i.propietario = :propietario, i.enCursoHasta = :enCursoHasta " +
+           "WHERE i.clave = :clave AND i.huellaSolicitud = :huella " +
+           "AND i.estado = com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido.Estado.en_curso " +
+           "AND (i.enCursoHasta IS NULL OR i.enCursoHasta < :ahora)")
+    int tomarRelevo(@Param("clave") String clave, @Param("huella") String huella, @Param("propietario") String propietario,
+                    @Param("ahora") LocalDateTime ahora, @Param("enCursoHasta") LocalDateTime enCursoHasta);
+
+    // Extiende el plazo mientras la ejecución sigue viva; 0 filas si otra solicitud tomó el relevo
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotenciaPedido i SET i.enCursoHasta = :enCursoHasta " +
+           "WHERE i.clave = :clave AND i.propietario = :propietario " +
+           "AND i.estado = com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido.Estado.en_curso")
+    int renovar(@Param("clave") String clave, @Param("propietario") String propietario,
+                @Param("enCursoHasta") LocalDateTime enCursoHasta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotenciaPedido i SET i.estado = com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido.Estado.completado, " +
+           "i.estadoHttp = :estadoHttp, i.respuesta = :respuesta, i.expiraEn = :expiraEn, i.enCursoHasta = NULL " +
+           "WHERE i.clave = :clave AND i.propietario = :propietario " +
+           "AND i.estado = com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido.Estado.en_curso")
+    int completar(@Param("clave") String clave, @Param("propietario") String propietario,
+                  @Param("estadoHttp") Integer estadoHttp, @Param("respuesta") String respuesta,
+                  @Param("expiraEn") LocalDateTime expiraEn);
+
+    // Libera la reserva propia (error de la ejecución) sin tocar la de otra solicitud
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotenciaPedido i WHERE i.clave = :clave AND i.propietario = :propietario " +
+           "AND i.estado = com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido.Estado.en_curso")
+    int liberar(@Param("clave") String clave, @Param("propietario") String propietario);
+
+    // Solo si sigue vencida: otra instancia pudo reemplazarla después de leerla
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotenciaPedido i WHERE i.clave = :clave AND i.expiraEn < :ahora")
+    int deleteVencida(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotenciaPedido i WHERE i.expiraEn < :ahora")
+    int deleteExpiradas(@Param("ahora") LocalDateTime ahora);
+}
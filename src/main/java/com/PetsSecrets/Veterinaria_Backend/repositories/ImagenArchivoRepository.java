@@ -0,0 +1,31 @@
+package com.PetsSecrets.Veterinaria_Backend.repositories;
+
+import com.PetsSecrets.Veterinaria_Backend.models.ImagenArchivo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+// Las tres operaciones bloquean la fila hasta el commit, así una subida y un borrado
+// del mismo contenido no se cruzan al mover o eliminar el archivo.
+@Repository
+public interface ImagenArchivoRepository extends JpaRepository<ImagenArchivo, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO imagenes_archivos (nombre, referencias, tamano, creado_en) " +
+                   "VALUES (:nombre, 1, :tamano, :ahora) " +
+                   "ON DUPLICATE KEY UPDATE referencias = referencias + 1",
+           nativeQuery = true)
+    int sumarReferencia(@Param("nombre") String nombre, @Param("tamano") long tamano, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE ImagenArchivo i SET i.referencias = i.referencias - 1 WHERE i.nombre = :nombre AND i.referencias > 0")
+    int restarReferencia(@Param("nombre") String nombre);
+
+    @Modifying
+    @Query("DELETE FROM ImagenArchivo i WHERE i.nombre = :nombre AND i.referencias <= 0")
+    int eliminarSinReferencias(@Param("nombre") String nombre);
+}
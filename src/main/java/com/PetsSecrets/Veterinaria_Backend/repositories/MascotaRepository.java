@@ -1,10 +1,13 @@
 package com.PetsSecrets.Veterinaria_Backend.repositories;
 
 import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -57,6 +60,10 @@ public interface MascotaRepository extends JpaRepository<Mascota, Integer> {
     @Query("SELECT COUNT(m) FROM Mascota m WHERE m.activo = true AND m.estadoAdopcion = :estado")
     Long countByEstadoAdopcion(@Param("estado") Mascota.EstadoAdopcion estado);
     
+    // Histograma de mascotas activas por estado de adopción: [estadoAdopcion, cantidad]
+    @Query("SELECT m.estadoAdopcion, COUNT(m) FROM Mascota m WHERE m.activo = true GROUP BY m.estadoAdopcion")
+    List<Object[]> getEstadisticasMascotas();
+    
     // Contar mascotas ingresadas en un rango de fechas
     @Query("SELECT COUNT(m) FROM Mascota m WHERE m.activo = true AND m.fechaIngreso BETWEEN :fechaInicio AND :fechaFin")
     Long countByFechaIngresoBetween(@Param("fechaInicio") java.time.LocalDate fechaInicio, @Param("fechaFin") java.time.LocalDate fechaFin);
@@ -64,6 +71,25 @@ public interface MascotaRepository extends JpaRepository<Mascota, Integer> {
     // Buscar mascotas aptas para niños
     @Query("SELECT m FROM Mascota m WHERE m.activo = true AND m.buenoConNinos = true AND m.estadoAdopcion = 'disponible'")
     List<Mascota> findMascotasBuenasConNinos();
-    
 
-}
\ No newline at end of file
+    // Migración de fotos en base64 a archivos: lotes por id creciente
+    interface FotoPendiente {
+        Integer getId();
+        String getFotoUrl();
+    }
+
+    @Query("SELECT m.id AS id, m.fotoUrl AS fotoUrl FROM Mascota m " +
+           "WHERE m.id > :desdeId AND m.fotoUrl LIKE 'data:%' ORDER BY m.id")
+    List<FotoPendiente> findFotosPendientes(@Param("desdeId") Integer desdeId, Pageable pageable);
+
+    // Solo si la fila sigue teniendo la misma data URI (no se pisa una foto cambiada mientras tanto).
+    // Se compara el SHA-256 del texto para no reenviar la imagen completa en la consulta.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE mascotas SET foto_url = :referencia " +
+                   "WHERE id = :id AND foto_url LIKE 'data:%' AND SHA2(foto_url, 256) = :huella",
+           nativeQuery = true)
+    int reemplazarFoto(@Param("id") Integer id,
+                       @Param("huella") String huella,
+                       @Param("referencia") String referencia);
+}
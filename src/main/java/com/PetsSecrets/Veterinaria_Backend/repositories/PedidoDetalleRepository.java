@@ -3,7 +3,11 @@ package com.PetsSecrets.Veterinaria_Backend.repositories;
 import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
 import com.PetsSecrets.Veterinaria_Backend.models.PedidoDetalle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,4 +19,13 @@ public interface PedidoDetalleRepository extends JpaRepository<PedidoDetalle, In
     List<PedidoDetalle> findByPedidoId(Integer pedidoId);
     
     void deleteByPedidoId(Integer pedidoId);
+    
+    // Asegurar que el generador de ids quede por encima de los ids ya existentes
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO id_generadores (entidad, siguiente_id) " +
+                   "SELECT 'pedido_detalles', COALESCE(MAX(id), 0) + :margen FROM pedido_detalles " +
+                   "ON DUPLICATE KEY UPDATE siguiente_id = GREATEST(siguiente_id, VALUES(siguiente_id))",
+           nativeQuery = true)
+    int sincronizarGeneradorIds(@Param("margen") int margen);
 }
\ No newline at end of file
@@ -1,15 +1,23 @@
 package com.PetsSecrets.Veterinaria_Backend.repositories;
 
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoDetalleFila;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoFila;
 import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import com.PetsSecrets.Veterinaria_Backend.models.Pedido.EstadoPedido;
 
 @Repository
@@ -33,8 +41,50 @@ public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
     @Query("SELECT p FROM Pedido p WHERE p.fechaPedido BETWEEN :fechaInicio AND :fechaFin")
     List<Pedido> findByFechaPedidoBetween(@Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
     
-    @Query("SELECT p FROM Pedido p LEFT JOIN FETCH p.detalles pd LEFT JOIN FETCH pd.producto ORDER BY p.fechaPedido DESC")
-    List<Pedido> findAllWithDetalles();
+    // Fase 1 del listado paginado: una página de pedidos (sin detalles) con filtros opcionales
+    @Query(value = "SELECT new com.PetsSecrets.Veterinaria_Backend.dtos.PedidoFila(" +
+                   "p.id, p.codigo, u.id, u.nombreCompleto, u.email, p.fechaPedido, p.estado, " +
+                   "p.subtotal, p.envio, p.total, p.direccion, p.ciudad, p.codigoPostal, " +
+                   "p.telefonoContacto, p.metodoPago, p.fechaEntrega) " +
+                   "FROM Pedido p JOIN p.usuario u " +
+                   "WHERE (:estado IS NULL OR p.estado = :estado) " +
+                   "AND (:usuarioId IS NULL OR u.id = :usuarioId) " +
+                   "AND (:desde IS NULL OR p.fechaPedido >= :desde) " +
+                   "AND (:hasta IS NULL OR p.fechaPedido < :hasta) " +
+                   "ORDER BY p.fechaPedido DESC, p.id DESC",
+           countQuery = "SELECT COUNT(p) FROM Pedido p " +
+                   "WHERE (:estado IS NULL OR p.estado = :estado) " +
+                   "AND (:usuarioId IS NULL OR p.usuario.id = :usuarioId) " +
+                   "AND (:desde IS NULL OR p.fechaPedido >= :desde) " +
+                   "AND (:hasta IS NULL OR p.fechaPedido < :hasta)")
+    Page<PedidoFila> findPaginaPedidos(@Param("estado") EstadoPedido estado,
+                                       @Param("usuarioId") Integer usuarioId,
+                                       @Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta,
+                                       Pageable pageable);
+    
+    // Exportación: cursor de solo avance (fetch size MIN_VALUE = streaming fila a fila en MySQL)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.PetsSecrets.Veterinaria_Backend.dtos.PedidoFila(" +
+           "p.id, p.codigo, u.id, u.nombreCompleto, u.email, p.fechaPedido, p.estado, " +
+           "p.subtotal, p.envio, p.total, p.direccion, p.ciudad, p.codigoPostal, " +
+           "p.telefonoContacto, p.metodoPago, p.fechaEntrega) " +
+           "FROM Pedido p JOIN p.usuario u " +
+           "WHERE (:estado IS NULL OR p.estado = :estado) " +
+           "AND p.fechaPedido >= :desde AND p.fechaPedido < :hasta " +
+           "ORDER BY p.fechaPedido ASC, p.id ASC")
+    Stream<PedidoFila> streamPedidos(@Param("estado") EstadoPedido estado,
+                                     @Param("desde") LocalDateTime desde,
+                                     @Param("hasta") LocalDateTime hasta);
+    
+    // Fase 2: detalles de los pedidos de la página en una sola consulta
+    @Query("SELECT new com.PetsSecrets.Veterinaria_Backend.dtos.PedidoDetalleFila(" +
+           "pd.pedido.id, pd.id, pr.id, pr.nombre, pr.imagenUrl, pd.cantidad, pd.precioUnitario, pd.subtotal) " +
+           "FROM PedidoDetalle pd JOIN pd.producto pr WHERE pd.pedido.id IN :pedidoIds ORDER BY pd.id")
+    List<PedidoDetalleFila> findDetallesByPedidoIds(@Param("pedidoIds") List<Integer> pedidoIds);
     
     // Métodos para estadísticas
     Long countByEstado(EstadoPedido estado);
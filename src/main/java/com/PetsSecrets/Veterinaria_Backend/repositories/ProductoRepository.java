@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,6 +32,16 @@ public interface ProductoRepository extends JpaRepository<Producto, Integer> {
     @Query("SELECT p FROM Producto p WHERE p.stock > 0")
     List<Producto> findByStockAvailable();
     
+    // Carga del catálogo en memoria (categoría incluida, sin N+1)
+    @Query("SELECT p FROM Producto p JOIN FETCH p.categoria")
+    List<Producto> findAllConCategoria();
+    
+    @Query("SELECT p FROM Producto p JOIN FETCH p.categoria WHERE p.id IN :ids")
+    List<Producto> findAllByIdConCategoria(@Param("ids") Collection<Integer> ids);
+    
     // Métodos para estadísticas
     Long countByStockGreaterThan(Integer stock);
+    
+    @Query("SELECT COALESCE(SUM(p.stock * p.precio), 0.0) FROM Producto p")
+    Double sumValorInventario();
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.PetsSecrets.Veterinaria_Backend.repositories;
+
+import com.PetsSecrets.Veterinaria_Backend.models.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Bloquea la fila: dos rotaciones simultáneas del mismo token no pueden ganar ambas
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RefreshToken r WHERE r.id = :id")
+    Optional<RefreshToken> findParaRotar(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.familia = :familia")
+    int deleteByFamilia(@Param("familia") String familia);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.usuarioId = :usuarioId")
+    int deleteByUsuarioId(@Param("usuarioId") Integer usuarioId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiraEn < :ahora")
+    int deleteExpirados(@Param("ahora") LocalDateTime ahora);
+}
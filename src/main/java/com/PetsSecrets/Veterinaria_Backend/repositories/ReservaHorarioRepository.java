@@ -0,0 +1,42 @@
+package com.PetsSecrets.Veterinaria_Backend.repositories;
+
+import com.PetsSecrets.Veterinaria_Backend.models.ReservaHorario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaHorarioRepository extends JpaRepository<ReservaHorario, Integer> {
+
+    Optional<ReservaHorario> findByCitaId(Integer citaId);
+
+    boolean existsBySedeIdAndFechaAndHora(Integer sedeId, LocalDate fecha, LocalTime hora);
+
+    @Modifying
+    @Query("DELETE FROM ReservaHorario r WHERE r.citaId = :citaId")
+    int deleteByCitaId(@Param("citaId") Integer citaId);
+
+    // Completar reservas de citas activas existentes (ignora horarios ya duplicados)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO reservas_horario (sede_id, fecha, hora, cita_id) " +
+                   "SELECT c.sede_id, c.fecha, c.hora, c.id FROM citas c " +
+                   "WHERE c.fecha >= :desde AND c.estado <> 'cancelada' " +
+                   "ORDER BY c.fecha_creacion ASC, c.id ASC",
+           nativeQuery = true)
+    int completarReservasDesde(@Param("desde") LocalDate desde);
+
+    // Citas activas que siguen sin reserva tras completarReservasDesde: las que comparten
+    // horario con otra más antigua (duplicados anteriores a la tabla reservas_horario)
+    @Query(value = "SELECT c.id FROM citas c LEFT JOIN reservas_horario r ON r.cita_id = c.id " +
+                   "WHERE c.fecha >= :desde AND c.estado <> 'cancelada' AND r.id IS NULL " +
+                   "ORDER BY c.fecha ASC, c.hora ASC, c.id ASC",
+           nativeQuery = true)
+    List<Integer> findCitasActivasSinReservaDesde(@Param("desde") LocalDate desde);
+}
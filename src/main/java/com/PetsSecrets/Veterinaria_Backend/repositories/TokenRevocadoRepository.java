@@ -0,0 +1,29 @@
+package com.PetsSecrets.Veterinaria_Backend.repositories;
+
+import com.PetsSecrets.Veterinaria_Backend.models.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, String> {
+
+    // Revocados aún vigentes (carga inicial)
+    @Query("SELECT t FROM TokenRevocado t WHERE t.expiraEn > :ahora")
+    List<TokenRevocado> findVigentes(@Param("ahora") LocalDateTime ahora);
+
+    // Revocados desde la última sincronización (incluye los de otras instancias)
+    @Query("SELECT t FROM TokenRevocado t WHERE t.revocadoEn >= :desde AND t.expiraEn > :ahora")
+    List<TokenRevocado> findRevocadosDesde(@Param("desde") LocalDateTime desde, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn < :ahora")
+    int deleteExpirados(@Param("ahora") LocalDateTime ahora);
+}
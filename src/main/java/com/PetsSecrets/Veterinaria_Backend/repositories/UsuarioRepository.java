@@ -2,7 +2,12 @@ package com.PetsSecrets.Veterinaria_Backend.repositories;
 
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,6 +18,22 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
     boolean existsByEmail(String email);
     
     Optional<Usuario> findByEmailAndPasswordHash(String email, String passwordHash);
+
+    // Versión de credenciales por usuario (revocación de tokens, ver RevocacionTokens)
+    interface VersionCredenciales {
+        Integer getId();
+        Integer getVersion();
+    }
+
+    @Query("SELECT u.id AS id, u.versionCredenciales AS version FROM Usuario u")
+    List<VersionCredenciales> findVersionesCredenciales();
+
+    @Query("SELECT u.id AS id, u.versionCredenciales AS version FROM Usuario u " +
+           "WHERE u.credencialesCambiadasEn >= :desde")
+    List<VersionCredenciales> findVersionesCambiadasDesde(@Param("desde") LocalDateTime desde);
+
+    @Query("SELECT u.versionCredenciales FROM Usuario u WHERE u.id = :id")
+    Optional<Integer> findVersionCredenciales(@Param("id") Integer id);
     
     // Métodos para estadísticas
     Long countByFechaRegistroBetween(java.time.LocalDateTime fechaInicio, java.time.LocalDateTime fechaFin);
@@ -3,6 +3,7 @@ package com.PetsSecrets.Veterinaria_Backend.services;
 import com.PetsSecrets.Veterinaria_Backend.dtos.AdopcionRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.AdopcionResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.AdopcionUpdateRequest;
+import com.PetsSecrets.Veterinaria_Backend.events.AdopcionCambiadaEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
 import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
@@ -10,11 +11,13 @@ import com.PetsSecrets.Veterinaria_Backend.repositories.AdopcionRepository;
 import com.PetsSecrets.Veterinaria_Backend.repositories.MascotaRepository;
 import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +29,8 @@ public class AdopcionService {
     private final MascotaRepository mascotaRepository;
     private final UsuarioRepository usuarioRepository;
     private final MascotaService mascotaService;
+    private final EstadisticasEstadoService estadisticasEstadoService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Crear nueva solicitud de adopción
     public AdopcionResponse crearSolicitudAdopcion(AdopcionRequest request, Integer usuarioId) {
@@ -68,6 +73,9 @@ public class AdopcionService {
         mascotaService.cambiarEstadoAdopcion(request.getMascotaId(), Mascota.EstadoAdopcion.en_proceso);
 
         Adopcion adopcionGuardada = adopcionRepository.save(adopcion);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.ADOPCIONES);
+        eventPublisher.publishEvent(new AdopcionCambiadaEvent(
+                adopcionGuardada.getId(), null, adopcionGuardada.getEstado()));
         return AdopcionResponse.from(adopcionGuardada);
     }
 
@@ -111,6 +119,7 @@ public class AdopcionService {
         Adopcion adopcion = adopcionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Solicitud de adopción no encontrada"));
 
+        Adopcion.EstadoAdopcion estadoAnterior = adopcion.getEstado();
         adopcion.setEstado(request.getEstado());
 
         // Si se aprueba, establecer fecha de aprobación
@@ -149,6 +158,9 @@ public class AdopcionService {
         }
 
         Adopcion adopcionActualizada = adopcionRepository.save(adopcion);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.ADOPCIONES);
+        eventPublisher.publishEvent(new AdopcionCambiadaEvent(
+                adopcionActualizada.getId(), estadoAnterior, adopcionActualizada.getEstado()));
         return AdopcionResponse.from(adopcionActualizada);
     }
 
@@ -170,6 +182,9 @@ public class AdopcionService {
         // Cambiar estado a rechazada (cancelada por el usuario)
         adopcion.setEstado(Adopcion.EstadoAdopcion.rechazada);
         adopcionRepository.save(adopcion);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.ADOPCIONES);
+        eventPublisher.publishEvent(new AdopcionCambiadaEvent(
+                adopcion.getId(), Adopcion.EstadoAdopcion.pendiente, Adopcion.EstadoAdopcion.rechazada));
 
         // Verificar si hay otras solicitudes activas para la mascota
         boolean hayOtrasSolicitudes = adopcionRepository
@@ -199,10 +214,11 @@ public class AdopcionService {
     // Obtener estadísticas de adopciones
     @Transactional(readOnly = true)
     public AdopcionEstadisticas obtenerEstadisticas() {
-        Long pendientes = adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.pendiente);
-        Long aprobadas = adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.aprobada);
-        Long completadas = adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.completada);
-        Long rechazadas = adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.rechazada);
+        Map<Adopcion.EstadoAdopcion, Long> conteos = estadisticasEstadoService.contarAdopcionesPorEstado();
+        Long pendientes = conteos.get(Adopcion.EstadoAdopcion.pendiente);
+        Long aprobadas = conteos.get(Adopcion.EstadoAdopcion.aprobada);
+        Long completadas = conteos.get(Adopcion.EstadoAdopcion.completada);
+        Long rechazadas = conteos.get(Adopcion.EstadoAdopcion.rechazada);
 
         return AdopcionEstadisticas.builder()
                 .pendientes(pendientes)
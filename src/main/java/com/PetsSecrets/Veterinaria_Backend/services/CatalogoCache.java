@@ -0,0 +1,360 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.CategoriaCambiadaEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.ProductoCambiadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.models.Categoria;
+import com.PetsSecrets.Veterinaria_Backend.models.Producto;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CategoriaRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.ProductoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Caché de lectura del catálogo (productos y categorías).
+// - Las lecturas usan una instantánea inmutable publicada en un campo volatile: nunca se bloquean.
+// - Los eventos después del commit solo marcan los productos cambiados; una tarea programada los
+//   relee juntos cada app.catalogo.refresco-ms y publica una instantánea nueva.
+// - Los lectores reciben copias: nadie fuera de la caché puede modificar la instantánea.
+// - Recarga completa periódica para cambios hechos fuera de este nodo.
+// - Mantiene sincronizado el índice de búsqueda de productos.
+@Component
+@RequiredArgsConstructor
+public class CatalogoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoCache.class);
+
+    private final ProductoRepository productoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final MeterRegistry meterRegistry;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final PlatformTransactionManager transactionManager;
+
+    // null hasta la primera carga: mientras tanto las lecturas van a la base de datos
+    private volatile Catalogo catalogo;
+
+    // Serializa la construcción de instantáneas (las lecturas no la usan). Se consulta la base de
+    // datos con el cerrojo tomado: ReentrantLock y no synchronized, que en Java 21 fija el hilo
+    // virtual a su portador mientras espera la consulta. Solo lo toman las tareas programadas.
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    private static final int MAX_REINTENTOS = 5;
+
+    // Productos cambiados desde el último refresco
+    private final Set<Integer> pendientes = ConcurrentHashMap.newKeySet();
+
+    // Recarga completa pendiente (cambio de categoría o reintentos agotados)
+    private volatile boolean recargaPendiente;
+
+    // Solo desde refrescar, con el cerrojo tomado
+    private int fallosConsecutivos;
+
+    private TransactionTemplate lectura;
+
+    private Counter aciertos;
+    private Counter fallos;
+    private Counter recargas;
+
+    @PostConstruct
+    void registrarMetricas() {
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        aciertos = Counter.builder("catalogo.cache.solicitudes").tag("resultado", "hit")
+                .description("Lecturas del catálogo servidas desde memoria").register(meterRegistry);
+        fallos = Counter.builder("catalogo.cache.solicitudes").tag("resultado", "miss")
+                .description("Lecturas del catálogo que fueron a la base de datos").register(meterRegistry);
+        recargas = Counter.builder("catalogo.cache.recargas")
+                .description("Recargas completas del catálogo").register(meterRegistry);
+        Gauge.builder("catalogo.cache.productos", this, cache -> {
+                    Catalogo actual = cache.catalogo;
+                    return actual != null ? actual.productos().size() : 0;
+                })
+                .description("Productos en la instantánea actual").register(meterRegistry);
+        Gauge.builder("catalogo.cache.pendientes", pendientes, Set::size)
+                .description("Productos cambiados que aún no están en la instantánea").register(meterRegistry);
+    }
+
+    // ---- Lecturas ----
+
+    public Optional<List<ProductoResponse>> productos() {
+        Catalogo actual = registrar(catalogo);
+        return actual != null ? Optional.of(copias(actual.todos())) : Optional.empty();
+    }
+
+    public Optional<List<ProductoResponse>> productosActivos() {
+        Catalogo actual = registrar(catalogo);
+        return actual != null ? Optional.of(copias(actual.activos())) : Optional.empty();
+    }
+
+    public Optional<List<ProductoResponse>> productosActivosPorCategoria(Integer categoriaId) {
+        Catalogo actual = registrar(catalogo);
+        return actual != null
+                ? Optional.of(copias(actual.activosPorCategoria().getOrDefault(categoriaId, List.of())))
+                : Optional.empty();
+    }
+
+    public Optional<ProductoResponse> producto(Integer id) {
+        Catalogo actual = catalogo;
+        return Optional.ofNullable(registrar(actual != null ? actual.productos().get(id) : null)).map(CatalogoCache::copia);
+    }
+
+    public Optional<List<CategoriaResponse>> categorias() {
+        Catalogo actual = registrar(catalogo);
+        return actual != null
+                ? Optional.of(actual.listaCategorias().stream().map(CatalogoCache::copia).toList())
+                : Optional.empty();
+    }
+
+    public Optional<CategoriaResponse> categoria(Integer id) {
+        Catalogo actual = catalogo;
+        return Optional.ofNullable(registrar(actual != null ? actual.categorias().get(id) : null)).map(CatalogoCache::copia);
+    }
+
+    public Optional<FacetasCatalogo> facetas() {
+        Catalogo actual = registrar(catalogo);
+        return actual != null ? Optional.of(actual.facetas()) : Optional.empty();
+    }
+
+    // ---- Actualización ----
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.catalogo.recarga-ms:600000}",
+               initialDelayString = "${app.catalogo.recarga-ms:600000}")
+    public void recargar() {
+        escritura.lock();
+        try {
+            Map<Integer, CategoriaResponse> categorias = new HashMap<>();
+            List<ProductoResponse> productos = new ArrayList<>();
+            lectura.executeWithoutResult(estado -> {
+                for (Categoria categoria : categoriaRepository.findAll()) {
+                    categorias.put(categoria.getId(), convertir(categoria));
+                }
+                for (Producto producto : productoRepository.findAllConCategoria()) {
+                    productos.add(convertir(producto, categorias.get(producto.getCategoria().getId())));
+                }
+            });
+            catalogo = Catalogo.construir(categorias, productos);
+            indiceBusqueda.reconstruir(productos);
+            recargas.increment();
+        } finally {
+            escritura.unlock();
+        }
+        logger.debug("Catálogo recargado: {} productos, {} categorías",
+                catalogo.productos().size(), catalogo.categorias().size());
+    }
+
+    // Solo marca el producto: el hilo de la solicitud no consulta la base de datos ni espera el
+    // cerrojo. Después del commit (un rollback no marca nada); sin transacción, al momento.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent event) {
+        pendientes.add(event.productoId());
+    }
+
+    // Una categoría forma parte de cada ProductoResponse: se recarga todo en el siguiente ciclo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriaCambiada(CategoriaCambiadaEvent event) {
+        recargaPendiente = true;
+    }
+
+    // Aplica los cambios marcados fuera de las solicitudes: una consulta para todos los productos
+    // cambiados desde el ciclo anterior y una sola instantánea nueva, aunque haya muchos checkouts.
+    // Si la base de datos falla, los ids siguen pendientes para el ciclo siguiente; después de
+    // MAX_REINTENTOS fallos seguidos se pasa a una recarga completa, que se reintenta en cada ciclo.
+    @Scheduled(fixedDelayString = "${app.catalogo.refresco-ms:1000}",
+               initialDelayString = "${app.catalogo.refresco-ms:1000}")
+    public void refrescar() {
+        if (catalogo == null) {
+            // La carga inicial incluye estos cambios
+            return;
+        }
+        if (recargaPendiente) {
+            recargaPendiente = false;
+            try {
+                recargar();
+            } catch (RuntimeException e) {
+                recargaPendiente = true;
+                logger.warn("No se pudo recargar la caché del catálogo: {}", e.getMessage());
+            }
+            return;
+        }
+
+        Set<Integer> productoIds = new HashSet<>();
+        for (Integer productoId : pendientes) {
+            if (pendientes.remove(productoId)) {
+                productoIds.add(productoId);
+            }
+        }
+        if (productoIds.isEmpty()) {
+            return;
+        }
+
+        escritura.lock();
+        try {
+            aplicarCambios(productoIds);
+            fallosConsecutivos = 0;
+        } catch (RuntimeException e) {
+            fallosConsecutivos++;
+            if (fallosConsecutivos >= MAX_REINTENTOS) {
+                fallosConsecutivos = 0;
+                recargaPendiente = true;
+                logger.error("No se pudieron actualizar los productos {} en la caché del catálogo tras {} intentos: {}",
+                        productoIds, MAX_REINTENTOS, e.getMessage());
+            } else {
+                pendientes.addAll(productoIds);
+                logger.warn("No se pudieron actualizar los productos {} en la caché del catálogo (intento {}): {}",
+                        productoIds, fallosConsecutivos, e.getMessage());
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    // Llamar con el cerrojo tomado
+    private void aplicarCambios(Set<Integer> productoIds) {
+        Catalogo actual = catalogo;
+        List<Producto> encontrados = lectura.execute(
+                estado -> productoRepository.findAllByIdConCategoria(productoIds));
+
+        Map<Integer, ProductoResponse> productos = new TreeMap<>(actual.productos());
+        List<ProductoResponse> actualizados = new ArrayList<>();
+        for (Producto producto : encontrados) {
+            Categoria categoria = producto.getCategoria();
+            CategoriaResponse categoriaResponse = actual.categorias().get(categoria.getId());
+            ProductoResponse productoResponse = convertir(producto,
+                    categoriaResponse != null ? categoriaResponse : convertir(categoria));
+            productos.put(producto.getId(), productoResponse);
+            actualizados.add(productoResponse);
+        }
+        // Los que ya no están en la base de datos se borraron
+        Set<Integer> eliminados = new HashSet<>(productoIds);
+        actualizados.forEach(producto -> eliminados.remove(producto.getId()));
+        eliminados.forEach(productos::remove);
+
+        indiceBusqueda.aplicar(actualizados, eliminados);
+        catalogo = Catalogo.construir(actual.categorias(), productos.values());
+    }
+
+    // ---- Conversión compartida con ProductoService y CategoriaService ----
+
+    static CategoriaResponse convertir(Categoria categoria) {
+        return CategoriaResponse.builder()
+                .id(categoria.getId())
+                .nombre(categoria.getNombre())
+                .descripcion(categoria.getDescripcion())
+                .build();
+    }
+
+    static ProductoResponse convertir(Producto producto, CategoriaResponse categoria) {
+        return ProductoResponse.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .precio(producto.getPrecio())
+                .stock(producto.getStock())
+                .imagenUrl(producto.getImagenUrl())
+                .estado(producto.getEstado().toString())
+                .fechaCreacion(producto.getFechaCreacion())
+                .categoria(categoria)
+                .build();
+    }
+
+    // ProductoResponse y CategoriaResponse son mutables (@Data): la instantánea solo sale copiada.
+    // También lo usan FacetasCatalogo e IndiceBusquedaProductos para las páginas que devuelven.
+    static ProductoResponse copia(ProductoResponse producto) {
+        return ProductoResponse.builder()
+                .id(producto.getId())
+                .nombre(producto.getNombre())
+                .descripcion(producto.getDescripcion())
+                .precio(producto.getPrecio())
+                .stock(producto.getStock())
+                .imagenUrl(producto.getImagenUrl())
+                .estado(producto.getEstado())
+                .fechaCreacion(producto.getFechaCreacion())
+                .categoria(producto.getCategoria() != null ? copia(producto.getCategoria()) : null)
+                .build();
+    }
+
+    static CategoriaResponse copia(CategoriaResponse categoria) {
+        return new CategoriaResponse(categoria.getId(), categoria.getNombre(), categoria.getDescripcion());
+    }
+
+    private static List<ProductoResponse> copias(List<ProductoResponse> productos) {
+        List<ProductoResponse> resultado = new ArrayList<>(productos.size());
+        for (ProductoResponse producto : productos) {
+            resultado.add(copia(producto));
+        }
+        return resultado;
+    }
+
+    private <T> T registrar(T resultado) {
+        if (resultado != null) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+        }
+        return resultado;
+    }
+
+    private record Catalogo(
+            Map<Integer, ProductoResponse> productos,
+            List<ProductoResponse> todos,
+            List<ProductoResponse> activos,
+            Map<Integer, List<ProductoResponse>> activosPorCategoria,
+            Map<Integer, CategoriaResponse> categorias,
+            List<CategoriaResponse> listaCategorias,
+            FacetasCatalogo facetas) {
+
+        static Catalogo construir(Map<Integer, CategoriaResponse> categorias,
+                                  Collection<ProductoResponse> productos) {
+            Map<Integer, ProductoResponse> porId = new TreeMap<>();
+            for (ProductoResponse producto : productos) {
+                porId.put(producto.getId(), producto);
+            }
+
+            List<ProductoResponse> activos = new ArrayList<>();
+            Map<Integer, List<ProductoResponse>> porCategoria = new HashMap<>();
+            for (ProductoResponse producto : porId.values()) {
+                if (Producto.EstadoProducto.activo.name().equals(producto.getEstado())) {
+                    activos.add(producto);
+                    porCategoria.computeIfAbsent(producto.getCategoria().getId(), id -> new ArrayList<>())
+                            .add(producto);
+                }
+            }
+            porCategoria.replaceAll((id, lista) -> List.copyOf(lista));
+
+            return new Catalogo(
+                    Map.copyOf(porId),
+                    List.copyOf(porId.values()),
+                    List.copyOf(activos),
+                    Map.copyOf(porCategoria),
+                    Map.copyOf(categorias),
+                    List.copyOf(new TreeMap<>(categorias).values()),
+                    FacetasCatalogo.construir(porId.values()));
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.PetsSecrets.Veterinaria_Backend.services;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.CategoriaCambiadaEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.Categoria;
 import com.PetsSecrets.Veterinaria_Backend.repositories.CategoriaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,17 +19,21 @@ import java.util.stream.Collectors;
 public class CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
+    private final CatalogoCache catalogoCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<CategoriaResponse> obtenerTodasLasCategorias() {
-        return categoriaRepository.findAll().stream()
+        return catalogoCache.categorias().orElseGet(() -> categoriaRepository.findAll().stream()
                 .map(this::convertirACategoriaResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public CategoriaResponse obtenerCategoriaPorId(Integer id) {
-        Categoria categoria = categoriaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Categoría no encontrada con ID: " + id));
-        return convertirACategoriaResponse(categoria);
+        return catalogoCache.categoria(id).orElseGet(() -> {
+            Categoria categoria = categoriaRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Categoría no encontrada con ID: " + id));
+            return convertirACategoriaResponse(categoria);
+        });
     }
 
     public CategoriaResponse crearCategoria(CategoriaRequest request) {
@@ -41,6 +47,7 @@ public class CategoriaService {
                 .build();
 
         Categoria categoriaGuardada = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CategoriaCambiadaEvent(categoriaGuardada.getId()));
         return convertirACategoriaResponse(categoriaGuardada);
     }
 
@@ -58,6 +65,7 @@ public class CategoriaService {
         categoria.setDescripcion(request.getDescripcion());
 
         Categoria categoriaActualizada = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CategoriaCambiadaEvent(id));
         return convertirACategoriaResponse(categoriaActualizada);
     }
 
@@ -71,6 +79,7 @@ public class CategoriaService {
         }
         
         categoriaRepository.delete(categoria);
+        eventPublisher.publishEvent(new CategoriaCambiadaEvent(id));
     }
 
     public List<CategoriaResponse> buscarCategoriasPorNombre(String nombre) {
@@ -86,10 +95,6 @@ public class CategoriaService {
     }
 
     private CategoriaResponse convertirACategoriaResponse(Categoria categoria) {
-        return CategoriaResponse.builder()
-                .id(categoria.getId())
-                .nombre(categoria.getNombre())
-                .descripcion(categoria.getDescripcion())
-                .build();
+        return CatalogoCache.convertir(categoria);
     }
 }
\ No newline at end of file
@@ -1,16 +1,22 @@
 package com.PetsSecrets.Veterinaria_Backend.services;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.*;
+import com.PetsSecrets.Veterinaria_Backend.events.CitaCambiadaEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.*;
 import com.PetsSecrets.Veterinaria_Backend.repositories.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +29,12 @@ public class CitaService {
     private final MascotaRepository mascotaRepository;
     private final ServicioRepository servicioRepository;
     private final SedeRepository sedeRepository;
+    private final DisponibilidadService disponibilidadService;
+    private final ReservaHorarioService reservaHorarioService;
+    private final EstadisticasEstadoService estadisticasEstadoService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int TAMANO_PAGINA_MAXIMO = 200;
 
     // Crear nueva cita
     public CitaResponse crearCita(CitaRequest request, Integer usuarioId) {
@@ -71,6 +83,10 @@ public class CitaService {
                 .build();
 
         Cita citaGuardada = citaRepository.save(cita);
+        reservaHorarioService.sincronizarReserva(citaGuardada);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.CITAS);
+        disponibilidadService.refrescarDespuesDeCommit(sede.getId(), citaGuardada.getFecha());
+        eventPublisher.publishEvent(new CitaCambiadaEvent(citaGuardada.getId(), null, citaGuardada.getFecha()));
         return CitaResponse.from(citaGuardada);
     }
 
@@ -141,6 +157,8 @@ public class CitaService {
         Cita cita = citaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Cita no encontrada"));
 
+        LocalDate fechaAnterior = cita.getFecha();
+        LocalTime horaAnterior = cita.getHora();
         cita.setEstado(request.getEstado());
         
         if (request.getFecha() != null) {
@@ -156,6 +174,11 @@ public class CitaService {
         }
 
         Cita citaActualizada = citaRepository.save(cita);
+        boolean mismoHorario = fechaAnterior.equals(cita.getFecha()) && horaAnterior.equals(cita.getHora());
+        reservaHorarioService.sincronizarReserva(citaActualizada, mismoHorario);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.CITAS);
+        disponibilidadService.refrescarDespuesDeCommit(cita.getSede().getId(), fechaAnterior, cita.getFecha());
+        eventPublisher.publishEvent(new CitaCambiadaEvent(cita.getId(), fechaAnterior, cita.getFecha()));
         return CitaResponse.from(citaActualizada);
     }
 
@@ -190,11 +213,16 @@ public class CitaService {
             throw new RuntimeException("No se pueden agendar citas en el pasado");
         }
 
+        LocalDate fechaAnterior = cita.getFecha();
         cita.setFecha(nuevaFecha);
         cita.setHora(nuevaHora);
         cita.setEstado(Cita.EstadoCita.pendiente); // Resetear a pendiente
 
         Cita citaActualizada = citaRepository.save(cita);
+        reservaHorarioService.sincronizarReserva(citaActualizada);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.CITAS);
+        disponibilidadService.refrescarDespuesDeCommit(cita.getSede().getId(), fechaAnterior, nuevaFecha);
+        eventPublisher.publishEvent(new CitaCambiadaEvent(cita.getId(), fechaAnterior, nuevaFecha));
         return CitaResponse.from(citaActualizada);
     }
 
@@ -214,9 +242,12 @@ public class CitaService {
 
         cita.setEstado(Cita.EstadoCita.cancelada);
         citaRepository.save(cita);
+        reservaHorarioService.sincronizarReserva(cita);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.CITAS);
+        disponibilidadService.refrescarDespuesDeCommit(cita.getSede().getId(), cita.getFecha());
     }
 
-    // Buscar citas con filtros
+    // Buscar citas con filtros (filtrado y orden resueltos en la base de datos)
     @Transactional(readOnly = true)
     public List<CitaResponse> buscarCitasConFiltros(
             Cita.EstadoCita estado,
@@ -225,42 +256,101 @@ public class CitaService {
             Integer sedeId,
             LocalDate fechaInicio,
             LocalDate fechaFin) {
-        
-        List<Cita> citas = citaRepository.findAllOrderByFechaAndHora();
-        
-        return citas.stream()
-                .filter(cita -> estado == null || cita.getEstado().equals(estado))
-                .filter(cita -> usuarioId == null || cita.getUsuario().getId().equals(usuarioId))
-                .filter(cita -> mascotaId == null || cita.getMascota().getId().equals(mascotaId))
-                .filter(cita -> sedeId == null || cita.getSede().getId().equals(sedeId))
-                .filter(cita -> fechaInicio == null || !cita.getFecha().isBefore(fechaInicio))
-                .filter(cita -> fechaFin == null || !cita.getFecha().isAfter(fechaFin))
+
+        Specification<Cita> spec = CitaSpecifications.conFiltros(estado, usuarioId, mascotaId, sedeId, fechaInicio, fechaFin)
+                .and(CitaSpecifications.conRelaciones());
+
+        return citaRepository.findAll(spec, CitaSpecifications.ORDEN_FECHA_HORA_ID)
+                .stream()
                 .map(CitaResponse::from)
                 .collect(Collectors.toList());
     }
 
+    // Buscar citas con filtros usando paginación por cursor (fecha, hora, id)
+    @Transactional(readOnly = true)
+    public CitaPaginaResponse buscarCitasPaginadas(
+            Cita.EstadoCita estado,
+            Integer usuarioId,
+            Integer mascotaId,
+            Integer sedeId,
+            LocalDate fechaInicio,
+            LocalDate fechaFin,
+            String cursor,
+            int tamano) {
+
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+
+        Specification<Cita> spec = CitaSpecifications.conFiltros(estado, usuarioId, mascotaId, sedeId, fechaInicio, fechaFin)
+                .and(CitaSpecifications.conRelaciones());
+
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            spec = spec.and(CitaSpecifications.despuesDe(
+                    LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Integer.valueOf(partes[2])));
+        }
+
+        // Se pide un registro extra para saber si existe una página siguiente
+        List<Cita> citas = citaRepository.findBy(spec, q -> q
+                .sortBy(CitaSpecifications.ORDEN_FECHA_HORA_ID)
+                .limit(limite + 1)
+                .all());
+
+        boolean hayMas = citas.size() > limite;
+        if (hayMas) {
+            citas = citas.subList(0, limite);
+        }
+
+        String siguienteCursor = hayMas ? codificarCursor(citas.get(citas.size() - 1)) : null;
+
+        return CitaPaginaResponse.builder()
+                .citas(citas.stream().map(CitaResponse::from).collect(Collectors.toList()))
+                .siguienteCursor(siguienteCursor)
+                .hayMas(hayMas)
+                .build();
+    }
+
     // Obtener estadísticas de citas
     @Transactional(readOnly = true)
     public CitaEstadisticas obtenerEstadisticas() {
-        Long total = citaRepository.count();
-        Long pendientes = citaRepository.countByEstado(Cita.EstadoCita.pendiente);
-        Long confirmadas = citaRepository.countByEstado(Cita.EstadoCita.confirmada);
-        Long completadas = citaRepository.countByEstado(Cita.EstadoCita.completada);
-        Long canceladas = citaRepository.countByEstado(Cita.EstadoCita.cancelada);
+        Map<Cita.EstadoCita, Long> conteos = estadisticasEstadoService.contarCitasPorEstado();
         
         return CitaEstadisticas.builder()
-                .totalCitas(total)
-                .citasPendientes(pendientes)
-                .citasConfirmadas(confirmadas)
-                .citasCompletadas(completadas)
-                .citasCanceladas(canceladas)
+                .totalCitas(conteos.values().stream().mapToLong(Long::longValue).sum())
+                .citasPendientes(conteos.get(Cita.EstadoCita.pendiente))
+                .citasConfirmadas(conteos.get(Cita.EstadoCita.confirmada))
+                .citasCompletadas(conteos.get(Cita.EstadoCita.completada))
+                .citasCanceladas(conteos.get(Cita.EstadoCita.cancelada))
                 .build();
     }
 
     // Verificar disponibilidad de horario
     @Transactional(readOnly = true)
     public boolean verificarDisponibilidad(LocalDate fecha, LocalTime hora, Integer sedeId) {
-        return citaRepository.findCitaEnHorario(fecha, hora, sedeId).isEmpty();
+        return disponibilidadService.estaDisponible(sedeId, fecha, hora);
+    }
+
+    // Calendario de disponibilidad de una sede para un rango de fechas
+    @Transactional(readOnly = true)
+    public DisponibilidadCalendarioResponse obtenerCalendarioDisponibilidad(Integer sedeId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return disponibilidadService.obtenerCalendario(sedeId, fechaInicio, fechaFin);
+    }
+
+    private String codificarCursor(Cita cita) {
+        String valor = cita.getFecha() + "|" + cita.getHora() + "|" + cita.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor de paginación inválido");
+        }
     }
 
     // Clase interna para estadísticas
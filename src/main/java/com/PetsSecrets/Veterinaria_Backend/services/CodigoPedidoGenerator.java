@@ -0,0 +1,113 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Generador de códigos de pedido estilo Snowflake, sin consultar la base de datos.
+// 41 bits de milisegundos desde EPOCA + 10 bits de nodo + 12 bits de secuencia,
+// renderizados en base32 de Crockford (13 caracteres): "PED-" + 13 = 17 caracteres.
+// Cada nodo genera hasta 4096 códigos por milisegundo; la restricción UNIQUE de
+// pedidos.codigo queda como única red de seguridad si dos nodos comparten id.
+// El id de nodo nunca es aleatorio: app.pedidos.nodo-id (NODO_ID) o, si no está, el ordinal
+// del pod de un StatefulSet al final de HOSTNAME ("veterinaria-3" -> 3). Sin ninguno de los
+// dos la aplicación no arranca.
+@Component
+public class CodigoPedidoGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodigoPedidoGenerator.class);
+
+    private static final String PREFIJO = "PED-";
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LONGITUD = 13;
+
+    // 2025-01-01T00:00:00Z
+    private static final long EPOCA = 1735689600000L;
+
+    private static final int BITS_NODO = 10;
+    private static final int BITS_SECUENCIA = 12;
+    private static final long MAX_NODO = (1L << BITS_NODO) - 1;
+    private static final long MASCARA_SECUENCIA = (1L << BITS_SECUENCIA) - 1;
+
+    // Estado atómico: (milisegundo << BITS_SECUENCIA) | secuencia
+    private final AtomicLong ultimo = new AtomicLong();
+
+    private final long nodoId;
+
+    public CodigoPedidoGenerator(@Value("${app.pedidos.nodo-id:}") String nodoId) {
+        this.nodoId = resolverNodo(nodoId, System.getenv("HOSTNAME"));
+        logger.info("Códigos de pedido con nodo {}", this.nodoId);
+    }
+
+    static long resolverNodo(String configurado, String host) {
+        String origen;
+        String valor;
+        if (configurado != null && !configurado.isBlank()) {
+            origen = "app.pedidos.nodo-id";
+            valor = configurado.trim();
+        } else if (host != null && host.matches(".+-\\d+")) {
+            origen = "el ordinal de HOSTNAME (" + host + ")";
+            valor = host.substring(host.lastIndexOf('-') + 1);
+        } else {
+            throw new IllegalStateException("Falta el id de nodo de los códigos de pedido: configure NODO_ID "
+                    + "(app.pedidos.nodo-id, 0-" + MAX_NODO + ", distinto en cada instancia) "
+                    + "o despliegue como StatefulSet para usar el ordinal del pod");
+        }
+        long nodo;
+        try {
+            nodo = Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Id de nodo inválido en " + origen + ": " + valor);
+        }
+        if (nodo < 0 || nodo > MAX_NODO) {
+            throw new IllegalStateException("El id de nodo de " + origen + " debe estar entre 0 y " + MAX_NODO
+                    + ": " + nodo);
+        }
+        return nodo;
+    }
+
+    public String generar() {
+        return PREFIJO + base32(siguienteId());
+    }
+
+    long siguienteId() {
+        while (true) {
+            long anterior = ultimo.get();
+            long milisAnterior = anterior >>> BITS_SECUENCIA;
+            // Si el reloj retrocede se sigue usando el último milisegundo emitido
+            long milis = Math.max(System.currentTimeMillis() - EPOCA, milisAnterior);
+
+            long siguiente;
+            if (milis == milisAnterior) {
+                long secuencia = (anterior & MASCARA_SECUENCIA) + 1;
+                if (secuencia > MASCARA_SECUENCIA) {
+                    // Secuencia agotada en este milisegundo: esperar al siguiente
+                    LockSupport.parkNanos(100_000);
+                    continue;
+                }
+                siguiente = anterior + 1;
+            } else {
+                siguiente = milis << BITS_SECUENCIA;
+            }
+
+            if (ultimo.compareAndSet(anterior, siguiente)) {
+                long milisId = siguiente >>> BITS_SECUENCIA;
+                long secuencia = siguiente & MASCARA_SECUENCIA;
+                return (milisId << (BITS_NODO + BITS_SECUENCIA)) | (nodoId << BITS_SECUENCIA) | secuencia;
+            }
+        }
+    }
+
+    private static String base32(long valor) {
+        char[] salida = new char[LONGITUD];
+        for (int i = LONGITUD - 1; i >= 0; i--) {
+            salida[i] = CROCKFORD[(int) (valor & 31)];
+            valor >>>= 5;
+        }
+        return new String(salida);
+    }
+}
@@ -0,0 +1,168 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.EstadisticasResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.*;
+import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
+import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
+import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
+import com.PetsSecrets.Veterinaria_Backend.repositories.*;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Contadores materializados del dashboard.
+// Se actualizan con deltas a partir de los eventos de dominio (después del commit)
+// y se reconcilian periódicamente contra la base de datos para corregir desvíos
+// (incluido el cambio de día, que mueve las ventanas de "hoy", "semana" y "mes").
+@Service
+@RequiredArgsConstructor
+public class ContadoresDashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadoresDashboardService.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final MascotaRepository mascotaRepository;
+    private final AdopcionRepository adopcionRepository;
+    private final CitaRepository citaRepository;
+    private final PedidoRepository pedidoRepository;
+    private final ProductoRepository productoRepository;
+
+    private final AtomicLong usuariosRegistrados = new AtomicLong();
+    private final AtomicLong mascotasAdopcion = new AtomicLong();
+    private final AtomicLong pedidosPendientes = new AtomicLong();
+    private final AtomicLong pedidosCompletados = new AtomicLong();
+    private final AtomicLong citasHoy = new AtomicLong();
+    private final AtomicLong citasSemana = new AtomicLong();
+    private final AtomicLong citasMes = new AtomicLong();
+    private final AtomicLong productosStock = new AtomicLong();
+    private final AtomicLong productosVendidos = new AtomicLong();
+    private final AtomicLong totalAdopciones = new AtomicLong();
+    private final AtomicReference<BigDecimal> valorInventario = new AtomicReference<>(BigDecimal.ZERO);
+    private final AtomicReference<BigDecimal> ingresosTotales = new AtomicReference<>(BigDecimal.ZERO);
+
+    // Día al que corresponden citasHoy / citasSemana / citasMes
+    private volatile LocalDate fechaReferencia = LocalDate.now();
+
+    // Lectura O(1) de todos los contadores
+    public EstadisticasResponse obtenerEstadisticas() {
+        return EstadisticasResponse.builder()
+                .usuariosRegistrados(usuariosRegistrados.get())
+                .mascotasAdopcion(mascotasAdopcion.get())
+                .pedidosPendientes(pedidosPendientes.get())
+                .citasHoy(citasHoy.get())
+                .productosStock(productosStock.get())
+                .valorInventario(valorInventario.get().doubleValue())
+                .totalAdopciones(totalAdopciones.get())
+                .citasSemana(citasSemana.get())
+                .citasMes(citasMes.get())
+                .pedidosCompletados(pedidosCompletados.get())
+                .productosVendidos(productosVendidos.get())
+                .ingresosTotales(ingresosTotales.get().doubleValue())
+                .build();
+    }
+
+    // Recalcular todos los contadores desde la base de datos
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.dashboard.reconciliacion-ms:300000}",
+               initialDelayString = "${app.dashboard.reconciliacion-ms:300000}")
+    @Scheduled(cron = "0 0 0 * * *")
+    public void reconciliar() {
+        LocalDate hoy = LocalDate.now();
+
+        usuariosRegistrados.set(usuarioRepository.count());
+        mascotasAdopcion.set(mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.disponible));
+        pedidosPendientes.set(pedidoRepository.countByEstado(Pedido.EstadoPedido.pendiente));
+        pedidosCompletados.set(pedidoRepository.countByEstado(Pedido.EstadoPedido.entregado));
+        citasHoy.set(citaRepository.countByFecha(hoy));
+        citasSemana.set(citaRepository.countCitasUltimaSemana(hoy.minusWeeks(1)));
+        citasMes.set(citaRepository.countCitasUltimoMes(hoy.minusMonths(1)));
+        productosStock.set(productoRepository.countByStockGreaterThan(0));
+        productosVendidos.set(pedidoRepository.countProductosVendidos(Pedido.EstadoPedido.entregado));
+        totalAdopciones.set(adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.aprobada));
+        valorInventario.set(BigDecimal.valueOf(productoRepository.sumValorInventario()));
+        ingresosTotales.set(BigDecimal.valueOf(pedidoRepository.sumIngresosByEstado(Pedido.EstadoPedido.entregado)));
+        fechaReferencia = hoy;
+
+        logger.debug("Contadores del dashboard reconciliados");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioRegistrado(UsuarioRegistradoEvent event) {
+        usuariosRegistrados.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioEliminado(UsuarioEliminadoEvent event) {
+        usuariosRegistrados.decrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMascotaCambiada(MascotaCambiadaEvent event) {
+        boolean antesDisponible = event.activaAnterior() && event.estadoAnterior() == Mascota.EstadoAdopcion.disponible;
+        boolean ahoraDisponible = event.activaNueva() && event.estadoNuevo() == Mascota.EstadoAdopcion.disponible;
+        mascotasAdopcion.addAndGet(delta(antesDisponible, ahoraDisponible));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAdopcionCambiada(AdopcionCambiadaEvent event) {
+        totalAdopciones.addAndGet(delta(
+                event.estadoAnterior() == Adopcion.EstadoAdopcion.aprobada,
+                event.estadoNuevo() == Adopcion.EstadoAdopcion.aprobada));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCitaCambiada(CitaCambiadaEvent event) {
+        LocalDate hoy = fechaReferencia;
+        LocalDate inicioSemana = hoy.minusWeeks(1);
+        LocalDate inicioMes = hoy.minusMonths(1);
+
+        citasHoy.addAndGet(delta(hoy.equals(event.fechaAnterior()), hoy.equals(event.fechaNueva())));
+        citasSemana.addAndGet(delta(desde(event.fechaAnterior(), inicioSemana), desde(event.fechaNueva(), inicioSemana)));
+        citasMes.addAndGet(delta(desde(event.fechaAnterior(), inicioMes), desde(event.fechaNueva(), inicioMes)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidoCambiado(PedidoCambiadoEvent event) {
+        pedidosPendientes.addAndGet(delta(
+                event.estadoAnterior() == Pedido.EstadoPedido.pendiente,
+                event.estadoNuevo() == Pedido.EstadoPedido.pendiente));
+
+        int entregado = delta(
+                event.estadoAnterior() == Pedido.EstadoPedido.entregado,
+                event.estadoNuevo() == Pedido.EstadoPedido.entregado);
+        if (entregado != 0) {
+            pedidosCompletados.addAndGet(entregado);
+            productosVendidos.addAndGet(entregado * event.unidades());
+            BigDecimal total = event.total() != null ? event.total() : BigDecimal.ZERO;
+            ingresosTotales.accumulateAndGet(total.multiply(BigDecimal.valueOf(entregado)), BigDecimal::add);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent event) {
+        productosStock.addAndGet(delta(event.stockAnterior() > 0, event.stockNuevo() > 0));
+
+        BigDecimal anterior = BigDecimal.valueOf(event.precioAnterior()).multiply(BigDecimal.valueOf(event.stockAnterior()));
+        BigDecimal nuevo = BigDecimal.valueOf(event.precioNuevo()).multiply(BigDecimal.valueOf(event.stockNuevo()));
+        valorInventario.accumulateAndGet(nuevo.subtract(anterior), BigDecimal::add);
+    }
+
+    // +1 si la condición pasa a cumplirse, -1 si deja de cumplirse, 0 si no cambia
+    private static int delta(boolean antes, boolean despues) {
+        return (despues ? 1 : 0) - (antes ? 1 : 0);
+    }
+
+    private static boolean desde(LocalDate fecha, LocalDate inicio) {
+        return fecha != null && !fecha.isBefore(inicio);
+    }
+}
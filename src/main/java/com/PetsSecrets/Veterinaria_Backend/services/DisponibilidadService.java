@@ -0,0 +1,207 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.DisponibilidadCalendarioResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.DisponibilidadCalendarioResponse.DiaDisponibilidad;
+import com.PetsSecrets.Veterinaria_Backend.dtos.DisponibilidadCalendarioResponse.SlotDisponibilidad;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CitaRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Índice en memoria de ocupación de citas por (sede, fecha).
+// Cada día es un BitSet de minutos del día (bit activo = hay una cita no cancelada a esa hora).
+// Los BitSet publicados nunca se modifican: cada cambio reemplaza la entrada completa.
+// Cada entrada lleva la versión de la lectura que la produjo: una recarga solo reemplaza a otra
+// más antigua, así dos commits que terminan en distinto orden no instalan un día desactualizado.
+@Service
+@RequiredArgsConstructor
+public class DisponibilidadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibilidadService.class);
+
+    private static final int MINUTOS_DIA = 24 * 60;
+    private static final int DIAS_MAXIMOS_CALENDARIO = 31;
+
+    private final CitaRepository citaRepository;
+
+    private final Map<ClaveOcupacion, Ocupacion> ocupacion = new ConcurrentHashMap<>();
+
+    // Se incrementa antes de cada lectura de la base de datos
+    private final AtomicLong versiones = new AtomicLong();
+
+    // Fechas >= cargadoDesde están completas en el índice (ausencia = día sin citas)
+    private volatile LocalDate cargadoDesde;
+
+    @Value("${app.citas.hora-apertura:08:00}")
+    private String horaAperturaConfig;
+
+    @Value("${app.citas.hora-cierre:18:00}")
+    private String horaCierreConfig;
+
+    @Value("${app.citas.duracion-slot-minutos:30}")
+    private int duracionSlotMinutos;
+
+    private LocalTime horaApertura;
+    private LocalTime horaCierre;
+
+    @PostConstruct
+    void init() {
+        horaApertura = LocalTime.parse(horaAperturaConfig);
+        horaCierre = LocalTime.parse(horaCierreConfig);
+        if (duracionSlotMinutos <= 0 || !horaApertura.isBefore(horaCierre)) {
+            throw new IllegalStateException("Configuración de horario de citas inválida");
+        }
+    }
+
+    // Reconstruir el índice desde la base de datos al iniciar la aplicación
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirIndice() {
+        LocalDate hoy = LocalDate.now();
+        long version = versiones.incrementAndGet();
+        Map<ClaveOcupacion, BitSet> nuevo = new HashMap<>();
+
+        for (Object[] fila : citaRepository.findHorariosOcupadosDesde(hoy)) {
+            ClaveOcupacion clave = new ClaveOcupacion((Integer) fila[0], (LocalDate) fila[1]);
+            nuevo.computeIfAbsent(clave, k -> new BitSet(MINUTOS_DIA)).set(minutoDelDia((LocalTime) fila[2]));
+        }
+
+        // Una recarga posterior a un commit es más reciente que esta instantánea
+        nuevo.forEach((clave, minutos) -> instalar(clave, new Ocupacion(minutos, version)));
+        cargadoDesde = hoy;
+        logger.info("Índice de disponibilidad cargado: {} días con citas desde {}", nuevo.size(), hoy);
+    }
+
+    // Verificar si una hora exacta está libre en una sede
+    public boolean estaDisponible(Integer sedeId, LocalDate fecha, LocalTime hora) {
+        return !obtenerOcupacion(sedeId, fecha).get(minutoDelDia(hora));
+    }
+
+    // Calendario de slots libres/ocupados de una sede para un rango de fechas
+    public DisponibilidadCalendarioResponse obtenerCalendario(Integer sedeId, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new RuntimeException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (ChronoUnit.DAYS.between(fechaInicio, fechaFin) >= DIAS_MAXIMOS_CALENDARIO) {
+            throw new RuntimeException("El rango máximo del calendario es de " + DIAS_MAXIMOS_CALENDARIO + " días");
+        }
+
+        int inicio = minutoDelDia(horaApertura);
+        int fin = minutoDelDia(horaCierre);
+
+        List<DiaDisponibilidad> dias = new ArrayList<>();
+        for (LocalDate fecha = fechaInicio; !fecha.isAfter(fechaFin); fecha = fecha.plusDays(1)) {
+            BitSet ocupados = obtenerOcupacion(sedeId, fecha);
+            List<SlotDisponibilidad> slots = new ArrayList<>();
+
+            for (int minuto = inicio; minuto < fin; minuto += duracionSlotMinutos) {
+                // El slot está ocupado si alguna cita empieza dentro de su ventana
+                int siguienteOcupado = ocupados.nextSetBit(minuto);
+                boolean disponible = siguienteOcupado < 0 || siguienteOcupado >= minuto + duracionSlotMinutos;
+                slots.add(SlotDisponibilidad.builder()
+                        .hora(LocalTime.of(minuto / 60, minuto % 60))
+                        .disponible(disponible)
+                        .build());
+            }
+
+            dias.add(DiaDisponibilidad.builder().fecha(fecha).slots(slots).build());
+        }
+
+        return DisponibilidadCalendarioResponse.builder()
+                .sedeId(sedeId)
+                .duracionSlotMinutos(duracionSlotMinutos)
+                .dias(dias)
+                .build();
+    }
+
+    // Recargar los días afectados una vez confirmada la transacción actual
+    public void refrescarDespuesDeCommit(Integer sedeId, LocalDate... fechas) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refrescar(sedeId, fechas);
+                }
+            });
+        } else {
+            refrescar(sedeId, fechas);
+        }
+    }
+
+    // Los días pasados no se reservan: se quitan del índice cada medianoche (y al consultarlos
+    // de nuevo se cargan bajo demanda)
+    @Scheduled(cron = "0 0 0 * * *")
+    public void descartarDiasPasados() {
+        LocalDate hoy = LocalDate.now();
+        ocupacion.keySet().removeIf(clave -> clave.fecha().isBefore(hoy));
+    }
+
+    private void refrescar(Integer sedeId, LocalDate... fechas) {
+        for (LocalDate fecha : fechas) {
+            if (fecha != null) {
+                ClaveOcupacion clave = new ClaveOcupacion(sedeId, fecha);
+                instalar(clave, cargar(clave));
+            }
+        }
+    }
+
+    // Reemplaza la entrada solo si la nueva viene de una lectura posterior
+    private Ocupacion instalar(ClaveOcupacion clave, Ocupacion nueva) {
+        return ocupacion.merge(clave, nueva, (actual, candidata) ->
+                candidata.version() > actual.version() ? candidata : actual);
+    }
+
+    private BitSet obtenerOcupacion(Integer sedeId, LocalDate fecha) {
+        ClaveOcupacion clave = new ClaveOcupacion(sedeId, fecha);
+        Ocupacion actual = ocupacion.get(clave);
+        if (actual != null) {
+            return actual.minutos();
+        }
+
+        LocalDate desde = cargadoDesde;
+        if (desde != null && !fecha.isBefore(desde)) {
+            return new BitSet(0);
+        }
+
+        // Día fuera del rango precargado (p. ej. fechas pasadas): cargar y guardar
+        return instalar(clave, cargar(clave)).minutos();
+    }
+
+    // La versión se toma antes de leer: una lectura que empieza después ve todos los commits previos
+    private Ocupacion cargar(ClaveOcupacion clave) {
+        long version = versiones.incrementAndGet();
+        BitSet ocupados = new BitSet(MINUTOS_DIA);
+        for (LocalTime hora : citaRepository.findHorasOcupadas(clave.sedeId(), clave.fecha())) {
+            ocupados.set(minutoDelDia(hora));
+        }
+        return new Ocupacion(ocupados, version);
+    }
+
+    private static int minutoDelDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    private record ClaveOcupacion(Integer sedeId, LocalDate fecha) {
+    }
+
+    private record Ocupacion(BitSet minutos, long version) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Envío de archivos estáticos (imágenes) sin pasar los bytes por el heap.
+// - Con Tomcat NIO/NIO2 sin TLS se delega en sendfile: el conector copia del archivo al socket.
+// - En otro caso se usa FileChannel.transferTo sobre el stream de la respuesta.
+// ETag fuerte tomado del hash del nombre (<sha256>.<ext>, <sha256>-w320.<ext>) o calculado una vez
+// para los archivos anteriores; responde 304 a If-None-Match y 206 a un rango de bytes.
+@Service
+public class EnvioArchivosService {
+
+    static final String SENDFILE_SOPORTE = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern DIRECCIONADO = Pattern.compile("^([0-9a-f]{64}(?:-w\\d+)?)\\.[a-z0-9]+$");
+    private static final Pattern RANGO = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    // Los nombres por hash nunca cambian de contenido; los anteriores pueden reemplazarse
+    private static final CacheControl CACHE_INMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private static final CacheControl CACHE_ANTERIOR = CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
+    // Rango [inicio, fin) a enviar; INSATISFACIBLE si el rango pedido queda fuera del archivo
+    record Rango(long inicio, long fin) {
+        static final Rango INSATISFACIBLE = new Rango(-1, -1);
+    }
+
+    private record Huella(long tamano, long modificado, String etag) {
+    }
+
+    // ETag de los archivos sin hash en el nombre, invalidado si cambia tamaño o fecha
+    private final Map<Path, Huella> huellas = new ConcurrentHashMap<>();
+
+    public static boolean esDireccionadoPorContenido(Path archivo) {
+        return DIRECCIONADO.matcher(archivo.getFileName().toString()).matches();
+    }
+
+    public CacheControl cacheControl(Path archivo) {
+        return esDireccionadoPorContenido(archivo) ? CACHE_INMUTABLE : CACHE_ANTERIOR;
+    }
+
+    public void enviar(HttpServletRequest request, HttpServletResponse response,
+                       Path archivo, MediaType tipo) throws IOException {
+        enviar(request, response, archivo, tipo, cacheControl(archivo));
+    }
+
+    public void enviar(HttpServletRequest request, HttpServletResponse response,
+                       Path archivo, MediaType tipo, CacheControl cacheControl) throws IOException {
+        long longitud = Files.size(archivo);
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+        String etag = etag(archivo, longitud, modificado);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, modificado);
+
+        if (noModificado(request, etag, modificado)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Rango rango = rango(request.getHeader(HttpHeaders.RANGE), request.getHeader(HttpHeaders.IF_RANGE), etag, longitud);
+        if (rango == Rango.INSATISFACIBLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + longitud);
+            return;
+        }
+        if (rango == null) {
+            rango = new Rango(0, longitud);
+            response.setStatus(HttpServletResponse.SC_OK);
+        } else {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + rango.inicio() + "-" + (rango.fin() - 1) + "/" + longitud);
+        }
+        response.setContentType(tipo.toString());
+        response.setContentLengthLong(rango.fin() - rango.inicio());
+
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTE))) {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, rango.inicio());
+            request.setAttribute(SENDFILE_FIN, rango.fin());
+            return;
+        }
+        transferir(archivo, rango, Channels.newChannel(response.getOutputStream()));
+    }
+
+    static void transferir(Path archivo, Rango rango, WritableByteChannel destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long posicion = rango.inicio();
+            while (posicion < rango.fin()) {
+                long enviados = canal.transferTo(posicion, rango.fin() - posicion, destino);
+                if (enviados <= 0) {
+                    // El archivo se truncó mientras se enviaba
+                    break;
+                }
+                posicion += enviados;
+            }
+        }
+    }
+
+    // If-None-Match tiene prioridad; If-Modified-Since solo se mira si no viene
+    private static boolean noModificado(HttpServletRequest request, String etag, long modificado) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidato : ifNoneMatch.split(",")) {
+                String valor = candidato.trim();
+                if (valor.equals("*") || quitarDebil(valor).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long desde = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return desde >= 0 && modificado / 1000 <= desde / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Un único rango "bytes=a-b", "bytes=a-" o "bytes=-n"; varios rangos se responden completos
+    static Rango rango(String range, String ifRange, String etag, long longitud) {
+        if (range == null || (ifRange != null && !ifRange.trim().equals(etag))) {
+            return null;
+        }
+        Matcher matcher = RANGO.matcher(range.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        try {
+            long inicio;
+            long fin;
+            if (matcher.group(1).isEmpty()) {
+                long sufijo = Long.parseLong(matcher.group(2));
+                if (sufijo == 0) {
+                    return Rango.INSATISFACIBLE;
+                }
+                inicio = Math.max(0, longitud - sufijo);
+                fin = longitud;
+            } else {
+                inicio = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty() && Long.parseLong(matcher.group(2)) < inicio) {
+                    // Rango mal formado: se ignora y se envía completo
+                    return null;
+                }
+                fin = matcher.group(2).isEmpty() ? longitud : Math.min(longitud, Long.parseLong(matcher.group(2)) + 1);
+            }
+            if (inicio >= longitud || inicio >= fin) {
+                return Rango.INSATISFACIBLE;
+            }
+            return new Rango(inicio, fin);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String etag(Path archivo, long longitud, long modificado) throws IOException {
+        Matcher matcher = DIRECCIONADO.matcher(archivo.getFileName().toString());
+        if (matcher.matches()) {
+            return "\"" + matcher.group(1) + "\"";
+        }
+        Huella huella = huellas.get(archivo);
+        if (huella == null || huella.tamano() != longitud || huella.modificado() != modificado) {
+            huella = new Huella(longitud, modificado, "\"" + sha256(archivo) + "\"");
+            huellas.put(archivo, huella);
+        }
+        return huella.etag();
+    }
+
+    private static String quitarDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String sha256(Path archivo) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream entrada = new DigestInputStream(Files.newInputStream(archivo), digest)) {
+                entrada.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
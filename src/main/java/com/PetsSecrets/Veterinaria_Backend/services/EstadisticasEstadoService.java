@@ -0,0 +1,89 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
+import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
+import com.PetsSecrets.Veterinaria_Backend.repositories.AdopcionRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CitaRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.MascotaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Histogramas por estado (una consulta GROUP BY por entidad) con caché de vida corta.
+// La caché se invalida cuando los servicios cambian el estado de una entidad.
+@Service
+@RequiredArgsConstructor
+public class EstadisticasEstadoService {
+
+    public enum Entidad { CITAS, MASCOTAS, ADOPCIONES }
+
+    private final CitaRepository citaRepository;
+    private final MascotaRepository mascotaRepository;
+    private final AdopcionRepository adopcionRepository;
+
+    private final Map<Entidad, EntradaCache> cache = new ConcurrentHashMap<>();
+
+    @Value("${app.estadisticas.ttl-segundos:30}")
+    private long ttlSegundos;
+
+    public Map<Cita.EstadoCita, Long> contarCitasPorEstado() {
+        return obtener(Entidad.CITAS, Cita.EstadoCita.class, citaRepository::getEstadisticasCitas);
+    }
+
+    public Map<Mascota.EstadoAdopcion, Long> contarMascotasPorEstado() {
+        return obtener(Entidad.MASCOTAS, Mascota.EstadoAdopcion.class, mascotaRepository::getEstadisticasMascotas);
+    }
+
+    public Map<Adopcion.EstadoAdopcion, Long> contarAdopcionesPorEstado() {
+        return obtener(Entidad.ADOPCIONES, Adopcion.EstadoAdopcion.class, adopcionRepository::getEstadisticasAdopciones);
+    }
+
+    // Invalidar la caché de una entidad cuando se confirme la transacción actual
+    public void invalidar(Entidad entidad) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(entidad);
+                }
+            });
+        } else {
+            cache.remove(entidad);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Enum<E>> Map<E, Long> obtener(Entidad entidad, Class<E> tipoEstado, Supplier<List<Object[]>> consulta) {
+        long ahora = System.currentTimeMillis();
+        EntradaCache entrada = cache.get(entidad);
+        if (entrada != null && entrada.expiraEn() > ahora) {
+            return (Map<E, Long>) entrada.conteos();
+        }
+
+        // Inicializar todos los estados en 0 para que los ausentes en el GROUP BY aparezcan
+        Map<E, Long> conteos = new EnumMap<>(tipoEstado);
+        for (E estado : tipoEstado.getEnumConstants()) {
+            conteos.put(estado, 0L);
+        }
+        for (Object[] fila : consulta.get()) {
+            conteos.put(tipoEstado.cast(fila[0]), ((Number) fila[1]).longValue());
+        }
+
+        Map<E, Long> inmutable = Collections.unmodifiableMap(conteos);
+        cache.put(entidad, new EntradaCache(inmutable, ahora + ttlSegundos * 1000));
+        return inmutable;
+    }
+
+    private record EntradaCache(Map<?, Long> conteos, long expiraEn) {
+    }
+}
@@ -4,7 +4,6 @@ import com.PetsSecrets.Veterinaria_Backend.dtos.EstadisticasResponse;
 import com.PetsSecrets.Veterinaria_Backend.repositories.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
 import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
 import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
 
@@ -21,24 +20,11 @@ public class EstadisticasService {
     private final CitaRepository citaRepository;
     private final PedidoRepository pedidoRepository;
     private final ProductoRepository productoRepository;
+    private final ContadoresDashboardService contadoresDashboardService;
     
+    // Contadores materializados: no consulta la base de datos
     public EstadisticasResponse obtenerEstadisticasDashboard() {
-        LocalDate hoy = LocalDate.now();
-        
-        return EstadisticasResponse.builder()
-                .usuariosRegistrados(usuarioRepository.count())
-                .mascotasAdopcion(mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.disponible))
-                .pedidosPendientes(pedidoRepository.countByEstado(Pedido.EstadoPedido.pendiente))
-                .citasHoy(citaRepository.countByFecha(hoy))
-                .productosStock(productoRepository.countByStockGreaterThan(0))
-                .valorInventario(calcularValorInventario())
-                .totalAdopciones(adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.aprobada))
-                .citasSemana(citaRepository.countCitasUltimaSemana(hoy.minusWeeks(1)))
-                .citasMes(citaRepository.countCitasUltimoMes(hoy.minusMonths(1)))
-                .pedidosCompletados(pedidoRepository.countByEstado(Pedido.EstadoPedido.entregado))
-                .productosVendidos(calcularProductosVendidos())
-                .ingresosTotales(calcularIngresosTotales())
-                .build();
+        return contadoresDashboardService.obtenerEstadisticas();
     }
     
     public EstadisticasResponse obtenerReporte(String fechaInicio, String fechaFin) {
@@ -70,14 +56,7 @@ public class EstadisticasService {
 
     private Double calcularValorInventario() {
         // Calcular el valor total del inventario (stock * precio)
-        return productoRepository.findAll().stream()
-                .mapToDouble(producto -> producto.getStock() * producto.getPrecio())
-                .sum();
-    }
-    
-    private Long calcularProductosVendidos() {
-        // Contar productos vendidos basado en pedidos completados
-        return pedidoRepository.countProductosVendidos(Pedido.EstadoPedido.entregado);
+        return productoRepository.sumValorInventario();
     }
     
     private Long calcularProductosVendidosEnRango(LocalDateTime inicio, LocalDateTime fin) {
@@ -85,11 +64,6 @@ public class EstadisticasService {
         return pedidoRepository.countProductosVendidosEnRango(Pedido.EstadoPedido.entregado, inicio, fin);
     }
     
-    private Double calcularIngresosTotales() {
-        // Sumar el total de pedidos completados
-        return pedidoRepository.sumIngresosByEstado(Pedido.EstadoPedido.entregado);
-    }
-    
     private Double calcularIngresosTotalesEnRango(LocalDateTime inicio, LocalDateTime fin) {
         // Sumar ingresos en el rango de fechas
         return pedidoRepository.sumIngresosByEstadoAndFechaCreacionBetween(Pedido.EstadoPedido.entregado, inicio, fin);
@@ -0,0 +1,182 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CitaFila;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoFila;
+import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CitaRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.PedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Exportación de pedidos y citas en CSV o NDJSON escribiendo fila a fila sobre la respuesta.
+// Las filas se leen con un cursor de solo avance, así la memoria no depende del tamaño del rango.
+@Service
+@RequiredArgsConstructor
+public class ExportacionService {
+
+    public enum Formato {
+        csv("text/csv"),
+        ndjson("application/x-ndjson");
+
+        private final String contentType;
+
+        Formato(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String nombreArchivo(String base) {
+            return base + "." + name();
+        }
+    }
+
+    private static final int DIAS_MAXIMOS = 366;
+
+    private static final String CABECERA_PEDIDOS = "id,codigo,usuario_id,usuario_nombre,usuario_email,fecha_pedido,estado," +
+            "subtotal,envio,total,direccion,ciudad,codigo_postal,telefono_contacto,metodo_pago,fecha_entrega";
+
+    private static final String CABECERA_CITAS = "id,fecha,hora,estado,usuario_id,usuario_nombre,usuario_email," +
+            "mascota,servicio,precio,sede,notas,fecha_creacion";
+
+    private final PedidoRepository pedidoRepository;
+    private final CitaRepository citaRepository;
+    private final ObjectMapper objectMapper;
+
+    // Validar filtros antes de empezar a escribir (después ya no se puede responder con un 400)
+    public Formato parsearFormato(String formato) {
+        try {
+            return Formato.valueOf(formato.toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Formato de exportación inválido: " + formato + " (csv o ndjson)");
+        }
+    }
+
+    public Pedido.EstadoPedido parsearEstadoPedido(String estado) {
+        if (estado == null || estado.isBlank()) {
+            return null;
+        }
+        try {
+            return Pedido.EstadoPedido.valueOf(estado);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Estado de pedido inválido: " + estado);
+        }
+    }
+
+    public void validarRango(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new RuntimeException("fechaInicio y fechaFin son requeridas");
+        }
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new RuntimeException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        if (ChronoUnit.DAYS.between(fechaInicio, fechaFin) >= DIAS_MAXIMOS) {
+            throw new RuntimeException("El rango máximo de exportación es de " + DIAS_MAXIMOS + " días");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarPedidos(Pedido.EstadoPedido estado, LocalDate fechaInicio, LocalDate fechaFin,
+                                Formato formato, OutputStream salida) throws IOException {
+        try (Stream<PedidoFila> filas = pedidoRepository.streamPedidos(
+                estado, fechaInicio.atStartOfDay(), fechaFin.plusDays(1).atStartOfDay())) {
+            escribir(filas, formato, salida, CABECERA_PEDIDOS, p -> new Object[]{
+                    p.id(), p.codigo(), p.usuarioId(), p.usuarioNombre(), p.usuarioEmail(), p.fechaPedido(),
+                    p.estado(), p.subtotal(), p.envio(), p.total(), p.direccion(), p.ciudad(), p.codigoPostal(),
+                    p.telefonoContacto(), p.metodoPago(), p.fechaEntrega()});
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarCitas(Cita.EstadoCita estado, LocalDate fechaInicio, LocalDate fechaFin,
+                              Formato formato, OutputStream salida) throws IOException {
+        try (Stream<CitaFila> filas = citaRepository.streamCitas(estado, fechaInicio, fechaFin)) {
+            escribir(filas, formato, salida, CABECERA_CITAS, c -> new Object[]{
+                    c.id(), c.fecha(), c.hora(), c.estado(), c.usuarioId(), c.usuarioNombre(), c.usuarioEmail(),
+                    c.mascotaNombre(), c.servicioNombre(), c.servicioPrecio(), c.sedeNombre(), c.notas(),
+                    c.fechaCreacion()});
+        }
+    }
+
+    private <T> void escribir(Stream<T> filas, Formato formato, OutputStream salida,
+                              String cabecera, Function<T, Object[]> columnas) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        try {
+            if (formato == Formato.csv) {
+                writer.write(cabecera);
+                writer.write("\r\n");
+                filas.forEach(fila -> escribirLinea(writer, lineaCsv(columnas.apply(fila)), "\r\n"));
+            } else {
+                ObjectWriter json = objectMapper.writer();
+                filas.forEach(fila -> {
+                    try {
+                        escribirLinea(writer, json.writeValueAsString(fila), "\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void escribirLinea(Writer writer, String linea, String finDeLinea) {
+        try {
+            writer.write(linea);
+            writer.write(finDeLinea);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String lineaCsv(Object[] valores) {
+        StringBuilder linea = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                linea.append(',');
+            }
+            Object valor = valores[i];
+            if (valor == null) {
+                continue;
+            }
+            if (valor instanceof String texto) {
+                linea.append(escaparCsv(texto));
+            } else {
+                linea.append(valor);
+            }
+        }
+        return linea.toString();
+    }
+
+    private static String escaparCsv(String texto) {
+        // Evitar que hojas de cálculo interpreten el texto como fórmula
+        if (!texto.isEmpty() && "=+-@".indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+        return texto;
+    }
+}
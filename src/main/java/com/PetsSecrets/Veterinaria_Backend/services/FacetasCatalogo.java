@@ -0,0 +1,198 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.FacetaConteo;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import com.PetsSecrets.Veterinaria_Backend.models.Producto;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Facetas del catálogo precalculadas como BitSet (una posición por producto).
+// Los filtros se combinan con AND entre facetas y OR dentro de una misma faceta; el conteo de
+// cada faceta aplica los filtros de las demás (facetas disyuntivas). Es inmutable: CatalogoCache
+// la reconstruye junto con cada instantánea del catálogo.
+public final class FacetasCatalogo {
+
+    // Límites de los rangos de precio: [0-20), [20-50), [50-100), [100-200), [200-)
+    private static final int[] LIMITES_PRECIO = {20, 50, 100, 200};
+    private static final List<String> RANGOS_PRECIO = rangos();
+
+    public record Filtro(Set<Integer> categorias, Set<String> rangosPrecio, Boolean enStock, String estado) {
+    }
+
+    public record Resultado(List<ProductoResponse> productos, long total,
+                            List<FacetaConteo> categorias, List<FacetaConteo> rangosPrecio,
+                            List<FacetaConteo> stock, List<FacetaConteo> estados) {
+    }
+
+    // Productos ordenados por nombre; el índice en el arreglo es la posición en los BitSet
+    private final ProductoResponse[] productos;
+    private final BitSet todos;
+    private final Map<Integer, BitSet> porCategoria;
+    private final Map<Integer, String> nombresCategoria;
+    private final BitSet[] porRangoPrecio;
+    private final BitSet conStock;
+    private final BitSet sinStock;
+    private final Map<String, BitSet> porEstado;
+
+    private FacetasCatalogo(Collection<ProductoResponse> origen) {
+        List<ProductoResponse> ordenados = new ArrayList<>(origen);
+        ordenados.sort(Comparator.comparing(ProductoResponse::getNombre, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(ProductoResponse::getId));
+        productos = ordenados.toArray(new ProductoResponse[0]);
+
+        todos = new BitSet(productos.length);
+        todos.set(0, productos.length);
+        porRangoPrecio = new BitSet[RANGOS_PRECIO.size()];
+        for (int i = 0; i < porRangoPrecio.length; i++) {
+            porRangoPrecio[i] = new BitSet(productos.length);
+        }
+        conStock = new BitSet(productos.length);
+        sinStock = new BitSet(productos.length);
+        porEstado = new HashMap<>();
+        for (Producto.EstadoProducto estado : Producto.EstadoProducto.values()) {
+            porEstado.put(estado.name(), new BitSet(productos.length));
+        }
+
+        Map<Integer, BitSet> categorias = new HashMap<>();
+        Map<Integer, String> nombres = new HashMap<>();
+        for (int i = 0; i < productos.length; i++) {
+            ProductoResponse producto = productos[i];
+            if (producto.getCategoria() != null) {
+                categorias.computeIfAbsent(producto.getCategoria().getId(), id -> new BitSet(productos.length)).set(i);
+                nombres.put(producto.getCategoria().getId(), producto.getCategoria().getNombre());
+            }
+            porRangoPrecio[rangoDe(producto.getPrecio())].set(i);
+            (producto.getStock() != null && producto.getStock() > 0 ? conStock : sinStock).set(i);
+            BitSet estado = porEstado.get(producto.getEstado());
+            if (estado != null) {
+                estado.set(i);
+            }
+        }
+
+        // Categorías ordenadas por nombre para la respuesta
+        List<Integer> idsCategoria = new ArrayList<>(categorias.keySet());
+        idsCategoria.sort(Comparator.comparing((Integer id) -> nombres.get(id),
+                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(Comparator.naturalOrder()));
+        porCategoria = new LinkedHashMap<>();
+        for (Integer id : idsCategoria) {
+            porCategoria.put(id, categorias.get(id));
+        }
+        nombresCategoria = nombres;
+    }
+
+    static FacetasCatalogo construir(Collection<ProductoResponse> productos) {
+        return new FacetasCatalogo(productos);
+    }
+
+    public static List<String> rangosPrecio() {
+        return RANGOS_PRECIO;
+    }
+
+    public Resultado filtrar(Filtro filtro, int desde, int limite) {
+        BitSet categoria = union(filtro.categorias(), porCategoria::get);
+        BitSet precio = union(filtro.rangosPrecio(), rango -> {
+            int indice = RANGOS_PRECIO.indexOf(rango);
+            return indice >= 0 ? porRangoPrecio[indice] : null;
+        });
+        BitSet stock = filtro.enStock() == null ? null : filtro.enStock() ? conStock : sinStock;
+        BitSet estado = filtro.estado() == null ? null : porEstado.getOrDefault(filtro.estado(), new BitSet());
+
+        BitSet coincidencias = interseccion(categoria, precio, stock, estado);
+
+        List<ProductoResponse> pagina = new ArrayList<>();
+        int posicion = 0;
+        for (int i = coincidencias.nextSetBit(0); i >= 0 && pagina.size() < limite; i = coincidencias.nextSetBit(i + 1)) {
+            if (posicion++ >= desde) {
+                pagina.add(CatalogoCache.copia(productos[i]));
+            }
+        }
+
+        BitSet sinCategoria = interseccion(precio, stock, estado);
+        List<FacetaConteo> conteoCategorias = new ArrayList<>();
+        porCategoria.forEach((id, bits) -> conteoCategorias.add(
+                new FacetaConteo(String.valueOf(id), nombresCategoria.get(id), contar(sinCategoria, bits))));
+
+        BitSet sinPrecio = interseccion(categoria, stock, estado);
+        List<FacetaConteo> conteoPrecios = new ArrayList<>();
+        for (int i = 0; i < porRangoPrecio.length; i++) {
+            String rango = RANGOS_PRECIO.get(i);
+            conteoPrecios.add(new FacetaConteo(rango, rango, contar(sinPrecio, porRangoPrecio[i])));
+        }
+
+        BitSet sinStockFiltro = interseccion(categoria, precio, estado);
+        List<FacetaConteo> conteoStock = List.of(
+                new FacetaConteo("true", "Con stock", contar(sinStockFiltro, conStock)),
+                new FacetaConteo("false", "Sin stock", contar(sinStockFiltro, sinStock)));
+
+        BitSet sinEstado = interseccion(categoria, precio, stock);
+        List<FacetaConteo> conteoEstados = new ArrayList<>();
+        for (Producto.EstadoProducto valor : Producto.EstadoProducto.values()) {
+            conteoEstados.add(new FacetaConteo(valor.name(), valor.name(), contar(sinEstado, porEstado.get(valor.name()))));
+        }
+
+        return new Resultado(pagina, coincidencias.cardinality(),
+                conteoCategorias, conteoPrecios, conteoStock, conteoEstados);
+    }
+
+    // OR de los valores seleccionados de una faceta; null si la faceta no filtra
+    private static <T> BitSet union(Set<T> valores, Function<T, BitSet> bits) {
+        if (valores == null || valores.isEmpty()) {
+            return null;
+        }
+        BitSet resultado = new BitSet();
+        for (T valor : valores) {
+            BitSet conjunto = bits.apply(valor);
+            if (conjunto != null) {
+                resultado.or(conjunto);
+            }
+        }
+        return resultado;
+    }
+
+    // AND de las facetas que filtran (las null se ignoran)
+    private BitSet interseccion(BitSet... conjuntos) {
+        BitSet resultado = (BitSet) todos.clone();
+        for (BitSet conjunto : conjuntos) {
+            if (conjunto != null) {
+                resultado.and(conjunto);
+            }
+        }
+        return resultado;
+    }
+
+    private static long contar(BitSet base, BitSet faceta) {
+        BitSet copia = (BitSet) base.clone();
+        copia.and(faceta);
+        return copia.cardinality();
+    }
+
+    private static int rangoDe(double precio) {
+        for (int i = 0; i < LIMITES_PRECIO.length; i++) {
+            if (precio < LIMITES_PRECIO[i]) {
+                return i;
+            }
+        }
+        return LIMITES_PRECIO.length;
+    }
+
+    private static List<String> rangos() {
+        List<String> rangos = new ArrayList<>();
+        int desde = 0;
+        for (int limite : LIMITES_PRECIO) {
+            rangos.add(desde + "-" + limite);
+            desde = limite;
+        }
+        rangos.add(desde + "-");
+        return List.copyOf(rangos);
+    }
+}
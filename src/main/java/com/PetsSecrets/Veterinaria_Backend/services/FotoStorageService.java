@@ -0,0 +1,166 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Almacenamiento de fotos de mascotas en disco, direccionado por contenido.
+// Las imágenes que llegan como data URI (base64) se guardan como archivo con nombre SHA-256
+// (uploads/fotos/ab/abcd...ef.png) y la entidad guarda solo la referencia "/api/fotos/<nombre>".
+// La misma imagen subida dos veces ocupa un único archivo.
+@Service
+public class FotoStorageService {
+
+    public static final String PREFIJO_REFERENCIA = "/api/fotos/";
+
+    private static final int LONGITUD_MAXIMA_URL = 500;
+
+    private static final Pattern DATA_URI = Pattern.compile("^data:(image/[a-zA-Z0-9.+-]+);base64,", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOMBRE = Pattern.compile("^[0-9a-f]{64}\\.(jpg|png|gif|webp)$");
+
+    private static final Map<String, String> EXTENSIONES = Map.of(
+            "image/jpeg", "jpg",
+            "image/jpg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final Map<String, String> TIPOS = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private final Path directorio;
+    private final long maxBytes;
+
+    public FotoStorageService(@Value("${app.fotos.directorio:uploads/fotos}") String directorio,
+                              @Value("${app.fotos.max-bytes:5242880}") long maxBytes) {
+        this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    public static boolean esDataUri(String valor) {
+        return valor != null && valor.regionMatches(true, 0, "data:", 0, 5);
+    }
+
+    // Valor a guardar en la entidad: las data URI se convierten en archivo; las URL se conservan
+    public String normalizarReferencia(String fotoUrl) {
+        if (fotoUrl == null || fotoUrl.isBlank()) {
+            return fotoUrl;
+        }
+        if (esDataUri(fotoUrl)) {
+            return guardarDataUri(fotoUrl);
+        }
+        if (fotoUrl.length() > LONGITUD_MAXIMA_URL) {
+            throw new RuntimeException("La URL de la foto es demasiado larga (máximo " + LONGITUD_MAXIMA_URL + " caracteres)");
+        }
+        return fotoUrl;
+    }
+
+    public String guardarDataUri(String dataUri) {
+        Matcher matcher = DATA_URI.matcher(dataUri);
+        if (!matcher.find()) {
+            throw new RuntimeException("Foto inválida: se esperaba una imagen en base64 (data:image/...;base64,)");
+        }
+        String extension = EXTENSIONES.get(matcher.group(1).toLowerCase());
+        if (extension == null) {
+            throw new RuntimeException("Tipo de imagen no válido. Solo se permiten JPEG, PNG, WEBP y GIF.");
+        }
+        // Cota previa sobre el texto: 4 caracteres base64 por cada 3 bytes
+        if ((dataUri.length() - matcher.end()) / 4L * 3 > maxBytes + 3) {
+            throw new RuntimeException("La foto es demasiado grande. Máximo " + (maxBytes / (1024 * 1024)) + "MB.");
+        }
+
+        byte[] contenido;
+        try {
+            contenido = Base64.getMimeDecoder().decode(dataUri.substring(matcher.end()));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Foto inválida: base64 mal formado");
+        }
+        if (contenido.length == 0 || contenido.length > maxBytes) {
+            throw new RuntimeException("La foto está vacía o supera el tamaño máximo");
+        }
+        return PREFIJO_REFERENCIA + guardar(contenido, extension);
+    }
+
+    // Devuelve el nombre del archivo (<sha256>.<ext>); si ya existía no se vuelve a escribir
+    public String guardar(byte[] contenido, String extension) {
+        String hash = sha256(contenido);
+        String nombre = hash + "." + extension;
+        Path destino = ruta(nombre);
+        if (Files.exists(destino)) {
+            return nombre;
+        }
+        try {
+            Files.createDirectories(destino.getParent());
+            // Escribir en un temporal y mover: nunca se sirve un archivo a medio escribir
+            Path temporal = Files.createTempFile(destino.getParent(), hash, ".tmp");
+            try {
+                Files.write(temporal, contenido);
+                mover(temporal, destino);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la foto", e);
+        }
+        return nombre;
+    }
+
+    // Resuelve un nombre público a su archivo; vacío si el nombre no es válido o no existe
+    public Optional<Path> buscar(String nombre) {
+        if (nombre == null || !NOMBRE.matcher(nombre).matches()) {
+            return Optional.empty();
+        }
+        Path archivo = ruta(nombre);
+        return Files.isRegularFile(archivo) ? Optional.of(archivo) : Optional.empty();
+    }
+
+    public String tipoContenido(String nombre) {
+        return TIPOS.getOrDefault(nombre.substring(nombre.lastIndexOf('.') + 1), "application/octet-stream");
+    }
+
+    // Subdirectorio por los dos primeros caracteres del hash para no acumular miles de archivos en uno
+    private Path ruta(String nombre) {
+        return directorio.resolve(nombre.substring(0, 2)).resolve(nombre);
+    }
+
+    private static void mover(Path temporal, Path destino) throws IOException {
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temporal, destino);
+            } catch (FileAlreadyExistsException yaExiste) {
+                // Otra solicitud guardó el mismo contenido al mismo tiempo
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Otra solicitud guardó el mismo contenido al mismo tiempo
+        }
+    }
+
+    static String sha256(byte[] contenido) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hash y verificación de contraseñas (BCrypt) fuera de los hilos de Tomcat.
+// - Pool acotado: una ráfaga de logins ocupa como mucho hilos + cola solicitudes;
+//   las demás se rechazan al instante (503) y el resto de la API sigue respondiendo.
+// - Un email inexistente también paga un BCrypt, así el tiempo de respuesta no revela si existe.
+// - El costo se configura o se calibra al arrancar (ver calibrarCosto).
+@Service
+public class HashContrasenaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashContrasenaService.class);
+
+    // Costo por defecto de BCryptPasswordEncoder: los hashes existentes lo usan
+    public static final int COSTO_MINIMO = 10;
+    public static final int COSTO_MAXIMO = 16;
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final long esperaMs;
+
+    private String hashFicticio;
+    private Counter rechazos;
+    private Timer duracion;
+
+    public HashContrasenaService(PasswordEncoder passwordEncoder,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.auth.bcrypt.hilos:0}") int hilos,
+                                 @Value("${app.auth.bcrypt.cola:64}") int cola,
+                                 @Value("${app.auth.bcrypt.espera-ms:5000}") long esperaMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+        this.esperaMs = esperaMs;
+        // 0 = la mitad de los núcleos, para que los logins no se lleven toda la CPU
+        int tamano = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), tarea -> {
+                    Thread hilo = new Thread(tarea, "bcrypt-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    @PostConstruct
+    void init() {
+        hashFicticio = passwordEncoder.encode("contrasena-ficticia");
+
+        rechazos = Counter.builder("auth.bcrypt.rechazos")
+                .description("Operaciones BCrypt rechazadas por cola llena o espera agotada").register(meterRegistry);
+        duracion = Timer.builder("auth.bcrypt.duracion")
+                .description("Tiempo de cada operación BCrypt (sin la espera en cola)").register(meterRegistry);
+        Gauge.builder("auth.bcrypt.cola", executor, pool -> pool.getQueue().size())
+                .description("Operaciones BCrypt esperando un hilo").register(meterRegistry);
+        Gauge.builder("auth.bcrypt.activos", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos BCrypt ocupados").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        executor.shutdownNow();
+    }
+
+    public String codificar(String contrasena) {
+        return ejecutar(() -> passwordEncoder.encode(contrasena));
+    }
+
+    // hash null (usuario inexistente) compara contra un hash ficticio y devuelve false
+    public boolean coincide(String contrasena, String hash) {
+        if (hash == null) {
+            ejecutar(() -> passwordEncoder.matches(contrasena, hashFicticio));
+            return false;
+        }
+        return ejecutar(() -> passwordEncoder.matches(contrasena, hash));
+    }
+
+    // true si el hash es de un costo menor al configurado (se rehace en el siguiente login)
+    public boolean requiereActualizacion(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    private <T> T ejecutar(Callable<T> operacion) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> duracion.recordCallable(operacion));
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new RejectedExecutionException("Servicio de autenticación ocupado, intenta de nuevo");
+        }
+        try {
+            return futuro.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rechazos.increment();
+            throw new RejectedExecutionException("Servicio de autenticación ocupado, intenta de nuevo");
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Operación de contraseña interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error al procesar la contraseña", e.getCause());
+        }
+    }
+
+    // Mayor costo cuyo hash tarda como mucho objetivoMs en este equipo. Se mide el costo mínimo
+    // (tras calentar) y se duplica por cada punto de costo, que es como escala BCrypt.
+    public static int calibrarCosto(long objetivoMs) {
+        BCryptPasswordEncoder referencia = new BCryptPasswordEncoder(COSTO_MINIMO);
+        referencia.encode("calibracion");
+        long inicio = System.nanoTime();
+        referencia.encode("calibracion");
+        double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+
+        int costo = costoParaObjetivo(ms, objetivoMs);
+        logger.info("BCrypt calibrado: costo {} ({} ms con costo {}, objetivo {} ms)",
+                costo, Math.round(ms), COSTO_MINIMO, objetivoMs);
+        return costo;
+    }
+
+    static int costoParaObjetivo(double msCostoMinimo, long objetivoMs) {
+        int costo = COSTO_MINIMO;
+        double ms = msCostoMinimo;
+        while (costo < COSTO_MAXIMO && ms * 2 <= objetivoMs) {
+            ms *= 2;
+            costo++;
+        }
+        return costo;
+    }
+}
@@ -0,0 +1,319 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.MessageResponse;
+import com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido;
+import com.PetsSecrets.Veterinaria_Backend.repositories.IdempotenciaPedidoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Ejecución idempotente de solicitudes identificadas por Idempotency-Key.
+// - Respuestas recientes en un mapa LRU acotado con expiración (misma instancia).
+// - Tabla idempotencia_pedidos como respaldo compartido entre instancias.
+// - Duplicados concurrentes esperan el resultado de la ejecución en curso.
+// - Una reserva en curso tiene un plazo corto que su ejecución renueva mientras sigue viva: si la
+//   instancia cae a mitad de la ejecución, un reintento posterior al plazo toma el relevo en lugar
+//   de recibir 409 durante todo el TTL. Cada ejecución tiene su propietario: solo ella renueva,
+//   completa o libera la reserva, y el relevo conserva la huella de la solicitud original.
+// - Los errores del cliente (4xx) se recuerdan poco tiempo: corregido el motivo (stock, datos),
+//   la misma clave puede volver a intentarse.
+@Service
+@RequiredArgsConstructor
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 100;
+    private static final long INTERVALO_SONDEO_MS = 100;
+
+    private final IdempotenciaPedidoRepository idempotenciaPedidoRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${app.idempotencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    @Value("${app.idempotencia.espera-segundos:30}")
+    private long esperaSegundos;
+
+    @Value("${app.idempotencia.plazo-en-curso-segundos:120}")
+    private long plazoEnCursoSegundos;
+
+    @Value("${app.idempotencia.ttl-error-cliente-minutos:5}")
+    private long ttlErrorClienteMinutos;
+
+    // Respuestas completadas (LRU por acceso)
+    private Map<String, Resultado> completadas;
+
+    // Ejecuciones en curso en esta instancia
+    private final Map<String, CompletableFuture<Resultado>> enCurso = new ConcurrentHashMap<>();
+
+    // Reservas de la tabla que tienen las ejecuciones de esta instancia: clave -> propietario
+    private final Map<String, String> reservasPropias = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        completadas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Resultado> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    public ResponseEntity<?> ejecutar(Integer usuarioId, String idempotencyKey, Object solicitud,
+                                      Supplier<ResponseEntity<?>> accion) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > LONGITUD_MAXIMA_CLAVE) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Idempotency-Key inválida (máximo " + LONGITUD_MAXIMA_CLAVE + " caracteres)"));
+        }
+
+        String clave = usuarioId + ":" + idempotencyKey;
+        String huella = calcularHuella(solicitud);
+
+        Resultado previo = buscarLocal(clave);
+        if (previo != null) {
+            return previo.reproducir(huella);
+        }
+
+        CompletableFuture<Resultado> propio = new CompletableFuture<>();
+        CompletableFuture<Resultado> existente = enCurso.putIfAbsent(clave, propio);
+        if (existente != null) {
+            return esperarEnCurso(existente, huella);
+        }
+
+        String propietario = UUID.randomUUID().toString();
+        try {
+            IdempotenciaPedido registro = reservarOEsperar(clave, huella, propietario);
+            if (registro != null) {
+                // Otra instancia ya la completó
+                Resultado resultado = new Resultado(registro.getHuellaSolicitud(), registro.getEstadoHttp(),
+                        registro.getRespuesta(), registro.getExpiraEn());
+                guardarLocal(clave, resultado);
+                propio.complete(resultado);
+                return resultado.reproducir(huella);
+            }
+
+            reservasPropias.put(clave, propietario);
+            ResponseEntity<?> respuesta;
+            try {
+                respuesta = accion.get();
+            } catch (RuntimeException e) {
+                idempotenciaPedidoRepository.liberar(clave, propietario);
+                throw e;
+            }
+
+            LocalDateTime expiraEn = respuesta.getStatusCode().is4xxClientError()
+                    ? LocalDateTime.now().plusMinutes(ttlErrorClienteMinutos)
+                    : LocalDateTime.now().plusHours(ttlHoras);
+            Resultado resultado = new Resultado(huella, respuesta.getStatusCode().value(),
+                    serializar(respuesta.getBody()), expiraEn);
+
+            if (respuesta.getStatusCode().is5xxServerError()) {
+                // Error del servidor: liberar la clave para que un reintento vuelva a ejecutarse
+                idempotenciaPedidoRepository.liberar(clave, propietario);
+            } else if (idempotenciaPedidoRepository.completar(clave, propietario, resultado.estadoHttp(),
+                    resultado.cuerpo(), expiraEn) == 1) {
+                guardarLocal(clave, resultado);
+            } else {
+                // Sin renovar dentro del plazo (p. ej. base de datos caída) y otra solicitud tomó el relevo
+                logger.error("La reserva de la clave de idempotencia {} pasó a otra solicitud antes de completarse", clave);
+            }
+            propio.complete(resultado);
+            return respuesta;
+        } catch (EnCursoException e) {
+            propio.completeExceptionally(e);
+            return enCurso();
+        } catch (HuellaDistintaException e) {
+            propio.completeExceptionally(e);
+            return huellaDistinta();
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            reservasPropias.remove(clave, propietario);
+            enCurso.remove(clave, propio);
+        }
+    }
+
+    // Mantener vivas las reservas de las ejecuciones en curso en esta instancia
+    @Scheduled(fixedDelayString = "${app.idempotencia.renovacion-ms:30000}")
+    public void renovarReservas() {
+        LocalDateTime enCursoHasta = LocalDateTime.now().plusSeconds(plazoEnCursoSegundos);
+        reservasPropias.forEach((clave, propietario) -> {
+            if (idempotenciaPedidoRepository.renovar(clave, propietario, enCursoHasta) == 0) {
+                logger.warn("No se pudo renovar la reserva de la clave de idempotencia {}", clave);
+            }
+        });
+    }
+
+    // Eliminar claves expiradas de la tabla y del mapa local
+    @Scheduled(fixedDelayString = "${app.idempotencia.limpieza-ms:3600000}")
+    public void limpiarExpiradas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (completadas) {
+            completadas.values().removeIf(resultado -> resultado.expiraEn().isBefore(ahora));
+        }
+        int eliminadas = idempotenciaPedidoRepository.deleteExpiradas(ahora);
+        if (eliminadas > 0) {
+            logger.info("Claves de idempotencia expiradas eliminadas: {}", eliminadas);
+        }
+    }
+
+    // Reservar la clave en la tabla; si otra instancia la tiene en curso, esperar a que termine.
+    // Devuelve null si esta instancia queda a cargo de la ejecución.
+    private IdempotenciaPedido reservarOEsperar(String clave, String huella, String propietario) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(esperaSegundos);
+        while (true) {
+            IdempotenciaPedido registro = idempotenciaPedidoRepository.findById(clave).orElse(null);
+            LocalDateTime ahora = LocalDateTime.now();
+            if (registro != null && registro.getExpiraEn().isBefore(ahora)) {
+                // Si otra instancia ya la reemplazó no se borra nada y el INSERT falla: se vuelve a leer
+                idempotenciaPedidoRepository.deleteVencida(clave, ahora);
+                registro = null;
+            }
+
+            if (registro == null) {
+                try {
+                    idempotenciaPedidoRepository.reservar(clave, huella, propietario, ahora.plusHours(ttlHoras),
+                            ahora.plusSeconds(plazoEnCursoSegundos));
+                    return null;
+                } catch (DataIntegrityViolationException e) {
+                    // Otra instancia la reservó primero
+                }
+            } else if (registro.getEstado() == IdempotenciaPedido.Estado.completado) {
+                return registro;
+            } else if (!registro.getHuellaSolicitud().equals(huella)) {
+                throw new HuellaDistintaException();
+            } else if ((registro.getEnCursoHasta() == null || registro.getEnCursoHasta().isBefore(ahora))
+                    && idempotenciaPedidoRepository.tomarRelevo(clave, huella, propietario, ahora,
+                            ahora.plusSeconds(plazoEnCursoSegundos)) == 1) {
+                // Quien la reservó no la renovó dentro del plazo (caída o reinicio)
+                logger.warn("Relevo de la clave de idempotencia {}: la reserva anterior venció sin completarse", clave);
+                return null;
+            }
+
+            if (System.nanoTime() > limite) {
+                throw new EnCursoException();
+            }
+            try {
+                Thread.sleep(INTERVALO_SONDEO_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EnCursoException();
+            }
+        }
+    }
+
+    private ResponseEntity<?> esperarEnCurso(CompletableFuture<Resultado> futuro, String huella) {
+        try {
+            return futuro.get(esperaSegundos, TimeUnit.SECONDS).reproducir(huella);
+        } catch (TimeoutException e) {
+            return enCurso();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return enCurso();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EnCursoException || e.getCause() instanceof HuellaDistintaException) {
+                return enCurso();
+            }
+            // La ejecución original falló sin resultado: el cliente puede reintentar
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse(e.getCause() != null ? e.getCause().getMessage() : "Error al procesar la solicitud"));
+        }
+    }
+
+    private Resultado buscarLocal(String clave) {
+        synchronized (completadas) {
+            Resultado resultado = completadas.get(clave);
+            if (resultado != null && resultado.expiraEn().isBefore(LocalDateTime.now())) {
+                completadas.remove(clave);
+                return null;
+            }
+            return resultado;
+        }
+    }
+
+    private void guardarLocal(String clave, Resultado resultado) {
+        synchronized (completadas) {
+            completadas.put(clave, resultado);
+        }
+    }
+
+    private String serializar(Object cuerpo) {
+        try {
+            return objectMapper.writeValueAsString(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("No se pudo serializar la respuesta: " + e.getMessage());
+        }
+    }
+
+    private String calcularHuella(Object solicitud) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(solicitud)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la solicitud", e);
+        }
+    }
+
+    private static ResponseEntity<?> enCurso() {
+        return ResponseEntity.status(409)
+                .body(new MessageResponse("Una solicitud con la misma Idempotency-Key todavía está en proceso"));
+    }
+
+    private static ResponseEntity<?> huellaDistinta() {
+        return ResponseEntity.unprocessableEntity()
+                .body(new MessageResponse("La Idempotency-Key ya se usó con una solicitud diferente"));
+    }
+
+    private record Resultado(String huella, int estadoHttp, String cuerpo, LocalDateTime expiraEn) {
+
+        ResponseEntity<?> reproducir(String huellaSolicitud) {
+            if (!huella.equals(huellaSolicitud)) {
+                return huellaDistinta();
+            }
+            return ResponseEntity.status(estadoHttp)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Idempotent-Replayed", "true")
+                    .body(cuerpo);
+        }
+    }
+
+    private static class EnCursoException extends RuntimeException {
+        EnCursoException() {
+            super("Solicitud en proceso");
+        }
+    }
+
+    private static class HuellaDistintaException extends RuntimeException {
+        HuellaDistintaException() {
+            super("Idempotency-Key usada con otra solicitud");
+        }
+    }
+}
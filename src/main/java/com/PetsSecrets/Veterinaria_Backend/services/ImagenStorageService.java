@@ -0,0 +1,168 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.repositories.ImagenArchivoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Imágenes subidas (productos, tarjetas) direccionadas por contenido.
+// El archivo se nombra con el SHA-256 calculado mientras se recibe y se guarda en dos niveles
+// de subdirectorios (ab/cd/abcd...ef.jpg) para no acumular decenas de miles en uno solo.
+// La tabla imagenes_archivos cuenta las subidas de cada contenido: se guarda una única copia
+// y el archivo solo se borra cuando se libera la última referencia.
+@Service
+public class ImagenStorageService {
+
+    public static final String PREFIJO_URL = "/uploads/images/";
+
+    private static final Pattern NOMBRE = Pattern.compile("^[0-9a-f]{64}\\.(jpg|png|gif|webp)$");
+    // Subidas anteriores (UUID + extensión en el directorio plano)
+    private static final Pattern NOMBRE_ANTERIOR = Pattern.compile("^[0-9a-fA-F-]{36}\\.[A-Za-z0-9]{1,5}$");
+
+    public record Imagen(String nombre, String url, Path ruta) {
+    }
+
+    private final ImagenArchivoRepository imagenArchivoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directorio;
+
+    public ImagenStorageService(ImagenArchivoRepository imagenArchivoRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.imagenes.directorio:uploads/images}") String directorio) {
+        this.imagenArchivoRepository = imagenArchivoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+    }
+
+    public Imagen guardar(InputStream contenido, String extension) {
+        try {
+            Path temporales = directorio.resolve("tmp");
+            Files.createDirectories(temporales);
+            Path temporal = Files.createTempFile(temporales, "subida", ".tmp");
+            try {
+                // El hash se calcula en la misma pasada que copia el archivo a disco
+                MessageDigest digest = sha256();
+                try (OutputStream salida = new DigestOutputStream(Files.newOutputStream(temporal), digest)) {
+                    contenido.transferTo(salida);
+                }
+                String nombre = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+                Path destino = ruta(nombre);
+                long tamano = Files.size(temporal);
+
+                // Con la fila bloqueada: un borrado concurrente del mismo contenido espera o ya terminó
+                transactionTemplate.executeWithoutResult(estado -> {
+                    imagenArchivoRepository.sumarReferencia(nombre, tamano, LocalDateTime.now());
+                    mover(temporal, destino);
+                });
+                return new Imagen(nombre, url(nombre), destino);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen", e);
+        }
+    }
+
+    // Libera una referencia; devuelve el archivo borrado si era la última, vacío si aún se usa.
+    // Las subidas anteriores al índice se borran directamente.
+    public Optional<Path> liberar(String nombre) {
+        if (NOMBRE.matcher(nombre).matches()) {
+            return transactionTemplate.execute(estado -> {
+                if (imagenArchivoRepository.restarReferencia(nombre) == 0) {
+                    throw new ImagenNoEncontradaException();
+                }
+                if (imagenArchivoRepository.eliminarSinReferencias(nombre) == 0) {
+                    return Optional.<Path>empty();
+                }
+                Path archivo = ruta(nombre);
+                try {
+                    Files.deleteIfExists(archivo);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo eliminar la imagen", e);
+                }
+                return Optional.of(archivo);
+            });
+        }
+
+        Path archivo = buscar(nombre).orElseThrow(ImagenNoEncontradaException::new);
+        try {
+            Files.delete(archivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo eliminar la imagen", e);
+        }
+        return Optional.of(archivo);
+    }
+
+    // Resuelve un nombre público a su archivo (direccionado por contenido o del directorio plano anterior)
+    public Optional<Path> buscar(String nombre) {
+        Path archivo;
+        if (nombre != null && NOMBRE.matcher(nombre).matches()) {
+            archivo = ruta(nombre);
+        } else if (nombre != null && NOMBRE_ANTERIOR.matcher(nombre).matches()) {
+            archivo = directorio.resolve(nombre);
+        } else {
+            return Optional.empty();
+        }
+        return Files.isRegularFile(archivo) ? Optional.of(archivo) : Optional.empty();
+    }
+
+    public static String url(String nombre) {
+        return PREFIJO_URL + nombre.substring(0, 2) + "/" + nombre.substring(2, 4) + "/" + nombre;
+    }
+
+    private Path ruta(String nombre) {
+        return directorio.resolve(nombre.substring(0, 2)).resolve(nombre.substring(2, 4)).resolve(nombre);
+    }
+
+    private static void mover(Path temporal, Path destino) {
+        if (Files.exists(destino)) {
+            return;
+        }
+        try {
+            Files.createDirectories(destino.getParent());
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Otra subida del mismo contenido lo dejó en su lugar
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la imagen", e);
+        }
+    }
+
+    // El nombre no corresponde a ninguna imagen guardada (el controlador responde 404)
+    public static class ImagenNoEncontradaException extends RuntimeException {
+        public ImagenNoEncontradaException() {
+            super("Imagen no encontrada");
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import com.PetsSecrets.Veterinaria_Backend.models.Producto;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// Índice invertido en memoria para la búsqueda de productos activos.
+// - Tokens sin tildes ni mayúsculas ("Alimentación" = "alimentacion").
+// - Coincidencia exacta, por prefijo y con errores de tipeo (1 error hasta 7 letras, 2 desde 8).
+// - Relevancia: peso del campo (nombre > categoría > descripción) por calidad de la coincidencia.
+// Lo alimenta CatalogoCache: reconstrucción al cargar el catálogo y cambios por producto.
+@Component
+public class IndiceBusquedaProductos {
+
+    private static final float PESO_NOMBRE = 3f;
+    private static final float PESO_CATEGORIA = 2f;
+    private static final float PESO_DESCRIPCION = 1f;
+
+    private static final float FACTOR_PREFIJO = 0.6f;
+    private static final float FACTOR_UN_ERROR = 0.5f;
+    private static final float FACTOR_DOS_ERRORES = 0.25f;
+
+    private static final int LONGITUD_MINIMA_PREFIJO = 2;
+    private static final int LONGITUD_MINIMA_ERRORES = 4;
+    private static final int LONGITUD_DOS_ERRORES = 8;
+    private static final int MAX_TERMINOS_POR_PREFIJO = 100;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "se", "sin", "su", "un", "una", "unos", "unas", "y");
+
+    // Término -> (producto -> peso). Cada lista de productos es inmutable y se reemplaza al cambiar.
+    // reconstruir publica un Estado nuevo; aplicar modifica el publicado término a término.
+    private record Estado(ConcurrentSkipListMap<String, Map<Integer, Float>> terminos,
+                          ConcurrentHashMap<Integer, Documento> documentos) {
+        Estado() {
+            this(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private record Documento(ProductoResponse producto, Map<String, Float> pesos) {
+    }
+
+    private record Puntuado(ProductoResponse producto, float puntuacion) {
+    }
+
+    public record Resultado(List<ProductoResponse> productos, long total) {
+    }
+
+    // null hasta la primera reconstrucción
+    private volatile Estado estado;
+
+    private final Object escritura = new Object();
+
+    public boolean estaListo() {
+        return estado != null;
+    }
+
+    public void reconstruir(Collection<ProductoResponse> productos) {
+        synchronized (escritura) {
+            Estado nuevo = new Estado();
+            for (ProductoResponse producto : productos) {
+                indexar(nuevo, producto);
+            }
+            estado = nuevo;
+        }
+    }
+
+    public void actualizar(ProductoResponse producto) {
+        aplicar(List.of(producto), List.of());
+    }
+
+    public void eliminar(Integer productoId) {
+        aplicar(List.of(), List.of(productoId));
+    }
+
+    // Copia al escribir por término: solo se reemplazan las listas de los términos que cambian,
+    // sin copiar el índice. Si no cambia ningún campo indexado (nombre, descripción, categoría,
+    // estado), p. ej. solo stock o precio, se reemplaza el documento sin tocar los términos.
+    // Mientras se actualiza un producto una búsqueda puede encontrarlo por un término viejo o por
+    // uno nuevo, pero siempre devuelve su última versión.
+    public void aplicar(Collection<ProductoResponse> actualizados, Collection<Integer> eliminados) {
+        synchronized (escritura) {
+            Estado actual = estado;
+            if (actual == null) {
+                return;
+            }
+            for (Integer productoId : eliminados) {
+                quitar(actual, productoId);
+            }
+            for (ProductoResponse producto : actualizados) {
+                indexar(actual, producto);
+            }
+        }
+    }
+
+    public Resultado buscar(String consulta, int desde, int limite) {
+        Estado actual = estado;
+        if (actual == null) {
+            return new Resultado(List.of(), 0);
+        }
+
+        List<String> tokens = tokensDeConsulta(consulta);
+        if (tokens.isEmpty()) {
+            return new Resultado(List.of(), 0);
+        }
+
+        // Todos los tokens deben coincidir; la puntuación es la suma de sus mejores coincidencias
+        Map<Integer, Float> puntuaciones = null;
+        for (String token : tokens) {
+            Map<Integer, Float> coincidencias = coincidencias(actual, token);
+            if (puntuaciones == null) {
+                puntuaciones = coincidencias;
+            } else {
+                Map<Integer, Float> interseccion = new HashMap<>();
+                for (Map.Entry<Integer, Float> entrada : puntuaciones.entrySet()) {
+                    Float puntuacion = coincidencias.get(entrada.getKey());
+                    if (puntuacion != null) {
+                        interseccion.put(entrada.getKey(), entrada.getValue() + puntuacion);
+                    }
+                }
+                puntuaciones = interseccion;
+            }
+            if (puntuaciones.isEmpty()) {
+                return new Resultado(List.of(), 0);
+            }
+        }
+
+        List<Puntuado> ordenados = new ArrayList<>(puntuaciones.size());
+        puntuaciones.forEach((productoId, puntuacion) -> {
+            Documento documento = actual.documentos().get(productoId);
+            if (documento != null) {
+                ordenados.add(new Puntuado(documento.producto(), puntuacion));
+            }
+        });
+        ordenados.sort(Comparator.comparingDouble(Puntuado::puntuacion).reversed()
+                .thenComparing(puntuado -> puntuado.producto().getNombre(),
+                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(puntuado -> puntuado.producto().getId()));
+
+        List<ProductoResponse> pagina = new ArrayList<>();
+        for (int i = Math.max(desde, 0); i < ordenados.size() && pagina.size() < limite; i++) {
+            pagina.add(CatalogoCache.copia(ordenados.get(i).producto()));
+        }
+        return new Resultado(pagina, ordenados.size());
+    }
+
+    private Map<Integer, Float> coincidencias(Estado actual, String token) {
+        Map<Integer, Float> resultado = new HashMap<>();
+
+        Map<Integer, Float> exactas = actual.terminos().get(token);
+        if (exactas != null) {
+            acumular(resultado, exactas, 1f);
+        }
+
+        if (token.length() >= LONGITUD_MINIMA_PREFIJO) {
+            int expandidos = 0;
+            for (Map.Entry<String, Map<Integer, Float>> entrada
+                    : actual.terminos().subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                acumular(resultado, entrada.getValue(), FACTOR_PREFIJO);
+                if (++expandidos >= MAX_TERMINOS_POR_PREFIJO) {
+                    break;
+                }
+            }
+        }
+
+        if (token.length() >= LONGITUD_MINIMA_ERRORES) {
+            int maxErrores = token.length() >= LONGITUD_DOS_ERRORES ? 2 : 1;
+            // Recorrido del vocabulario: el catálogo tiene pocos miles de términos
+            for (Map.Entry<String, Map<Integer, Float>> entrada : actual.terminos().entrySet()) {
+                String termino = entrada.getKey();
+                if (Math.abs(termino.length() - token.length()) > maxErrores || termino.equals(token)) {
+                    continue;
+                }
+                int errores = distancia(token, termino, maxErrores);
+                if (errores <= maxErrores) {
+                    acumular(resultado, entrada.getValue(), errores == 1 ? FACTOR_UN_ERROR : FACTOR_DOS_ERRORES);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Se queda con la mejor coincidencia de cada producto para el token
+    private static void acumular(Map<Integer, Float> resultado, Map<Integer, Float> postings, float factor) {
+        for (Map.Entry<Integer, Float> posting : postings.entrySet()) {
+            resultado.merge(posting.getKey(), posting.getValue() * factor, Math::max);
+        }
+    }
+
+    private static void indexar(Estado estado, ProductoResponse producto) {
+        Integer productoId = producto.getId();
+        if (!Producto.EstadoProducto.activo.name().equals(producto.getEstado())) {
+            quitar(estado, productoId);
+            return;
+        }
+        Documento anterior = estado.documentos().get(productoId);
+        if (anterior != null && mismosCamposIndexados(anterior.producto(), producto)) {
+            estado.documentos().put(productoId, new Documento(producto, anterior.pesos()));
+            return;
+        }
+
+        Map<String, Float> pesos = new HashMap<>();
+        sumarPesos(pesos, producto.getNombre(), PESO_NOMBRE);
+        sumarPesos(pesos, nombreCategoria(producto), PESO_CATEGORIA);
+        sumarPesos(pesos, producto.getDescripcion(), PESO_DESCRIPCION);
+        Map<String, Float> pesosAnteriores = anterior != null ? anterior.pesos() : Map.of();
+
+        // Términos nuevos o con otro peso, el documento y por último los términos que ya no tiene
+        pesos.forEach((termino, peso) -> {
+            if (!peso.equals(pesosAnteriores.get(termino))) {
+                estado.terminos().compute(termino, (t, postings) -> {
+                    Map<Integer, Float> copia = postings != null ? new HashMap<>(postings) : new HashMap<>();
+                    copia.put(productoId, peso);
+                    return Map.copyOf(copia);
+                });
+            }
+        });
+        estado.documentos().put(productoId, new Documento(producto, Map.copyOf(pesos)));
+        for (String termino : pesosAnteriores.keySet()) {
+            if (!pesos.containsKey(termino)) {
+                quitarPosting(estado, termino, productoId);
+            }
+        }
+    }
+
+    private static void quitar(Estado estado, Integer productoId) {
+        Documento anterior = estado.documentos().remove(productoId);
+        if (anterior == null) {
+            return;
+        }
+        for (String termino : anterior.pesos().keySet()) {
+            quitarPosting(estado, termino, productoId);
+        }
+    }
+
+    private static void quitarPosting(Estado estado, String termino, Integer productoId) {
+        estado.terminos().computeIfPresent(termino, (t, postings) -> {
+            Map<Integer, Float> copia = new HashMap<>(postings);
+            copia.remove(productoId);
+            return copia.isEmpty() ? null : Map.copyOf(copia);
+        });
+    }
+
+    private static boolean mismosCamposIndexados(ProductoResponse anterior, ProductoResponse actual) {
+        return Objects.equals(anterior.getNombre(), actual.getNombre())
+                && Objects.equals(anterior.getDescripcion(), actual.getDescripcion())
+                && Objects.equals(nombreCategoria(anterior), nombreCategoria(actual))
+                && Objects.equals(anterior.getEstado(), actual.getEstado());
+    }
+
+    private static String nombreCategoria(ProductoResponse producto) {
+        return producto.getCategoria() != null ? producto.getCategoria().getNombre() : null;
+    }
+
+    // Cada campo cuenta una vez por término aunque el término se repita
+    private static void sumarPesos(Map<String, Float> pesos, String texto, float peso) {
+        for (String token : new LinkedHashSet<>(tokenizar(texto))) {
+            if (!PALABRAS_VACIAS.contains(token)) {
+                pesos.merge(token, peso, Float::sum);
+            }
+        }
+    }
+
+    private static List<String> tokensDeConsulta(String consulta) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenizar(consulta)));
+        List<String> significativos = tokens.stream().filter(token -> !PALABRAS_VACIAS.contains(token)).toList();
+        return significativos.isEmpty() ? tokens : significativos;
+    }
+
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Distancia de Damerau-Levenshtein (transposiciones adyacentes); corta en cuanto supera maximo
+    static int distancia(String a, String b, int maximo) {
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maximo) {
+                return maximo + 1;
+            }
+            int[] temporal = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = temporal;
+        }
+        return anterior[b.length()];
+    }
+}
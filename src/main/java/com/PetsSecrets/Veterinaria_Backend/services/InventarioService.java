@@ -0,0 +1,86 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Descuento atómico de stock.
+// Cada línea es un UPDATE condicional (stock >= cantidad) enviado en un único batch JDBC,
+// así la verificación y el descuento ocurren en la misma sentencia y no hay sobreventa.
+@Service
+@RequiredArgsConstructor
+public class InventarioService {
+
+    private static final String SQL_DESCONTAR =
+            "UPDATE productos SET stock = stock - ? WHERE id = ? AND stock >= ?";
+
+    private static final String SQL_STOCK_Y_NOMBRE =
+            "SELECT id, nombre, stock FROM productos WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Descontar las cantidades (productoId -> cantidad) dentro de la transacción actual.
+    // Devuelve el stock resultante de cada producto; si alguna línea no alcanza lanza
+    // StockInsuficienteException y la transacción completa se revierte.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Integer, Integer> descontarStock(Map<Integer, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return Map.of();
+        }
+
+        // Orden por id: todas las transacciones bloquean las filas en el mismo orden (sin deadlocks)
+        SortedMap<Integer, Integer> lineas = new TreeMap<>(cantidades);
+        List<Object[]> parametros = new ArrayList<>(lineas.size());
+        lineas.forEach((productoId, cantidad) -> parametros.add(new Object[]{cantidad, productoId, cantidad}));
+
+        int[] filas = jdbcTemplate.batchUpdate(SQL_DESCONTAR, parametros);
+
+        // Stock tras el descuento (la transacción ve sus propias escrituras)
+        Map<Integer, ProductoStock> actuales = consultarStock(lineas.keySet());
+
+        List<StockInsuficienteException.Faltante> faltantes = new ArrayList<>();
+        int i = 0;
+        for (Map.Entry<Integer, Integer> linea : lineas.entrySet()) {
+            if (filas[i++] == 0) {
+                ProductoStock actual = actuales.get(linea.getKey());
+                faltantes.add(new StockInsuficienteException.Faltante(
+                        linea.getKey(),
+                        actual != null ? actual.nombre() : "Producto " + linea.getKey(),
+                        linea.getValue(),
+                        actual != null ? actual.stock() : 0));
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            throw new StockInsuficienteException(faltantes);
+        }
+
+        Map<Integer, Integer> resultado = new HashMap<>();
+        actuales.forEach((id, actual) -> resultado.put(id, actual.stock()));
+        return resultado;
+    }
+
+    private Map<Integer, ProductoStock> consultarStock(Collection<Integer> ids) {
+        Map<Integer, ProductoStock> stock = new HashMap<>();
+        namedParameterJdbcTemplate.query(SQL_STOCK_Y_NOMBRE, new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    stock.put(rs.getInt("id"), new ProductoStock(rs.getString("nombre"), rs.getInt("stock")));
+                });
+        return stock;
+    }
+
+    private record ProductoStock(String nombre, int stock) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Límite de intentos de login con cubetas de tokens por IP y por email.
+// - La cubeta por IP frena a un cliente que prueba muchas cuentas (credential stuffing).
+// - La cubeta por email frena la fuerza bruta contra una cuenta desde muchas IPs.
+// Cada mapa es un LRU acotado: perder una cubeta poco usada solo la vuelve a llenar.
+@Service
+public class LimiteLoginService {
+
+    private final Cubetas porIp;
+    private final Cubetas porEmail;
+    private final Counter limitadosIp;
+    private final Counter limitadosEmail;
+
+    public LimiteLoginService(MeterRegistry meterRegistry,
+                              @Value("${app.auth.limite.ip.capacidad:20}") int capacidadIp,
+                              @Value("${app.auth.limite.ip.por-minuto:20}") int porMinutoIp,
+                              @Value("${app.auth.limite.email.capacidad:5}") int capacidadEmail,
+                              @Value("${app.auth.limite.email.por-minuto:5}") int porMinutoEmail,
+                              @Value("${app.auth.limite.max-entradas:10000}") int maxEntradas) {
+        this.porIp = new Cubetas(capacidadIp, porMinutoIp, maxEntradas);
+        this.porEmail = new Cubetas(capacidadEmail, porMinutoEmail, maxEntradas);
+        this.limitadosIp = Counter.builder("auth.login.limitados").tag("motivo", "ip")
+                .description("Intentos de login rechazados por el límite por IP").register(meterRegistry);
+        this.limitadosEmail = Counter.builder("auth.login.limitados").tag("motivo", "email")
+                .description("Intentos de login rechazados por el límite por email").register(meterRegistry);
+    }
+
+    // Segundos a esperar antes de reintentar; 0 si el intento está permitido
+    public long esperaSegundos(String ip, String email) {
+        return esperaSegundos(ip, email, System.nanoTime());
+    }
+
+    long esperaSegundos(String ip, String email, long ahoraNanos) {
+        long espera = porIp.consumir(ip, ahoraNanos);
+        if (espera > 0) {
+            limitadosIp.increment();
+            return espera;
+        }
+        if (email != null) {
+            espera = porEmail.consumir(email.trim().toLowerCase(Locale.ROOT), ahoraNanos);
+            if (espera > 0) {
+                limitadosEmail.increment();
+            }
+        }
+        return espera;
+    }
+
+    private static final class Cubetas {
+
+        private final double capacidad;
+        private final double tokensPorNano;
+        private final Map<String, Cubeta> cubetas;
+
+        Cubetas(int capacidad, int porMinuto, int maxEntradas) {
+            this.capacidad = capacidad;
+            this.tokensPorNano = porMinuto / (double) TimeUnit.MINUTES.toNanos(1);
+            this.cubetas = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cubeta> eldest) {
+                    return size() > maxEntradas;
+                }
+            };
+        }
+
+        synchronized long consumir(String clave, long ahoraNanos) {
+            Cubeta cubeta = cubetas.get(clave);
+            if (cubeta == null) {
+                cubeta = new Cubeta(capacidad, ahoraNanos);
+                cubetas.put(clave, cubeta);
+            }
+            cubeta.tokens = Math.min(capacidad, cubeta.tokens + (ahoraNanos - cubeta.actualizado) * tokensPorNano);
+            cubeta.actualizado = ahoraNanos;
+            if (cubeta.tokens >= 1) {
+                cubeta.tokens -= 1;
+                return 0;
+            }
+            double nanosFaltantes = (1 - cubeta.tokens) / tokensPorNano;
+            return Math.max(1, (long) Math.ceil(nanosFaltantes / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+
+    private static final class Cubeta {
+        private double tokens;
+        private long actualizado;
+
+        Cubeta(double tokens, long actualizado) {
+            this.tokens = tokens;
+            this.actualizado = actualizado;
+        }
+    }
+}
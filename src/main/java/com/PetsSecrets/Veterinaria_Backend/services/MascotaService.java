@@ -2,16 +2,19 @@ package com.PetsSecrets.Veterinaria_Backend.services;
 
 import com.PetsSecrets.Veterinaria_Backend.dtos.MascotaRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.MascotaResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.MascotaCambiadaEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
 import com.PetsSecrets.Veterinaria_Backend.repositories.MascotaRepository;
 import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +24,9 @@ public class MascotaService {
 
     private final MascotaRepository mascotaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final EstadisticasEstadoService estadisticasEstadoService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FotoStorageService fotoStorageService;
 
     // Crear nueva mascota
     public MascotaResponse crearMascota(MascotaRequest request, Integer usuarioId) {
@@ -35,7 +41,7 @@ public class MascotaService {
                 .edad(request.getEdad())
                 .tamano(request.getTamano())
                 .descripcion(request.getDescripcion())
-                .fotoUrl(request.getFotoUrl())
+                .fotoUrl(fotoStorageService.normalizarReferencia(request.getFotoUrl()))
                 .tipo(request.getTipo() != null ? request.getTipo() : Mascota.Tipo.propia)
                 .estadoAdopcion(request.getTipo() == Mascota.Tipo.adopcion ? 
                     Mascota.EstadoAdopcion.disponible : Mascota.EstadoAdopcion.no_disponible)
@@ -50,6 +56,9 @@ public class MascotaService {
                 .build();
 
         Mascota mascotaGuardada = mascotaRepository.save(mascota);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.MASCOTAS);
+        eventPublisher.publishEvent(new MascotaCambiadaEvent(
+                mascotaGuardada.getId(), null, false, mascotaGuardada.getEstadoAdopcion(), true));
         return MascotaResponse.from(mascotaGuardada);
     }
 
@@ -138,7 +147,7 @@ public class MascotaService {
         if (request.getEdad() != null) mascota.setEdad(request.getEdad());
         if (request.getTamano() != null) mascota.setTamano(request.getTamano());
         if (request.getDescripcion() != null) mascota.setDescripcion(request.getDescripcion());
-        if (request.getFotoUrl() != null) mascota.setFotoUrl(request.getFotoUrl());
+        if (request.getFotoUrl() != null) mascota.setFotoUrl(fotoStorageService.normalizarReferencia(request.getFotoUrl()));
         if (request.getVacunado() != null) mascota.setVacunado(request.getVacunado());
         if (request.getEsterilizado() != null) mascota.setEsterilizado(request.getEsterilizado());
         if (request.getBuenoConNinos() != null) mascota.setBuenoConNinos(request.getBuenoConNinos());
@@ -153,6 +162,7 @@ public class MascotaService {
         Mascota mascota = mascotaRepository.findByIdAndActivoTrue(id)
                 .orElseThrow(() -> new RuntimeException("Mascota no encontrada"));
 
+        Mascota.EstadoAdopcion estadoAnterior = mascota.getEstadoAdopcion();
         mascota.setEstadoAdopcion(nuevoEstado);
         
         // Si se adopta, establecer fecha de adopción
@@ -161,6 +171,9 @@ public class MascotaService {
         }
 
         Mascota mascotaActualizada = mascotaRepository.save(mascota);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.MASCOTAS);
+        eventPublisher.publishEvent(new MascotaCambiadaEvent(
+                mascotaActualizada.getId(), estadoAnterior, true, nuevoEstado, true));
         return MascotaResponse.from(mascotaActualizada);
     }
 
@@ -179,6 +192,7 @@ public class MascotaService {
         mascota.setUsuario(nuevoUsuario);
         
         // Actualizar estado de adopción
+        Mascota.EstadoAdopcion estadoAnterior = mascota.getEstadoAdopcion();
         mascota.setEstadoAdopcion(nuevoEstado);
         
         // Si se completa la adopción, establecer fecha
@@ -187,6 +201,9 @@ public class MascotaService {
         }
 
         Mascota mascotaActualizada = mascotaRepository.save(mascota);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.MASCOTAS);
+        eventPublisher.publishEvent(new MascotaCambiadaEvent(
+                mascotaActualizada.getId(), estadoAnterior, true, nuevoEstado, true));
         return MascotaResponse.from(mascotaActualizada);
     }
 
@@ -206,15 +223,19 @@ public class MascotaService {
 
         mascota.setActivo(false);
         mascotaRepository.save(mascota);
+        estadisticasEstadoService.invalidar(EstadisticasEstadoService.Entidad.MASCOTAS);
+        eventPublisher.publishEvent(new MascotaCambiadaEvent(
+                mascota.getId(), mascota.getEstadoAdopcion(), true, mascota.getEstadoAdopcion(), false));
     }
 
     // Obtener estadísticas de mascotas
     @Transactional(readOnly = true)
     public MascotaEstadisticas obtenerEstadisticas() {
-        Long disponibles = mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.disponible);
-        Long adoptadas = mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.adoptado);
-        Long enProceso = mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.en_proceso);
-        Long noDisponibles = mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.no_disponible);
+        Map<Mascota.EstadoAdopcion, Long> conteos = estadisticasEstadoService.contarMascotasPorEstado();
+        Long disponibles = conteos.get(Mascota.EstadoAdopcion.disponible);
+        Long adoptadas = conteos.get(Mascota.EstadoAdopcion.adoptado);
+        Long enProceso = conteos.get(Mascota.EstadoAdopcion.en_proceso);
+        Long noDisponibles = conteos.get(Mascota.EstadoAdopcion.no_disponible);
 
         return MascotaEstadisticas.builder()
                 .disponibles(disponibles)
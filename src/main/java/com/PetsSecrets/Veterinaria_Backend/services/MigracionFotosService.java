@@ -0,0 +1,68 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.repositories.MascotaRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Migración en segundo plano de mascotas.foto_url: las data URI en base64 se pasan a archivos
+// (FotoStorageService) y la columna queda con la referencia corta. Un lote por ejecución para
+// no cargar de golpe todas las imágenes; termina cuando no quedan filas pendientes.
+@Service
+@RequiredArgsConstructor
+public class MigracionFotosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigracionFotosService.class);
+
+    private final MascotaRepository mascotaRepository;
+    private final FotoStorageService fotoStorageService;
+
+    @Value("${app.fotos.migracion-lote:20}")
+    private int tamanoLote;
+
+    // Cursor de la pasada actual: las filas con error se saltan hasta el próximo arranque
+    private int ultimoId = 0;
+    private int migradas = 0;
+    private int fallidas = 0;
+    private volatile boolean terminada = false;
+
+    @Scheduled(initialDelayString = "${app.fotos.migracion-ms:10000}",
+               fixedDelayString = "${app.fotos.migracion-ms:10000}")
+    public void migrarLote() {
+        if (terminada) {
+            return;
+        }
+
+        List<MascotaRepository.FotoPendiente> pendientes =
+                mascotaRepository.findFotosPendientes(ultimoId, PageRequest.of(0, tamanoLote));
+        if (pendientes.isEmpty()) {
+            terminada = true;
+            if (migradas > 0 || fallidas > 0) {
+                logger.info("Migración de fotos terminada: {} migradas, {} con error", migradas, fallidas);
+            }
+            return;
+        }
+
+        for (MascotaRepository.FotoPendiente pendiente : pendientes) {
+            ultimoId = pendiente.getId();
+            try {
+                String referencia = fotoStorageService.guardarDataUri(pendiente.getFotoUrl());
+                String huella = FotoStorageService.sha256(pendiente.getFotoUrl().getBytes(StandardCharsets.UTF_8));
+                if (mascotaRepository.reemplazarFoto(pendiente.getId(), huella, referencia) > 0) {
+                    migradas++;
+                }
+            } catch (RuntimeException e) {
+                fallidas++;
+                logger.warn("No se pudo migrar la foto de la mascota {}: {}", pendiente.getId(), e.getMessage());
+            }
+        }
+        logger.info("Migración de fotos: {} migradas hasta la mascota {}", migradas, ultimoId);
+    }
+}
@@ -0,0 +1,323 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Variantes redimensionadas de las imágenes subidas (solo JDK: ImageIO + Java2D).
+// - Al subir una imagen se generan en segundo plano los anchos configurados, en un pool acotado.
+// - Cada imagen tiene un manifiesto (variantes/<nombre>.json) con sus dimensiones y variantes,
+//   así cada variante se genera una sola vez aunque la aplicación se reinicie.
+// - Si una variante aún no existe se sirve el original y se programa la generación.
+// WEBP y GIF (sin soporte de escritura o animados) se sirven siempre en su tamaño original.
+@Service
+public class MiniaturasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MiniaturasService.class);
+
+    private static final String DIRECTORIO_VARIANTES = "variantes";
+    private static final Set<String> FORMATOS = Set.of("jpg", "jpeg", "png");
+
+    // Evita decodificar imágenes enormes (bombas de descompresión)
+    private static final long MAX_PIXELES = 40_000_000L;
+
+    // ancho y alto 0: la imagen no se pudo decodificar y se sirve siempre el original
+    public record Manifiesto(int ancho, int alto, Map<Integer, String> variantes) {
+
+        static final Manifiesto SOLO_ORIGINAL = new Manifiesto(0, 0, Map.of());
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int[] anchos;
+    private final ThreadPoolExecutor executor;
+
+    // Manifiestos leídos o generados (clave: ruta del original)
+    private final Map<Path, Manifiesto> manifiestos = new ConcurrentHashMap<>();
+
+    // Originales con generación en curso o en cola
+    private final Set<Path> programadas = ConcurrentHashMap.newKeySet();
+
+    public MiniaturasService(ObjectMapper objectMapper,
+                             @Value("${app.imagenes.anchos:160,320,640,1280}") int[] anchos,
+                             @Value("${app.imagenes.hilos:2}") int hilos,
+                             @Value("${app.imagenes.cola:200}") int cola) {
+        this.objectMapper = objectMapper;
+        this.anchos = Arrays.stream(anchos).filter(ancho -> ancho > 0).sorted().distinct().toArray();
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), tarea -> {
+                    Thread hilo = new Thread(tarea, "miniaturas-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    hilo.setPriority(Thread.NORM_PRIORITY - 1);
+                    return hilo;
+                });
+    }
+
+    @PreDestroy
+    void cerrar() {
+        executor.shutdownNow();
+    }
+
+    public boolean admiteVariantes(Path original) {
+        return FORMATOS.contains(extension(original));
+    }
+
+    // Programa la generación de todas las variantes; si la cola está llena se generarán al pedirlas
+    public void programar(Path original) {
+        if (!admiteVariantes(original) || !programadas.add(original)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generarVariantes(original);
+                } finally {
+                    programadas.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            programadas.remove(original);
+            logger.debug("Cola de miniaturas llena; {} se procesará al solicitarse", original.getFileName());
+        }
+    }
+
+    // Archivo a servir para el ancho pedido: la variante más pequeña que lo cubre, o el original
+    public Path resolver(Path original, Integer anchoSolicitado) {
+        if (anchoSolicitado == null || anchoSolicitado <= 0 || !admiteVariantes(original)) {
+            return original;
+        }
+        Optional<Manifiesto> manifiesto = manifiesto(original);
+        if (manifiesto.isEmpty()) {
+            programar(original);
+            return original;
+        }
+
+        Integer ancho = anchoParaSolicitud(anchoSolicitado);
+        if (ancho == null || ancho >= manifiesto.get().ancho()) {
+            return original;
+        }
+        String variante = manifiesto.get().variantes().get(ancho);
+        if (variante != null) {
+            Path archivo = directorioVariantes(original).resolve(variante);
+            if (Files.isRegularFile(archivo)) {
+                return archivo;
+            }
+        }
+        programar(original);
+        return original;
+    }
+
+    public void eliminarVariantes(Path original) {
+        manifiestos.remove(original);
+        Path directorio = directorioVariantes(original);
+        String base = nombreBase(original);
+        try {
+            Files.deleteIfExists(directorio.resolve(original.getFileName() + ".json"));
+            for (int ancho : anchos) {
+                Files.deleteIfExists(directorio.resolve(base + "-w" + ancho + "." + extension(original)));
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudieron eliminar las variantes de {}: {}", original.getFileName(), e.getMessage());
+        }
+    }
+
+    // Ancho configurado más pequeño que cubre la solicitud (null si supera al mayor)
+    private Integer anchoParaSolicitud(int anchoSolicitado) {
+        for (int ancho : anchos) {
+            if (ancho >= anchoSolicitado) {
+                return ancho;
+            }
+        }
+        return null;
+    }
+
+    private Optional<Manifiesto> manifiesto(Path original) {
+        Manifiesto enMemoria = manifiestos.get(original);
+        if (enMemoria != null) {
+            return Optional.of(enMemoria);
+        }
+        Path archivo = directorioVariantes(original).resolve(original.getFileName() + ".json");
+        if (!Files.isRegularFile(archivo)) {
+            return Optional.empty();
+        }
+        try {
+            Manifiesto leido = objectMapper.readValue(archivo.toFile(), Manifiesto.class);
+            manifiestos.put(original, leido);
+            return Optional.of(leido);
+        } catch (IOException e) {
+            logger.warn("Manifiesto de variantes ilegible para {}: {}", original.getFileName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    void generarVariantes(Path original) {
+        if (!Files.isRegularFile(original) || manifiesto(original).isPresent()) {
+            return;
+        }
+        String extension = extension(original);
+
+        // Un archivo que no se puede decodificar (dañado, formato real distinto o demasiado
+        // grande) no va a cambiar: se deja un manifiesto sin variantes para no reintentar
+        // la decodificación en cada solicitud
+        BufferedImage imagen;
+        try {
+            imagen = leer(original);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo decodificar la imagen {}: {}", original.getFileName(), e.getMessage());
+            imagen = null;
+        }
+
+        try {
+            Path directorio = directorioVariantes(original);
+            Files.createDirectories(directorio);
+            if (imagen == null) {
+                guardarManifiesto(original, Manifiesto.SOLO_ORIGINAL);
+                return;
+            }
+
+            String formato = extension.equals("png") ? "png" : "jpg";
+            Map<Integer, String> variantes = new TreeMap<>();
+            for (int ancho : anchos) {
+                if (ancho >= imagen.getWidth()) {
+                    break;
+                }
+                String nombre = nombreBase(original) + "-w" + ancho + "." + extension;
+                BufferedImage redimensionada = redimensionar(imagen, ancho, formato.equals("png"));
+                escribir(redimensionada, formato, directorio.resolve(nombre));
+                variantes.put(ancho, nombre);
+            }
+
+            guardarManifiesto(original, new Manifiesto(imagen.getWidth(), imagen.getHeight(), variantes));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudieron generar las variantes de {}: {}", original.getFileName(), e.getMessage());
+        }
+    }
+
+    private void guardarManifiesto(Path original, Manifiesto manifiesto) throws IOException {
+        Path directorio = directorioVariantes(original);
+        Path temporal = Files.createTempFile(directorio, nombreBase(original), ".json.tmp");
+        try {
+            objectMapper.writeValue(temporal.toFile(), manifiesto);
+            mover(temporal, directorio.resolve(original.getFileName() + ".json"));
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        manifiestos.put(original, manifiesto);
+    }
+
+    private static BufferedImage leer(Path original) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            if (entrada == null) {
+                return null;
+            }
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                return null;
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                if ((long) lector.getWidth(0) * lector.getHeight(0) > MAX_PIXELES) {
+                    throw new IOException("imagen demasiado grande para redimensionar");
+                }
+                return lector.read(0);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    // Reducción por pasos de a la mitad (calidad similar a bicúbica con costo bilineal)
+    static BufferedImage redimensionar(BufferedImage imagen, int anchoDestino, boolean conTransparencia) {
+        int tipo = conTransparencia ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int altoDestino = Math.max(1, (int) Math.round((double) imagen.getHeight() * anchoDestino / imagen.getWidth()));
+
+        BufferedImage actual = imagen;
+        int ancho = imagen.getWidth();
+        int alto = imagen.getHeight();
+        do {
+            ancho = Math.max(anchoDestino, ancho / 2);
+            alto = Math.max(altoDestino, alto / 2);
+            BufferedImage paso = new BufferedImage(ancho, alto, tipo);
+            Graphics2D g = paso.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!conTransparencia) {
+                    // JPEG no tiene canal alfa: fondo blanco para PNG/GIF transparentes
+                    g.setColor(java.awt.Color.WHITE);
+                    g.fillRect(0, 0, ancho, alto);
+                }
+                g.drawImage(actual, 0, 0, ancho, alto, null);
+            } finally {
+                g.dispose();
+            }
+            actual = paso;
+        } while (ancho != anchoDestino || alto != altoDestino);
+        return actual;
+    }
+
+    private static void escribir(BufferedImage imagen, String formato, Path destino) throws IOException {
+        Path temporal = Files.createTempFile(destino.getParent(), "variante", ".tmp");
+        try {
+            if (!ImageIO.write(imagen, formato, temporal.toFile())) {
+                throw new IOException("sin escritor ImageIO para " + formato);
+            }
+            mover(temporal, destino);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static void mover(Path temporal, Path destino) throws IOException {
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Path directorioVariantes(Path original) {
+        return original.getParent().resolve(DIRECTORIO_VARIANTES);
+    }
+
+    private static String nombreBase(Path original) {
+        String nombre = original.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        return punto > 0 ? nombre.substring(0, punto) : nombre;
+    }
+
+    private static String extension(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        return punto > 0 ? nombre.substring(punto + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
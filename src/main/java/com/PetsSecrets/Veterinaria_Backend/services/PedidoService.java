@@ -1,21 +1,32 @@
 package com.PetsSecrets.Veterinaria_Backend.services;
 
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoDetalleFila;
 import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoDetalleResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoFila;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoPaginaResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.PedidoCambiadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.ProductoCambiadoEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.*;
 import com.PetsSecrets.Veterinaria_Backend.repositories.PedidoRepository;
-import com.PetsSecrets.Veterinaria_Backend.repositories.PedidoDetalleRepository;
 import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,14 +35,74 @@ import java.util.stream.Collectors;
 public class PedidoService {
 
     private final PedidoRepository pedidoRepository;
-    private final PedidoDetalleRepository pedidoDetalleRepository;
     private final UsuarioRepository usuarioRepository;
     private final CarritoService carritoService;
-    private final ProductoService productoService;
+    private final InventarioService inventarioService;
+    private final CodigoPedidoGenerator codigoPedidoGenerator;
+    private final ApplicationEventPublisher eventPublisher;
 
+    private static final int TAMANO_PAGINA_MAXIMO = 200;
+
+    // Listado paginado para administración en dos fases:
+    // 1) una página de pedidos proyectados a DTO, 2) sus detalles con un único IN (...)
+    @Transactional(readOnly = true)
+    public PedidoPaginaResponse buscarPedidosPaginados(String estado, Integer usuarioId,
+                                                       LocalDate fechaInicio, LocalDate fechaFin,
+                                                       int pagina, int tamano) {
+        Pedido.EstadoPedido estadoEnum = null;
+        if (estado != null && !estado.isBlank()) {
+            try {
+                estadoEnum = Pedido.EstadoPedido.valueOf(estado);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Estado de pedido inválido: " + estado);
+            }
+        }
+        if (fechaInicio != null && fechaFin != null && fechaFin.isBefore(fechaInicio)) {
+            throw new RuntimeException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        int numeroPagina = Math.max(pagina, 0);
+        // Hibernate recibe el offset como int: una página más allá da 400, no un 500
+        ProductoService.inicioDePagina(numeroPagina, limite);
+        Page<PedidoFila> filas = pedidoRepository.findPaginaPedidos(
+                estadoEnum,
+                usuarioId,
+                fechaInicio != null ? fechaInicio.atStartOfDay() : null,
+                fechaFin != null ? fechaFin.plusDays(1).atStartOfDay() : null,
+                PageRequest.of(numeroPagina, limite));
+
+        return PedidoPaginaResponse.builder()
+                .pedidos(conDetalles(filas.getContent()))
+                .pagina(filas.getNumber())
+                .tamano(limite)
+                .totalElementos(filas.getTotalElements())
+                .totalPaginas(filas.getTotalPages())
+                .build();
+    }
+
+    // Contrato original de GET /api/pedidos sin pagina ni tamano: todos los pedidos, los más
+    // recientes primero, con las mismas dos fases que la página
+    @Transactional(readOnly = true)
     public List<PedidoResponse> obtenerTodosLosPedidos() {
-        return pedidoRepository.findAllWithDetalles().stream()
-                .map(this::convertirAPedidoResponse)
+        return conDetalles(pedidoRepository.findPaginaPedidos(null, null, null, null, Pageable.unpaged()).getContent());
+    }
+
+    // Fase 2: detalles de los pedidos con IN (...), en bloques de TAMANO_PAGINA_MAXIMO ids
+    private List<PedidoResponse> conDetalles(List<PedidoFila> filas) {
+        Map<Integer, List<PedidoDetalleResponse>> detallesPorPedido = new HashMap<>();
+        for (int desde = 0; desde < filas.size(); desde += TAMANO_PAGINA_MAXIMO) {
+            List<Integer> ids = filas.subList(desde, Math.min(desde + TAMANO_PAGINA_MAXIMO, filas.size())).stream()
+                    .map(PedidoFila::id)
+                    .collect(Collectors.toList());
+            for (PedidoDetalleFila detalle : pedidoRepository.findDetallesByPedidoIds(ids)) {
+                detallesPorPedido.computeIfAbsent(detalle.pedidoId(), id -> new ArrayList<>())
+                        .add(convertirFilaADetalleResponse(detalle));
+            }
+        }
+
+        return filas.stream()
+                .map(fila -> convertirAPedidoResponse(fila, detallesPorPedido.getOrDefault(fila.id(), new ArrayList<>())))
                 .collect(Collectors.toList());
     }
 
@@ -66,15 +137,15 @@ public class PedidoService {
             throw new RuntimeException("El carrito está vacío");
         }
 
-        // Verificar stock disponible para todos los productos
+        // Descontar stock de todas las líneas en un único batch de UPDATE condicionales;
+        // si falta stock de algún producto se lanza StockInsuficienteException y se revierte todo
+        Map<Integer, Integer> cantidades = new LinkedHashMap<>();
+        Map<Integer, Producto> productos = new LinkedHashMap<>();
         for (CarritoItem item : carrito.getItems()) {
-            Producto producto = item.getProducto();
-            if (producto.getStock() < item.getCantidad()) {
-                throw new RuntimeException("Stock insuficiente para el producto: " + producto.getNombre() + 
-                                         ". Stock disponible: " + producto.getStock() + 
-                                         ", cantidad solicitada: " + item.getCantidad());
-            }
+            cantidades.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+            productos.putIfAbsent(item.getProducto().getId(), item.getProducto());
         }
+        Map<Integer, Integer> stockResultante = inventarioService.descontarStock(cantidades);
 
         // Calcular totales
         BigDecimal subtotal = carrito.getItems().stream()
@@ -86,7 +157,7 @@ public class PedidoService {
 
         // Crear pedido
         Pedido pedido = Pedido.builder()
-                .codigo(generarCodigoPedido())
+                .codigo(codigoPedidoGenerator.generar())
                 .usuario(usuario)
                 .fechaPedido(LocalDateTime.now())
                 .estado(Pedido.EstadoPedido.pendiente)
@@ -101,35 +172,38 @@ public class PedidoService {
                 .fechaEntrega(request.getFechaEntrega())
                 .build();
 
-        Pedido pedidoGuardado = pedidoRepository.save(pedido);
-
-        // Crear detalles del pedido y actualizar stock
-        List<PedidoDetalle> detallesList = new ArrayList<>();
+        // Crear detalles del pedido; se insertan en cascada con el pedido y en batch al hacer flush
+        List<PedidoDetalle> detallesList = new ArrayList<>(carrito.getItems().size());
+        long unidades = 0;
         for (CarritoItem item : carrito.getItems()) {
-            PedidoDetalle detalle = PedidoDetalle.builder()
-                    .pedido(pedidoGuardado)
+            detallesList.add(PedidoDetalle.builder()
+                    .pedido(pedido)
                     .producto(item.getProducto())
                     .cantidad(item.getCantidad())
                     .precioUnitario(item.getPrecioUnitario())
                     .subtotal(item.getSubtotal())
-                    .build();
+                    .build());
+            unidades += item.getCantidad();
+        }
+        pedido.setDetalles(detallesList);
 
-            PedidoDetalle detalleGuardado = pedidoDetalleRepository.save(detalle);
-            detallesList.add(detalleGuardado);
+        Pedido pedidoGuardado = pedidoRepository.save(pedido);
 
-            // Actualizar stock del producto
-            Producto producto = item.getProducto();
-            producto.setStock(producto.getStock() - item.getCantidad());
-            productoService.obtenerProductoPorIdInterno(producto.getId()); // Para guardar cambios
-        }
+        cantidades.forEach((productoId, cantidad) -> {
+            Producto producto = productos.get(productoId);
+            int stockNuevo = stockResultante.get(productoId);
+            eventPublisher.publishEvent(new ProductoCambiadoEvent(
+                    productoId, stockNuevo + cantidad, producto.getPrecio(), stockNuevo, producto.getPrecio()));
+        });
         
-        // Asociar los detalles al pedido
-        pedidoGuardado.setDetalles(detallesList);
-
         // Limpiar carrito
         carritoService.vaciarCarrito(usuarioId);
 
-        return convertirAPedidoResponse(pedidoRepository.findByIdWithDetalles(pedidoGuardado.getId()).get());
+        eventPublisher.publishEvent(new PedidoCambiadoEvent(
+                pedidoGuardado.getId(), null, Pedido.EstadoPedido.pendiente, total, unidades));
+
+        // El pedido en memoria ya tiene usuario, detalles y productos cargados
+        return convertirAPedidoResponse(pedidoGuardado);
     }
 
     public PedidoResponse actualizarEstadoPedido(Integer id, String nuevoEstado) {
@@ -138,8 +212,11 @@ public class PedidoService {
 
         try {
             Pedido.EstadoPedido estado = Pedido.EstadoPedido.valueOf(nuevoEstado);
+            Pedido.EstadoPedido estadoAnterior = pedido.getEstado();
             pedido.setEstado(estado);
             Pedido pedidoActualizado = pedidoRepository.save(pedido);
+            eventPublisher.publishEvent(new PedidoCambiadoEvent(
+                    id, estadoAnterior, estado, pedidoActualizado.getTotal(), contarUnidades(pedidoActualizado, estadoAnterior, estado)));
             return convertirAPedidoResponse(pedidoActualizado);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Estado de pedido inválido: " + nuevoEstado);
@@ -172,12 +249,16 @@ public class PedidoService {
         }
     }
 
-    private String generarCodigoPedido() {
-        String codigo;
-        do {
-            codigo = "PED-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (pedidoRepository.findByCodigo(codigo).isPresent());
-        return codigo;
+    // Unidades del pedido; solo se cargan los detalles si el cambio entra o sale de "entregado"
+    private long contarUnidades(Pedido pedido, Pedido.EstadoPedido anterior, Pedido.EstadoPedido nuevo) {
+        if (anterior == nuevo
+                || (anterior != Pedido.EstadoPedido.entregado && nuevo != Pedido.EstadoPedido.entregado)
+                || pedido.getDetalles() == null) {
+            return 0;
+        }
+        return pedido.getDetalles().stream()
+                .mapToLong(PedidoDetalle::getCantidad)
+                .sum();
     }
 
     private PedidoResponse convertirAPedidoResponse(Pedido pedido) {
@@ -208,6 +289,40 @@ public class PedidoService {
                 .build();
     }
 
+    private PedidoResponse convertirAPedidoResponse(PedidoFila fila, List<PedidoDetalleResponse> detalles) {
+        return PedidoResponse.builder()
+                .id(fila.id())
+                .codigo(fila.codigo())
+                .usuarioId(fila.usuarioId())
+                .usuarioNombre(fila.usuarioNombre())
+                .usuarioEmail(fila.usuarioEmail())
+                .fechaPedido(fila.fechaPedido())
+                .estado(fila.estado().toString())
+                .subtotal(fila.subtotal())
+                .envio(fila.envio())
+                .total(fila.total())
+                .direccion(fila.direccion())
+                .ciudad(fila.ciudad())
+                .codigoPostal(fila.codigoPostal())
+                .telefonoContacto(fila.telefonoContacto())
+                .metodoPago(fila.metodoPago() != null ? fila.metodoPago().toString() : null)
+                .fechaEntrega(fila.fechaEntrega())
+                .detalles(detalles)
+                .build();
+    }
+
+    private PedidoDetalleResponse convertirFilaADetalleResponse(PedidoDetalleFila fila) {
+        return PedidoDetalleResponse.builder()
+                .id(fila.id())
+                .productoId(fila.productoId())
+                .productoNombre(fila.productoNombre())
+                .productoImagenUrl(fila.productoImagenUrl())
+                .cantidad(fila.cantidad())
+                .precioUnitario(fila.precioUnitario())
+                .subtotal(fila.subtotal())
+                .build();
+    }
+
     private PedidoDetalleResponse convertirAPedidoDetalleResponse(PedidoDetalle detalle) {
         return PedidoDetalleResponse.builder()
                 .id(detalle.getId())
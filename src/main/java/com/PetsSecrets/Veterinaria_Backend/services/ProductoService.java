@@ -1,17 +1,21 @@
 package com.PetsSecrets.Veterinaria_Backend.services;
 
-import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoFacetasResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoPaginaResponse;
 import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.ProductoCambiadoEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.Categoria;
 import com.PetsSecrets.Veterinaria_Backend.models.Producto;
 import com.PetsSecrets.Veterinaria_Backend.repositories.ProductoRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,29 +25,38 @@ public class ProductoService {
 
     private final ProductoRepository productoRepository;
     private final CategoriaService categoriaService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogoCache catalogoCache;
+    private final IndiceBusquedaProductos indiceBusqueda;
 
+    private static final int TAMANO_PAGINA_MAXIMO = 100;
+
+    // Lecturas públicas: primero la instantánea en memoria, la base de datos solo si no está cargada
     public List<ProductoResponse> obtenerTodosLosProductos() {
-        return productoRepository.findAll().stream()
+        return catalogoCache.productos().orElseGet(() -> productoRepository.findAll().stream()
                 .map(this::convertirAProductoResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public List<ProductoResponse> obtenerProductosActivos() {
-        return productoRepository.findByEstadoActivo().stream()
+        return catalogoCache.productosActivos().orElseGet(() -> productoRepository.findByEstadoActivo().stream()
                 .map(this::convertirAProductoResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public ProductoResponse obtenerProductoPorId(Integer id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
-        return convertirAProductoResponse(producto);
+        return catalogoCache.producto(id).orElseGet(() -> {
+            Producto producto = productoRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
+            return convertirAProductoResponse(producto);
+        });
     }
 
     public List<ProductoResponse> obtenerProductosPorCategoria(Integer categoriaId) {
-        return productoRepository.findByCategoriaIdAndEstadoActivo(categoriaId).stream()
-                .map(this::convertirAProductoResponse)
-                .collect(Collectors.toList());
+        return catalogoCache.productosActivosPorCategoria(categoriaId).orElseGet(() ->
+                productoRepository.findByCategoriaIdAndEstadoActivo(categoriaId).stream()
+                        .map(this::convertirAProductoResponse)
+                        .collect(Collectors.toList()));
     }
 
     public ProductoResponse crearProducto(ProductoRequest request) {
@@ -62,6 +75,8 @@ public class ProductoService {
                 .build();
 
         Producto productoGuardado = productoRepository.save(producto);
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(
+                productoGuardado.getId(), 0, 0.0, productoGuardado.getStock(), productoGuardado.getPrecio()));
         return convertirAProductoResponse(productoGuardado);
     }
 
@@ -71,6 +86,8 @@ public class ProductoService {
 
         Categoria categoria = categoriaService.obtenerCategoriaPorIdInterno(request.getCategoriaId());
 
+        int stockAnterior = producto.getStock();
+        double precioAnterior = producto.getPrecio();
         producto.setNombre(request.getNombre());
         producto.setDescripcion(request.getDescripcion());
         producto.setPrecio(request.getPrecio());
@@ -84,6 +101,8 @@ public class ProductoService {
         producto.setCategoria(categoria);
 
         Producto productoActualizado = productoRepository.save(producto);
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(
+                id, stockAnterior, precioAnterior, productoActualizado.getStock(), productoActualizado.getPrecio()));
         return convertirAProductoResponse(productoActualizado);
     }
 
@@ -93,12 +112,19 @@ public class ProductoService {
         
         // Eliminar físicamente el producto de la base de datos
         productoRepository.delete(producto);
+        publicarEliminacion(producto);
     }
 
     public void eliminarProductoPermanente(Integer id) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
         productoRepository.delete(producto);
+        publicarEliminacion(producto);
+    }
+
+    private void publicarEliminacion(Producto producto) {
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(
+                producto.getId(), producto.getStock(), producto.getPrecio(), 0, producto.getPrecio()));
     }
 
     public List<ProductoResponse> buscarProductosPorNombre(String nombre) {
@@ -107,6 +133,94 @@ public class ProductoService {
                 .collect(Collectors.toList());
     }
 
+    // Búsqueda por relevancia en nombre, descripción y categoría (índice en memoria).
+    // Mientras el índice no está cargado se usa la consulta LIKE por nombre.
+    public ProductoPaginaResponse buscarProductos(String consulta, int pagina, int tamano) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new RuntimeException("El texto de búsqueda es requerido");
+        }
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        int numeroPagina = Math.max(pagina, 0);
+        int desde = inicioDePagina(numeroPagina, limite);
+
+        List<ProductoResponse> productos;
+        long total;
+        if (indiceBusqueda.estaListo()) {
+            IndiceBusquedaProductos.Resultado resultado = indiceBusqueda.buscar(consulta, desde, limite);
+            productos = resultado.productos();
+            total = resultado.total();
+        } else {
+            List<ProductoResponse> coincidencias = productoRepository.findByNombreContaining(consulta.trim()).stream()
+                    .filter(producto -> producto.getEstado() == Producto.EstadoProducto.activo)
+                    .map(this::convertirAProductoResponse)
+                    .collect(Collectors.toList());
+            int inicio = Math.min(desde, coincidencias.size());
+            productos = coincidencias.subList(inicio, inicio + Math.min(limite, coincidencias.size() - inicio));
+            total = coincidencias.size();
+        }
+
+        return ProductoPaginaResponse.builder()
+                .productos(productos)
+                .pagina(numeroPagina)
+                .tamano(limite)
+                .totalElementos(total)
+                .totalPaginas((int) ((total + limite - 1) / limite))
+                .build();
+    }
+
+    // Navegación por facetas (categoría, rango de precio, stock, estado) sin consultas SQL
+    public ProductoFacetasResponse buscarPorFacetas(Set<Integer> categorias, Set<String> rangosPrecio,
+                                                    Boolean enStock, String estado, int pagina, int tamano) {
+        if (rangosPrecio != null) {
+            for (String rango : rangosPrecio) {
+                if (!FacetasCatalogo.rangosPrecio().contains(rango)) {
+                    throw new RuntimeException("Rango de precio inválido: " + rango
+                            + ". Rangos permitidos: " + String.join(", ", FacetasCatalogo.rangosPrecio()));
+                }
+            }
+        }
+        String estadoFiltro = estado != null && !estado.isBlank() ? estado : Producto.EstadoProducto.activo.name();
+        try {
+            Producto.EstadoProducto.valueOf(estadoFiltro);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Estado no válido: " + estadoFiltro + ". Estados permitidos: activo, inactivo");
+        }
+
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        int numeroPagina = Math.max(pagina, 0);
+
+        // Sin instantánea cargada las facetas se calculan sobre una lectura completa
+        FacetasCatalogo facetas = catalogoCache.facetas().orElseGet(() -> FacetasCatalogo.construir(
+                productoRepository.findAllConCategoria().stream()
+                        .map(this::convertirAProductoResponse)
+                        .collect(Collectors.toList())));
+        FacetasCatalogo.Resultado resultado = facetas.filtrar(
+                new FacetasCatalogo.Filtro(categorias, rangosPrecio, enStock, estadoFiltro),
+                inicioDePagina(numeroPagina, limite), limite);
+
+        return ProductoFacetasResponse.builder()
+                .productos(resultado.productos())
+                .pagina(numeroPagina)
+                .tamano(limite)
+                .totalElementos(resultado.total())
+                .totalPaginas((int) ((resultado.total() + limite - 1) / limite))
+                .categorias(resultado.categorias())
+                .rangosPrecio(resultado.rangosPrecio())
+                .stock(resultado.stock())
+                .estados(resultado.estados())
+                .build();
+    }
+
+    // Posición del primer elemento de la página; si no cabe en un int la página no existe (400).
+    // También la usa PedidoService.
+    static int inicioDePagina(int numeroPagina, int limite) {
+        try {
+            return Math.multiplyExact(numeroPagina, limite);
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Número de página fuera de rango: " + numeroPagina);
+        }
+    }
+
     public List<ProductoResponse> buscarProductosPorRangoPrecio(double precioMin, double precioMax) {
         return productoRepository.findByPrecioBetween(precioMin, precioMax).stream()
                 .map(this::convertirAProductoResponse)
@@ -123,8 +237,11 @@ public class ProductoService {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
         
+        int stockAnterior = producto.getStock();
         producto.setStock(nuevoStock);
         Producto productoActualizado = productoRepository.save(producto);
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(
+                id, stockAnterior, producto.getPrecio(), nuevoStock, producto.getPrecio()));
         return convertirAProductoResponse(productoActualizado);
     }
 
@@ -135,6 +252,8 @@ public class ProductoService {
         try {
             producto.setEstado(Producto.EstadoProducto.valueOf(nuevoEstado));
             Producto productoActualizado = productoRepository.save(producto);
+            eventPublisher.publishEvent(new ProductoCambiadoEvent(
+                    id, producto.getStock(), producto.getPrecio(), producto.getStock(), producto.getPrecio()));
             return convertirAProductoResponse(productoActualizado);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Estado no válido: " + nuevoEstado + ". Estados permitidos: activo, inactivo");
@@ -148,22 +267,6 @@ public class ProductoService {
     }
 
     private ProductoResponse convertirAProductoResponse(Producto producto) {
-        CategoriaResponse categoriaResponse = CategoriaResponse.builder()
-                .id(producto.getCategoria().getId())
-                .nombre(producto.getCategoria().getNombre())
-                .descripcion(producto.getCategoria().getDescripcion())
-                .build();
-
-        return ProductoResponse.builder()
-                .id(producto.getId())
-                .nombre(producto.getNombre())
-                .descripcion(producto.getDescripcion())
-                .precio(producto.getPrecio())
-                .stock(producto.getStock())
-                .imagenUrl(producto.getImagenUrl())
-                .estado(producto.getEstado().toString())
-                .fechaCreacion(producto.getFechaCreacion())
-                .categoria(categoriaResponse)
-                .build();
+        return CatalogoCache.convertir(producto, CatalogoCache.convertir(producto.getCategoria()));
     }
 }
\ No newline at end of file
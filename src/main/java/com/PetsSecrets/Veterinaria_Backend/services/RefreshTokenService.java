@@ -0,0 +1,165 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioCredencialesCambiadasEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioEliminadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.models.RefreshToken;
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import com.PetsSecrets.Veterinaria_Backend.repositories.RefreshTokenRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+// Refresh tokens opacos y rotativos.
+// - Cada uso entrega un token nuevo de la misma familia y marca el anterior como usado.
+// - Presentar un token ya usado revoca la familia entera (reuso = token filtrado), salvo dentro
+//   del margen de gracia y mientras su sucesor no se haya usado: son solicitudes simultáneas del
+//   mismo cliente y reciben otro token de la familia (solo se guarda el hash, no se puede
+//   devolver el mismo sucesor).
+// - Cambiar email, rol o contraseña, o eliminar el usuario, revoca todos sus refresh tokens.
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UsuarioRepository usuarioRepository;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${app.jwt.refresh.expiracion-dias:30}")
+    private long expiracionDias;
+
+    @Value("${app.jwt.refresh.gracia-segundos:10}")
+    private long graciaSegundos;
+
+    public record Rotacion(Usuario usuario, String refreshToken) {
+    }
+
+    // Inicia una familia nueva (login)
+    @Transactional
+    public String emitir(Integer usuarioId) {
+        return crear(usuarioId, UUID.randomUUID().toString());
+    }
+
+    // Vacío si el token no existe, expiró o ya se usó. No lanza excepción para que la
+    // revocación de la familia se confirme aunque la solicitud termine en 401.
+    @Transactional
+    public Optional<Rotacion> rotar(String token) {
+        Optional<RefreshToken> encontrado = refreshTokenRepository.findParaRotar(huella(token));
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken actual = encontrado.get();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        if (actual.getUsadoEn() != null) {
+            if (esRotacionSimultanea(actual, ahora)) {
+                String nuevo = crear(actual.getUsuarioId(), actual.getFamilia());
+                actual.setReemplazadoPor(huella(nuevo));
+                logger.debug("Rotación simultánea del refresh token del usuario {}", actual.getUsuarioId());
+                return usuarioRepository.findById(actual.getUsuarioId())
+                        .map(usuario -> new Rotacion(usuario, nuevo));
+            }
+            int revocados = refreshTokenRepository.deleteByFamilia(actual.getFamilia());
+            logger.warn("Reuso de refresh token del usuario {}: familia revocada ({} tokens)",
+                    actual.getUsuarioId(), revocados);
+            return Optional.empty();
+        }
+        if (actual.getExpiraEn().isBefore(ahora)) {
+            refreshTokenRepository.delete(actual);
+            return Optional.empty();
+        }
+        Optional<Usuario> usuario = usuarioRepository.findById(actual.getUsuarioId());
+        if (usuario.isEmpty()) {
+            refreshTokenRepository.deleteByFamilia(actual.getFamilia());
+            return Optional.empty();
+        }
+
+        // La fila usada se conserva hasta su expiración para detectar el reuso
+        actual.setUsadoEn(ahora);
+        String nuevo = crear(actual.getUsuarioId(), actual.getFamilia());
+        actual.setReemplazadoPor(huella(nuevo));
+        return Optional.of(new Rotacion(usuario.get(), nuevo));
+    }
+
+    // La fila está bloqueada (findParaRotar): las solicitudes simultáneas llegan aquí de una en una
+    private boolean esRotacionSimultanea(RefreshToken actual, LocalDateTime ahora) {
+        if (actual.getReemplazadoPor() == null || actual.getUsadoEn().isBefore(ahora.minusSeconds(graciaSegundos))
+                || actual.getExpiraEn().isBefore(ahora)) {
+            return false;
+        }
+        return refreshTokenRepository.findById(actual.getReemplazadoPor())
+                .map(sucesor -> sucesor.getUsadoEn() == null)
+                .orElse(false);
+    }
+
+    // Logout: revoca la familia del token presentado
+    @Transactional
+    public void revocar(String token) {
+        refreshTokenRepository.findById(huella(token))
+                .ifPresent(actual -> refreshTokenRepository.deleteByFamilia(actual.getFamilia()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCredencialesCambiadas(UsuarioCredencialesCambiadasEvent event) {
+        refreshTokenRepository.deleteByUsuarioId(event.usuarioId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUsuarioEliminado(UsuarioEliminadoEvent event) {
+        refreshTokenRepository.deleteByUsuarioId(event.usuarioId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.limpieza-ms:3600000}")
+    public void limpiarExpirados() {
+        int eliminados = refreshTokenRepository.deleteExpirados(LocalDateTime.now());
+        if (eliminados > 0) {
+            logger.info("Refresh tokens expirados eliminados: {}", eliminados);
+        }
+    }
+
+    private String crear(Integer usuarioId, String familia) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .id(huella(token))
+                .usuarioId(usuarioId)
+                .familia(familia)
+                .creadoEn(ahora)
+                .expiraEn(ahora.plusDays(expiracionDias))
+                .build());
+        return token;
+    }
+
+    private static String huella(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
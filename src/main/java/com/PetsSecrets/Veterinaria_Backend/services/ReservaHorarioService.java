@@ -0,0 +1,107 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+import com.PetsSecrets.Veterinaria_Backend.models.ReservaHorario;
+import com.PetsSecrets.Veterinaria_Backend.repositories.ReservaHorarioRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@RequiredArgsConstructor
+public class ReservaHorarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaHorarioService.class);
+
+    private static final int IDS_EN_LOG = 50;
+
+    private final ReservaHorarioRepository reservaHorarioRepository;
+    private final MeterRegistry meterRegistry;
+
+    // Citas activas sin reserva por compartir horario, según la última completación
+    private final AtomicInteger citasDuplicadas = new AtomicInteger();
+
+    @PostConstruct
+    void registrarMetricas() {
+        Gauge.builder("citas.reservas.duplicadas", citasDuplicadas, AtomicInteger::get)
+                .description("Citas activas que comparten horario con otra y no tienen reserva")
+                .register(meterRegistry);
+    }
+
+    // Crear, mover o liberar la reserva de horario de una cita.
+    // Debe llamarse dentro de la transacción que guarda la cita: si el horario ya
+    // está tomado, la restricción UNIQUE falla y toda la transacción se revierte.
+    @Transactional
+    public void sincronizarReserva(Cita cita) {
+        sincronizarReserva(cita, false);
+    }
+
+    // mismoHorario: la cita conserva su sede, fecha y hora (solo cambia estado o notas).
+    // Una cita duplicada anterior a reservas_horario no tiene reserva y su horario lo tiene
+    // otra; en ese caso se deja como está en vez de rechazar el cambio de estado.
+    @Transactional
+    public void sincronizarReserva(Cita cita, boolean mismoHorario) {
+        if (cita.getEstado() == Cita.EstadoCita.cancelada) {
+            reservaHorarioRepository.deleteByCitaId(cita.getId());
+            return;
+        }
+
+        ReservaHorario existente = reservaHorarioRepository.findByCitaId(cita.getId()).orElse(null);
+        if (existente == null && mismoHorario && reservaHorarioRepository.existsBySedeIdAndFechaAndHora(
+                cita.getSede().getId(), cita.getFecha(), cita.getHora())) {
+            logger.warn("Cita {} sin reserva: comparte horario con otra cita ({} {} sede {}); se actualiza sin reservar",
+                    cita.getId(), cita.getFecha(), cita.getHora(), cita.getSede().getId());
+            return;
+        }
+        ReservaHorario reserva = existente != null
+                ? existente
+                : ReservaHorario.builder().citaId(cita.getId()).build();
+
+        reserva.setSedeId(cita.getSede().getId());
+        reserva.setFecha(cita.getFecha());
+        reserva.setHora(cita.getHora());
+
+        try {
+            reservaHorarioRepository.saveAndFlush(reserva);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("El horario ya está ocupado");
+        } catch (PessimisticLockingFailureException e) {
+            throw new RuntimeException("El horario está siendo reservado, intenta nuevamente");
+        }
+    }
+
+    // Crear reservas para citas activas que aún no la tienen (datos previos a esta tabla).
+    // INSERT IGNORE se salta las citas que comparten horario con otra más antigua: se
+    // informan en el log y en la métrica citas.reservas.duplicadas para revisarlas a mano.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void completarReservasExistentes() {
+        LocalDate desde = LocalDate.now();
+        int creadas = reservaHorarioRepository.completarReservasDesde(desde);
+        if (creadas > 0) {
+            logger.info("Reservas de horario completadas para {} citas existentes", creadas);
+        }
+
+        List<Integer> duplicadas = reservaHorarioRepository.findCitasActivasSinReservaDesde(desde);
+        citasDuplicadas.set(duplicadas.size());
+        if (!duplicadas.isEmpty()) {
+            logger.warn("{} citas activas comparten horario con otra y quedaron sin reserva{}: {}",
+                    duplicadas.size(),
+                    duplicadas.size() > IDS_EN_LOG ? " (primeras " + IDS_EN_LOG + ")" : "",
+                    duplicadas.subList(0, Math.min(IDS_EN_LOG, duplicadas.size())));
+        }
+    }
+}
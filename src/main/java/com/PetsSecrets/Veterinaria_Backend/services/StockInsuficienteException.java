@@ -0,0 +1,25 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Lanzada cuando una o más líneas del pedido no tienen stock suficiente.
+// Incluye todos los productos faltantes, no solo el primero.
+public class StockInsuficienteException extends RuntimeException {
+
+    private final List<Faltante> faltantes;
+
+    public StockInsuficienteException(List<Faltante> faltantes) {
+        super("Stock insuficiente para: " + faltantes.stream()
+                .map(f -> f.nombre() + " (disponible: " + f.disponible() + ", solicitado: " + f.solicitado() + ")")
+                .collect(Collectors.joining(", ")));
+        this.faltantes = List.copyOf(faltantes);
+    }
+
+    public List<Faltante> getFaltantes() {
+        return faltantes;
+    }
+
+    public record Faltante(Integer productoId, String nombre, int solicitado, int disponible) {
+    }
+}
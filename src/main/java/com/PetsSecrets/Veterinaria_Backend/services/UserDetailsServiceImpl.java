@@ -1,18 +1,16 @@
 package com.PetsSecrets.Veterinaria_Backend.services;
 
+import com.PetsSecrets.Veterinaria_Backend.jwt.UsuarioPrincipal;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
 import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.Collections;
 
+// Solo lo usa el DaoAuthenticationProvider de SecurityConfig. Las solicitudes autenticadas no
+// pasan por aquí: el principal sale de los claims del token (uid, rol), así que no hay caché.
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
     
@@ -20,15 +18,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     private UsuarioRepository usuarioRepository;
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + email));
-
-        return User.builder()
-                .username(usuario.getEmail())
-                .password(usuario.getPasswordHash())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + usuario.getRol().name().toUpperCase())))
-                .build();
+        return UsuarioPrincipal.conPassword(usuario);
     }
-}
\ No newline at end of file
+}
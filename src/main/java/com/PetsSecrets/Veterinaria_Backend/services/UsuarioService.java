@@ -3,11 +3,17 @@ package com.PetsSecrets.Veterinaria_Backend.services;
 import com.PetsSecrets.Veterinaria_Backend.dtos.LoginRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.RegisterRequest;
 import com.PetsSecrets.Veterinaria_Backend.dtos.UpdateUserRequest;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioCredencialesCambiadasEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioEliminadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioRegistradoEvent;
 import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
 import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -17,13 +23,21 @@ import java.util.Optional;
 @Service
 @Transactional
 public class UsuarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioService.class);
     
     @Autowired
     private UsuarioRepository usuarioRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private HashContrasenaService hashContrasenaService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
+    // Sin transacción propia: BCrypt (cola de hasta espera-ms más el hash) no debe retener una
+    // conexión del pool. Cada consulta y el save usan la transacción corta del repositorio.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Usuario registrarUsuario(RegisterRequest registerRequest) {
         // Verificar si el email ya existe
         if (usuarioRepository.existsByEmail(registerRequest.getEmail())) {
@@ -39,7 +53,7 @@ public class UsuarioService {
                 rolUsuario = Usuario.Rol.valueOf(registerRequest.getRol().toLowerCase());
             } catch (IllegalArgumentException e) {
                 // Si el rol no es válido, usar el valor por defecto
-                System.out.println("Rol inválido proporcionado: " + registerRequest.getRol() + ", usando 'usuario' por defecto");
+                logger.debug("Rol inválido proporcionado: {}, usando 'usuario' por defecto", registerRequest.getRol());
             }
         }
         
@@ -48,23 +62,32 @@ public class UsuarioService {
                 .nombreCompleto(registerRequest.getNombreCompleto())
                 .email(registerRequest.getEmail())
                 .telefono(registerRequest.getTelefono())
-                .passwordHash(passwordEncoder.encode(registerRequest.getPassword()))
+                .passwordHash(hashContrasenaService.codificar(registerRequest.getPassword()))
                 .rol(rolUsuario)
                 .fechaRegistro(LocalDateTime.now())
                 .build();
         
-        return usuarioRepository.save(usuario);
+        Usuario usuarioGuardado = usuarioRepository.save(usuario);
+        eventPublisher.publishEvent(new UsuarioRegistradoEvent(usuarioGuardado.getId()));
+        return usuarioGuardado;
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Usuario> autenticarUsuario(LoginRequest loginRequest) {
         Optional<Usuario> usuario = usuarioRepository.findByEmail(loginRequest.getEmail());
         
-        if (usuario.isPresent() && 
-            passwordEncoder.matches(loginRequest.getPassword(), usuario.get().getPasswordHash())) {
-            return usuario;
+        // Sin usuario también se verifica (contra un hash ficticio) para no revelar qué emails existen
+        String hash = usuario.map(Usuario::getPasswordHash).orElse(null);
+        if (!hashContrasenaService.coincide(loginRequest.getPassword(), hash)) {
+            return Optional.empty();
         }
-        
-        return Optional.empty();
+
+        // Hashes con un costo menor al configurado se rehacen con la contraseña ya verificada
+        if (hashContrasenaService.requiereActualizacion(hash)) {
+            usuario.get().setPasswordHash(hashContrasenaService.codificar(loginRequest.getPassword()));
+            usuarioRepository.save(usuario.get());
+        }
+        return usuario;
     }
     
     public Optional<Usuario> buscarPorEmail(String email) {
@@ -79,13 +102,14 @@ public class UsuarioService {
                     .nombreCompleto("Administrador")
                     .email(adminEmail)
                     .telefono("999999999")
-                    .passwordHash(passwordEncoder.encode("admin123"))
+                    .passwordHash(hashContrasenaService.codificar("admin123"))
                     .rol(Usuario.Rol.admin)
                     .fechaRegistro(LocalDateTime.now())
                     .build();
             
             usuarioRepository.save(admin);
-            System.out.println("Usuario administrador creado por defecto");
+            eventPublisher.publishEvent(new UsuarioRegistradoEvent(admin.getId()));
+            logger.info("Usuario administrador creado por defecto");
         }
     }
     
@@ -109,6 +133,10 @@ public class UsuarioService {
             throw new RuntimeException("El email ya está en uso por otro usuario");
         }
         
+        // El token lleva email y rol: si cambian (o cambia la contraseña) los tokens anteriores se revocan
+        boolean credencialesCambiadas = !usuario.getEmail().equals(request.getEmail())
+                || usuario.getRol() != request.getRol();
+
         usuario.setNombreCompleto(request.getNombreCompleto());
         usuario.setEmail(request.getEmail());
         usuario.setTelefono(request.getTelefono());
@@ -116,10 +144,19 @@ public class UsuarioService {
         
         // Solo actualizar contraseña si se proporciona
         if (request.getPassword() != null && !request.getPassword().trim().isEmpty()) {
-            usuario.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+            usuario.setPasswordHash(hashContrasenaService.codificar(request.getPassword()));
+            credencialesCambiadas = true;
+        }
+        if (credencialesCambiadas) {
+            usuario.setVersionCredenciales(usuario.getVersionCredenciales() + 1);
+            usuario.setCredencialesCambiadasEn(LocalDateTime.now());
         }
         
-        return usuarioRepository.save(usuario);
+        Usuario actualizado = usuarioRepository.save(usuario);
+        if (credencialesCambiadas) {
+            eventPublisher.publishEvent(new UsuarioCredencialesCambiadasEvent(id, actualizado.getVersionCredenciales()));
+        }
+        return actualizado;
     }
     
     public void eliminarUsuario(Integer id) {
@@ -132,5 +169,6 @@ public class UsuarioService {
         }
         
         usuarioRepository.delete(usuario);
+        eventPublisher.publishEvent(new UsuarioEliminadoEvent(id));
     }
 }
\ No newline at end of file
@@ -3,7 +3,7 @@ package com.PetsSecrets.Veterinaria_Backend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.pedidos.nodo-id=0")
 class VeterinariaBackendApplicationTests {
 
 	@Test
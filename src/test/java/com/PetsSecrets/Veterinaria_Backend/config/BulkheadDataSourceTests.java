@@ -0,0 +1,237 @@
+package com.PetsSecrets.Veterinaria_Backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadDataSourceTests {
+
+    private static final int LIMITE = 10;
+    private static final int RESERVA = 2;
+
+    private final AtomicInteger abiertas = new AtomicInteger();
+    private final AtomicInteger maximoAbiertas = new AtomicInteger();
+
+    @Test
+    void nuncaPrestaMasConexionesQueElLimite() throws Exception {
+        BulkheadDataSource bulkhead = new BulkheadDataSource(origen(), LIMITE, RESERVA, 10_000);
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                tareas.add(executor.submit(() -> {
+                    try (Connection conexion = bulkhead.getConnection()) {
+                        conexion.isValid(0);
+                        dormir(2);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Las primeras conexiones dejan libre la reserva
+        assertTrue(maximoAbiertas.get() <= LIMITE - RESERVA, "Conexiones simultáneas: " + maximoAbiertas.get());
+        assertEquals(LIMITE - RESERVA, bulkhead.getDisponibles());
+        assertEquals(0, bulkhead.getRechazos());
+    }
+
+    @Test
+    void sinPermisosFallaRapidoYCerrarDosVecesLiberaUnaSola() throws SQLException {
+        BulkheadDataSource bulkhead = new BulkheadDataSource(origen(), 2, 1, 50);
+        Connection conexion = bulkhead.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> enOtroHilo(bulkhead));
+        assertEquals(1, bulkhead.getRechazos());
+
+        conexion.close();
+        conexion.close();
+        assertEquals(1, bulkhead.getDisponibles());
+        bulkhead.getConnection().close();
+    }
+
+    // Con el bulkhead anterior (un permiso por conexión) los dos hilos esperaban su segunda
+    // conexión con todos los permisos tomados y fallaban al agotar la espera
+    @Test
+    void laSegundaConexionDelMismoHiloNoEsperaPermiso() throws Exception {
+        BulkheadDataSource bulkhead = new BulkheadDataSource(origen(), 4, 2, 50);
+        CyclicBarrier primerasAbiertas = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                tareas.add(executor.submit(() -> {
+                    try (Connection propia = bulkhead.getConnection()) {
+                        primerasAbiertas.await(5, TimeUnit.SECONDS);
+                        assertEquals(0, bulkhead.getDisponibles());
+                        try (Connection segunda = bulkhead.getConnection()) {
+                            segunda.isValid(0);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, bulkhead.getRechazos());
+        assertEquals(4, maximoAbiertas.get());
+        assertEquals(2, bulkhead.getDisponibles());
+    }
+
+    // Tamaño de application.properties contra un pool acotado como Hikari: todas las solicitudes
+    // piden a la vez su segunda conexión (bloque nuevo de ids de pedido_detalles) y ninguna falla
+    @Test
+    void elPoolAlcanzaParaLaSegundaConexionDeCadaSolicitud() throws Exception {
+        Semaphore pool = new Semaphore(LIMITE);
+        BulkheadDataSource bulkhead = new BulkheadDataSource(origenAcotado(pool), LIMITE, RESERVA, 2_000);
+        CyclicBarrier primerasAbiertas = new CyclicBarrier(LIMITE - RESERVA);
+        ExecutorService executor = Executors.newFixedThreadPool(40);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                boolean primeraRonda = i < LIMITE - RESERVA;
+                tareas.add(executor.submit(() -> {
+                    try (Connection checkout = bulkhead.getConnection()) {
+                        if (primeraRonda) {
+                            primerasAbiertas.await(5, TimeUnit.SECONDS);
+                        }
+                        try (Connection generador = bulkhead.getConnection()) {
+                            generador.isValid(0);
+                            dormir(1);
+                        }
+                        checkout.isValid(0);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, bulkhead.getRechazos());
+        assertTrue(maximoAbiertas.get() <= LIMITE, "Conexiones simultáneas: " + maximoAbiertas.get());
+        assertEquals(LIMITE, pool.availablePermits());
+    }
+
+    @Test
+    void cerrarDesdeOtroHiloDevuelveElPermisoDelHiloQueLaAbrio() throws Exception {
+        BulkheadDataSource bulkhead = new BulkheadDataSource(origen(), 3, 1, 50);
+        Connection conexion = bulkhead.getConnection();
+
+        Thread cierre = new Thread(() -> {
+            try {
+                conexion.close();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        cierre.start();
+        cierre.join();
+        assertEquals(2, bulkhead.getDisponibles());
+
+        // Sin conexiones abiertas, la siguiente de este hilo vuelve a tomar permiso
+        try (Connection otra = bulkhead.getConnection()) {
+            assertEquals(1, bulkhead.getDisponibles());
+        }
+    }
+
+    @Test
+    void laReservaDebeDejarPermisos() {
+        assertThrows(IllegalArgumentException.class, () -> new BulkheadDataSource(origen(), 2, 2, 50));
+    }
+
+    private static void enOtroHilo(BulkheadDataSource bulkhead) throws Exception {
+        CountDownLatch listo = new CountDownLatch(1);
+        Exception[] error = new Exception[1];
+        Thread hilo = new Thread(() -> {
+            try {
+                bulkhead.getConnection().close();
+            } catch (Exception e) {
+                error[0] = e;
+            } finally {
+                listo.countDown();
+            }
+        });
+        hilo.start();
+        listo.await(5, TimeUnit.SECONDS);
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    // DataSource de prueba que cuenta las conexiones abiertas a la vez
+    private DataSource origen() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, metodo, args) -> {
+                    if (!metodo.getName().equals("getConnection")) {
+                        throw new UnsupportedOperationException(metodo.getName());
+                    }
+                    maximoAbiertas.accumulateAndGet(abiertas.incrementAndGet(), Math::max);
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                            (conexion, llamada, argumentos) -> {
+                                if (llamada.getName().equals("close")) {
+                                    abiertas.decrementAndGet();
+                                }
+                                return llamada.getReturnType() == boolean.class ? Boolean.TRUE : null;
+                            });
+                });
+    }
+
+    // Como Hikari: como mucho pool.permits conexiones, espera hasta 2 s y después falla
+    private DataSource origenAcotado(Semaphore pool) {
+        DataSource origen = origen();
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, metodo, args) -> {
+                    if (!pool.tryAcquire(2, TimeUnit.SECONDS)) {
+                        throw new SQLTransientConnectionException("Pool agotado");
+                    }
+                    Connection conexion = origen.getConnection();
+                    AtomicBoolean devuelta = new AtomicBoolean();
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                            (proxyConexion, llamada, argumentos) -> {
+                                if (llamada.getName().equals("close") && devuelta.compareAndSet(false, true)) {
+                                    conexion.close();
+                                    pool.release();
+                                    return null;
+                                }
+                                return llamada.invoke(conexion, argumentos);
+                            });
+                });
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
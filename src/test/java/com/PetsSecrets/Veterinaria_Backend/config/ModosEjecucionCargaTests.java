@@ -0,0 +1,126 @@
+package com.PetsSecrets.Veterinaria_Backend.config;
+
+import com.PetsSecrets.Veterinaria_Backend.VeterinariaBackendApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Prueba de carga de la aplicación completa con hilos de plataforma y con hilos virtuales
+// (spring.threads.virtual.enabled false/true), con el bulkhead activo en ambos modos.
+// Fuera de la suite por defecto: mvn -Pbenchmark test -Dtest=ModosEjecucionCargaTests
+// Requiere JDK 21 y la base de datos de application.properties, como las demás pruebas @SpringBootTest.
+// Ráfaga mixta: la mitad de las solicitudes consulta la base de datos (/api/servicios); la otra
+// mitad se sirve desde la caché del catálogo (/api/productos/activos).
+@Tag("benchmark")
+class ModosEjecucionCargaTests {
+
+    private static final int SOLICITUDES = 4000;
+    private static final int CLIENTES = 400;
+
+    @Test
+    void comparaHilosDePlataformaConHilosVirtuales() throws Exception {
+        assertTrue(Runtime.version().feature() >= 21, "Los hilos virtuales requieren JDK 21");
+        for (boolean virtuales : List.of(false, true)) {
+            try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(VeterinariaBackendApplication.class)
+                    .properties("server.port=0", "app.pedidos.nodo-id=0", "spring.threads.virtual.enabled=" + virtuales)
+                    .run()) {
+                int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+                BulkheadDataSource bulkhead = assertInstanceOf(BulkheadDataSource.class, contexto.getBean(DataSource.class));
+                medir(virtuales ? "virtuales" : "plataforma", puerto, bulkhead);
+            }
+        }
+    }
+
+    private void medir(String modo, int puerto, BulkheadDataSource bulkhead) throws Exception {
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        URI conBd = URI.create("http://localhost:" + puerto + "/api/servicios");
+        URI sinBd = URI.create("http://localhost:" + puerto + "/api/productos/activos");
+        // Calentamiento: carga del catálogo, JIT y conexiones del pool
+        for (int i = 0; i < 50; i++) {
+            enviar(cliente, i % 2 == 0 ? conBd : sinBd);
+        }
+
+        List<Long> latenciasConBd = Collections.synchronizedList(new ArrayList<>());
+        List<Long> latenciasSinBd = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errores = new AtomicInteger();
+        long rechazosAntes = bulkhead.getRechazos();
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        long inicio = System.nanoTime();
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < SOLICITUDES; i++) {
+                boolean usaBd = i % 2 == 0;
+                tareas.add(clientes.submit(() -> {
+                    long enviada = System.nanoTime();
+                    int estado = enviar(cliente, usaBd ? conBd : sinBd);
+                    long latencia = System.nanoTime() - enviada;
+                    if (estado != 200) {
+                        errores.incrementAndGet();
+                    } else if (usaBd) {
+                        latenciasConBd.add(latencia);
+                    } else {
+                        latenciasSinBd.add(latencia);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+        long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        System.out.printf("%-10s %,7.0f solicitudes/s  sin BD p50 %,5d ms p99 %,5d ms  con BD p50 %,5d ms p99 %,5d ms"
+                        + "  errores %d  rechazos del bulkhead %d%n",
+                modo, SOLICITUDES * 1000.0 / totalMs,
+                percentil(latenciasSinBd, 50), percentil(latenciasSinBd, 99),
+                percentil(latenciasConBd, 50), percentil(latenciasConBd, 99),
+                errores.get(), bulkhead.getRechazos() - rechazosAntes);
+
+        // Los rechazos del bulkhead son errores esperados bajo saturación; todo lo demás responde
+        assertEquals(SOLICITUDES / 2, latenciasSinBd.size(), "Solicitudes sin base de datos fallidas");
+        assertEquals(bulkhead.getLimite() - bulkhead.getReserva(), bulkhead.getDisponibles());
+    }
+
+    private static int enviar(HttpClient cliente, URI uri) {
+        try {
+            return cliente.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static long percentil(List<Long> nanos, int percentil) {
+        if (nanos.isEmpty()) {
+            return 0;
+        }
+        List<Long> ordenados = new ArrayList<>(nanos);
+        Collections.sort(ordenados);
+        int indice = Math.min(ordenados.size() - 1, (int) Math.ceil(percentil / 100.0 * ordenados.size()) - 1);
+        return TimeUnit.NANOSECONDS.toMillis(ordenados.get(Math.max(0, indice)));
+    }
+}
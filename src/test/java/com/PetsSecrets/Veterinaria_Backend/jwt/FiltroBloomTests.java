@@ -0,0 +1,78 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FiltroBloomTests {
+
+    private static final int CAPACIDAD = 100_000;
+
+    @Test
+    void sinFalsosNegativosYFalsosPositivosCercaDelObjetivo() {
+        FiltroBloom filtro = new FiltroBloom(CAPACIDAD, 0.01);
+        Set<String> revocados = new HashSet<>();
+        for (int i = 0; i < CAPACIDAD; i++) {
+            String jti = UUID.randomUUID().toString();
+            revocados.add(jti);
+            filtro.agregar(jti);
+        }
+        for (String jti : revocados) {
+            assertTrue(filtro.podriaContener(jti));
+        }
+
+        int pruebas = 200_000;
+        int falsosPositivos = 0;
+        for (int i = 0; i < pruebas; i++) {
+            if (filtro.podriaContener(UUID.randomUUID().toString())) {
+                falsosPositivos++;
+            }
+        }
+        double tasa = falsosPositivos / (double) pruebas;
+        assertTrue(tasa < 0.02, "Tasa de falsos positivos demasiado alta: " + tasa);
+        // Para 1 % bastan ~9,6 bits por elemento (~117 KB con esta capacidad)
+        assertTrue(filtro.numBits() <= CAPACIDAD * 10, "Bits: " + filtro.numBits());
+    }
+
+    // Costo de la comprobación de un token no revocado (el caso de casi todas las solicitudes),
+    // tamaño del filtro y falsos positivos; solo con -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmarkComprobacion() {
+        FiltroBloom filtro = new FiltroBloom(CAPACIDAD, 0.01);
+        for (int i = 0; i < CAPACIDAD / 10; i++) {
+            filtro.agregar(UUID.randomUUID().toString());
+        }
+        List<String> consultas = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            consultas.add(UUID.randomUUID().toString());
+        }
+
+        int repeticiones = 100;
+        long positivos = 0;
+        for (int r = 0; r < repeticiones / 10; r++) {
+            for (String jti : consultas) {
+                positivos += filtro.podriaContener(jti) ? 1 : 0;
+            }
+        }
+        positivos = 0;
+        long inicio = System.nanoTime();
+        for (int r = 0; r < repeticiones; r++) {
+            for (String jti : consultas) {
+                positivos += filtro.podriaContener(jti) ? 1 : 0;
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        System.out.printf("Filtro de Bloom: %,d bits (%,d KB); comprobación de revocación: %.1f ns por token"
+                        + " (%d positivos de %,d)%n",
+                filtro.numBits(), filtro.numBits() / 8 / 1024,
+                nanos / (double) (repeticiones * consultas.size()), positivos, repeticiones * consultas.size());
+    }
+}
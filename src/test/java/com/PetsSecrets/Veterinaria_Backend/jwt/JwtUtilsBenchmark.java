@@ -0,0 +1,83 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Benchmark JMH del costo de autenticar una solicitud:
+// - antes: clave y parser nuevos, y el token se verificaba dos veces (validar + leer email);
+// - parser único sin caché: una verificación HMAC + JSON por solicitud;
+// - con caché: SHA-256 del token y una búsqueda en el mapa.
+// Se lanza desde JwtUtilsTests con -Pbenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private static final String SECRETO = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private JwtUtils conCache;
+    private JwtUtils sinCache;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        conCache = jwtUtils(10_000);
+        sinCache = jwtUtils(0);
+        token = conCache.generateJwtToken(Usuario.builder()
+                .id(7)
+                .email("ana@correo.com")
+                .rol(Usuario.Rol.usuario)
+                .build());
+    }
+
+    @Benchmark
+    public void antes(Blackhole resultado) {
+        for (int i = 0; i < 2; i++) {
+            Jws<Claims> jws = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes()))
+                    .build()
+                    .parseClaimsJws(token);
+            resultado.consume(jws);
+        }
+    }
+
+    @Benchmark
+    public Claims parserUnico() {
+        return sinCache.parseValidClaims(token);
+    }
+
+    @Benchmark
+    public Claims conCache() {
+        return conCache.parseValidClaims(token);
+    }
+
+    private static JwtUtils jwtUtils(int maxEntradasCache) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtils, "maxEntradasCache", maxEntradasCache);
+        ReflectionTestUtils.setField(jwtUtils, "ttlCacheSegundos", 300L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,120 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtUtilsTests {
+
+    private static final String SECRETO = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private static final Usuario USUARIO = Usuario.builder()
+            .id(7)
+            .email("ana@correo.com")
+            .rol(Usuario.Rol.admin)
+            .build();
+
+    @Test
+    void tokenGeneradoLlevaUidYRol() {
+        JwtUtils jwtUtils = jwtUtils(3_600_000L, 10_000);
+
+        Claims claims = jwtUtils.parseValidClaims(jwtUtils.generateJwtToken(USUARIO));
+
+        assertEquals("ana@correo.com", claims.getSubject());
+        assertEquals(7, claims.get(JwtUtils.CLAIM_USUARIO_ID, Integer.class));
+        assertEquals("admin", claims.get(JwtUtils.CLAIM_ROL, String.class));
+    }
+
+    @Test
+    void segundaVerificacionDelMismoTokenSaleDeLaCache() {
+        JwtUtils jwtUtils = jwtUtils(3_600_000L, 10_000);
+        String token = jwtUtils.generateJwtToken(USUARIO);
+
+        assertSame(jwtUtils.parseValidClaims(token), jwtUtils.parseValidClaims(token));
+    }
+
+    @Test
+    void rechazaTokensExpiradosOFirmadosConOtraClave() {
+        JwtUtils jwtUtils = jwtUtils(3_600_000L, 10_000);
+        String otraClave = Jwts.builder()
+                .setSubject("ana@correo.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("otraClave-123456789012345678901234567890".getBytes(StandardCharsets.UTF_8)),
+                        SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtUtils(-1_000L, 10_000).parseValidClaims(jwtUtils(-1_000L, 10_000).generateJwtToken(USUARIO)));
+        assertNull(jwtUtils.parseValidClaims(otraClave));
+        assertNull(jwtUtils.parseValidClaims("no-es-un-token"));
+    }
+
+    @Test
+    void rechazaTokensSinJtiOConVidaMayorQueLaConfigurada() {
+        JwtUtils jwtUtils = jwtUtils(900_000L, 10_000);
+        long ahora = System.currentTimeMillis();
+        String sinJti = firmado(null, ahora, ahora + 60_000);
+        String vidaLarga = firmado("abc", ahora, ahora + 86_400_000);
+        String valido = firmado("abc", ahora, ahora + 900_000);
+
+        assertNull(jwtUtils.parseValidClaims(sinJti));
+        assertNull(jwtUtils.parseValidClaims(vidaLarga));
+        assertNotNull(jwtUtils.parseValidClaims(valido));
+    }
+
+    @Test
+    void laCacheNoExtiendeLaVidaDelToken() throws InterruptedException {
+        JwtUtils jwtUtils = jwtUtils(1_500L, 10_000);
+        String token = jwtUtils.generateJwtToken(USUARIO);
+        assertNotNull(jwtUtils.parseValidClaims(token));
+
+        Thread.sleep(1_600);
+
+        assertNull(jwtUtils.parseValidClaims(token));
+    }
+
+    // Costo por solicitud antes y después (JwtUtilsBenchmark); solo con -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmarkAutenticacionPorSolicitud() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    // Firmado con la clave buena, como lo haría otra instancia con otra configuración
+    private static String firmado(String jti, long emitidoEn, long expiraEn) {
+        return Jwts.builder()
+                .setSubject("ana@correo.com")
+                .setId(jti)
+                .setIssuedAt(new Date(emitidoEn))
+                .setExpiration(new Date(expiraEn))
+                .signWith(Keys.hmacShaKeyFor(SECRETO.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static JwtUtils jwtUtils(long expiracionMs, int maxEntradasCache) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expiracionMs);
+        ReflectionTestUtils.setField(jwtUtils, "maxEntradasCache", maxEntradasCache);
+        ReflectionTestUtils.setField(jwtUtils, "ttlCacheSegundos", 300L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,90 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioCredencialesCambiadasEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioEliminadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Invalidación de los tokens de un usuario sin consultar la base de datos por solicitud
+class RevocacionTokensTests {
+
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final RevocacionTokens revocacion = new RevocacionTokens(usuarioRepository);
+
+    @BeforeEach
+    void cargar() {
+        List<UsuarioRepository.VersionCredenciales> versiones = List.of(version(7, 2), version(8, 0));
+        when(usuarioRepository.findVersionesCredenciales()).thenReturn(versiones);
+        revocacion.cargar();
+    }
+
+    @Test
+    void cambioDeCredencialesRevocaLosTokensAnteriores() {
+        assertFalse(revocacion.estaRevocado(7, 2));
+
+        revocacion.onCredencialesCambiadas(new UsuarioCredencialesCambiadasEvent(7, 3));
+
+        assertTrue(revocacion.estaRevocado(7, 2));
+        assertFalse(revocacion.estaRevocado(7, 3));
+        verify(usuarioRepository, never()).findVersionCredenciales(any());
+    }
+
+    @Test
+    void unaSincronizacionAtrasadaNoDeshaceElCambio() {
+        revocacion.onCredencialesCambiadas(new UsuarioCredencialesCambiadasEvent(7, 3));
+        List<UsuarioRepository.VersionCredenciales> atrasada = List.of(version(7, 2));
+        when(usuarioRepository.findVersionesCambiadasDesde(any())).thenReturn(atrasada);
+
+        revocacion.sincronizar();
+
+        assertTrue(revocacion.estaRevocado(7, 2));
+    }
+
+    @Test
+    void usuarioEliminadoNoVuelveAValidarTokens() {
+        revocacion.onUsuarioEliminado(new UsuarioEliminadoEvent(8));
+        revocacion.recargar();
+
+        assertTrue(revocacion.estaRevocado(8, 0));
+    }
+
+    @Test
+    void usuarioEliminadoEnOtraInstanciaSeDetectaAlRecargar() {
+        assertFalse(revocacion.estaRevocado(8, 0));
+        List<UsuarioRepository.VersionCredenciales> sinElUsuario8 = List.of(version(7, 2));
+        when(usuarioRepository.findVersionesCredenciales()).thenReturn(sinElUsuario8);
+        when(usuarioRepository.findVersionCredenciales(8)).thenReturn(Optional.empty());
+
+        revocacion.recargar();
+
+        assertTrue(revocacion.estaRevocado(8, 0));
+        assertTrue(revocacion.estaRevocado(8, 0));
+        verify(usuarioRepository, times(1)).findVersionCredenciales(8);
+    }
+
+    @Test
+    void tokenSinVersionCuentaComoVersionCero() {
+        assertFalse(revocacion.estaRevocado(8, null));
+        assertTrue(revocacion.estaRevocado(7, null));
+    }
+
+    private static UsuarioRepository.VersionCredenciales version(int id, int version) {
+        UsuarioRepository.VersionCredenciales proyeccion = mock(UsuarioRepository.VersionCredenciales.class);
+        when(proyeccion.getId()).thenReturn(id);
+        when(proyeccion.getVersion()).thenReturn(version);
+        return proyeccion;
+    }
+}
@@ -0,0 +1,92 @@
+package com.PetsSecrets.Veterinaria_Backend.jwt;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VerificadorTokensTests {
+
+    private static final String SECRETO = "mySecretKey12345678901234567890123456789012345678901234567890";
+
+    private static final Usuario USUARIO = Usuario.builder()
+            .id(7)
+            .email("ana@correo.com")
+            .rol(Usuario.Rol.usuario)
+            .versionCredenciales(2)
+            .build();
+
+    private final JwtUtils jwtUtils = jwtUtils();
+    private final RevocacionTokens revocacionTokens = mock(RevocacionTokens.class);
+    private final TokensRevocados tokensRevocados = mock(TokensRevocados.class);
+    private final VerificadorTokens verificador = new VerificadorTokens(jwtUtils, revocacionTokens, tokensRevocados);
+
+    @Test
+    void tokenVigenteEsValidoConSuPrincipal() {
+        VerificadorTokens.Resultado resultado = verificador.verificar(jwtUtils.generateJwtToken(USUARIO));
+
+        assertEquals(VerificadorTokens.Decision.valido, resultado.decision());
+        assertEquals(7, resultado.principal().getId());
+        assertEquals(Usuario.Rol.usuario, resultado.principal().getRol());
+    }
+
+    @Test
+    void tokenCerradoConLogoutEstaRevocado() {
+        String token = jwtUtils.generateJwtToken(USUARIO);
+        String jti = jwtUtils.parseValidClaims(token).getId();
+        when(tokensRevocados.estaRevocado(anyString())).thenAnswer(invocacion -> jti.equals(invocacion.getArgument(0)));
+
+        assertEquals(VerificadorTokens.Decision.revocado, verificador.verificar(token).decision());
+    }
+
+    @Test
+    void tokenDeUnaVersionDeCredencialesAnteriorEstaRevocado() {
+        String token = jwtUtils.generateJwtToken(USUARIO);
+        // La contraseña cambió: la versión vigente es 3 y el token lleva 2
+        when(revocacionTokens.estaRevocado(eq(7), any())).thenAnswer(invocacion -> !Integer.valueOf(3).equals(invocacion.getArgument(1)));
+
+        assertEquals(VerificadorTokens.Decision.revocado, verificador.verificar(token).decision());
+    }
+
+    // Firmado con la clave buena pero sin uid ni rol: ya no hay búsqueda por email
+    @Test
+    void tokenSinUidNiRolEsInvalido() {
+        long ahora = System.currentTimeMillis();
+        String sinUid = Jwts.builder()
+                .setSubject("ana@correo.com")
+                .setId("abc")
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRETO.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals(VerificadorTokens.Decision.invalido, verificador.verificar(sinUid).decision());
+    }
+
+    @Test
+    void tokenMalFormadoEsInvalido() {
+        assertEquals(VerificadorTokens.Decision.invalido, verificador.verificar("no-es-un-token").decision());
+    }
+
+    private static JwtUtils jwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtils, "maxEntradasCache", 10_000);
+        ReflectionTestUtils.setField(jwtUtils, "ttlCacheSegundos", 300L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
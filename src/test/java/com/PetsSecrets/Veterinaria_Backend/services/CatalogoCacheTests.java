@@ -0,0 +1,173 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.CategoriaCambiadaEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.ProductoCambiadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.models.Categoria;
+import com.PetsSecrets.Veterinaria_Backend.models.Producto;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CategoriaRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogoCacheTests {
+
+    private static final Categoria ALIMENTOS = Categoria.builder().id(1).nombre("Alimentos").build();
+
+    // Tabla productos
+    private final Map<Integer, Producto> filas = new TreeMap<>();
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final CategoriaRepository categoriaRepository = mock(CategoriaRepository.class);
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+
+    private CatalogoCache cache;
+
+    @BeforeEach
+    void cargar() {
+        filas.put(1, producto(1, "Croquetas", 10));
+        filas.put(2, producto(2, "Arena", 5));
+        when(categoriaRepository.findAll()).thenReturn(List.of(ALIMENTOS));
+        when(productoRepository.findAllConCategoria()).thenAnswer(invocacion -> List.copyOf(filas.values()));
+        when(productoRepository.findAllByIdConCategoria(anyCollection())).thenAnswer(invocacion -> {
+            Collection<?> ids = invocacion.getArgument(0);
+            return filas.values().stream().filter(fila -> ids.contains(fila.getId())).toList();
+        });
+
+        cache = new CatalogoCache(productoRepository, categoriaRepository, metricas,
+                new IndiceBusquedaProductos(), mock(PlatformTransactionManager.class));
+        cache.registrarMetricas();
+        cache.recargar();
+    }
+
+    @Test
+    void elEventoNoConsultaLaBaseDeDatos() {
+        filas.get(1).setStock(9);
+
+        cache.onProductoCambiado(cambio(1));
+
+        verify(productoRepository, never()).findAllByIdConCategoria(anyCollection());
+        assertEquals(10, cache.producto(1).orElseThrow().getStock());
+        assertEquals(1.0, metricas.get("catalogo.cache.pendientes").gauge().value());
+
+        cache.refrescar();
+
+        assertEquals(9, cache.producto(1).orElseThrow().getStock());
+        assertEquals(0.0, metricas.get("catalogo.cache.pendientes").gauge().value());
+    }
+
+    @Test
+    void variosCambiosSeAplicanConUnaSolaConsulta() {
+        filas.get(1).setStock(8);
+        filas.get(2).setStock(4);
+        for (int i = 0; i < 20; i++) {
+            cache.onProductoCambiado(cambio(1 + i % 2));
+        }
+
+        cache.refrescar();
+        cache.refrescar();
+
+        verify(productoRepository, times(1)).findAllByIdConCategoria(anyCollection());
+        assertEquals(8, cache.producto(1).orElseThrow().getStock());
+        assertEquals(4, cache.producto(2).orElseThrow().getStock());
+    }
+
+    @Test
+    void unFalloSeReintentaEnElCicloSiguiente() {
+        filas.get(1).setStock(7);
+        cache.onProductoCambiado(cambio(1));
+        when(productoRepository.findAllByIdConCategoria(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"))
+                .thenAnswer(invocacion -> List.of(filas.get(1)));
+
+        cache.refrescar();
+        assertEquals(10, cache.producto(1).orElseThrow().getStock());
+
+        cache.refrescar();
+        assertEquals(7, cache.producto(1).orElseThrow().getStock());
+    }
+
+    @Test
+    void reintentosAgotadosPasanARecargaCompleta() {
+        filas.get(1).setStock(3);
+        cache.onProductoCambiado(cambio(1));
+        when(productoRepository.findAllByIdConCategoria(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        for (int i = 0; i < 5; i++) {
+            cache.refrescar();
+        }
+        assertEquals(10, cache.producto(1).orElseThrow().getStock());
+
+        cache.refrescar();
+
+        assertEquals(3, cache.producto(1).orElseThrow().getStock());
+        assertEquals(2.0, metricas.get("catalogo.cache.recargas").counter().count());
+    }
+
+    @Test
+    void unCambioDeCategoriaRecargaEnElSiguienteCiclo() {
+        ALIMENTOS.setNombre("Comida");
+        try {
+            cache.onCategoriaCambiada(new CategoriaCambiadaEvent(1));
+            assertEquals("Alimentos", cache.producto(1).orElseThrow().getCategoria().getNombre());
+
+            cache.refrescar();
+
+            assertEquals("Comida", cache.producto(1).orElseThrow().getCategoria().getNombre());
+        } finally {
+            ALIMENTOS.setNombre("Alimentos");
+        }
+    }
+
+    @Test
+    void unProductoQueYaNoExisteSeQuita() {
+        filas.remove(2);
+        cache.onProductoCambiado(cambio(2));
+
+        cache.refrescar();
+
+        assertTrue(cache.producto(2).isEmpty());
+        assertEquals(List.of(1), cache.productos().orElseThrow().stream().map(ProductoResponse::getId).toList());
+    }
+
+    @Test
+    void losLectoresNoModificanLaInstantanea() {
+        ProductoResponse leido = cache.producto(1).orElseThrow();
+        leido.setStock(0);
+        leido.getCategoria().setNombre("Otra");
+        cache.productosActivos().orElseThrow().get(0).setPrecio(1);
+
+        ProductoResponse otraLectura = cache.producto(1).orElseThrow();
+        assertNotSame(leido, otraLectura);
+        assertEquals(10, otraLectura.getStock());
+        assertEquals(20.0, otraLectura.getPrecio());
+        assertEquals("Alimentos", otraLectura.getCategoria().getNombre());
+    }
+
+    private static Producto producto(int id, String nombre, int stock) {
+        return Producto.builder().id(id).nombre(nombre).precio(20).stock(stock).categoria(ALIMENTOS).build();
+    }
+
+    private static ProductoCambiadoEvent cambio(int productoId) {
+        return new ProductoCambiadoEvent(productoId, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,135 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CitaRequest;
+import com.PetsSecrets.Veterinaria_Backend.models.*;
+import com.PetsSecrets.Veterinaria_Backend.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "app.pedidos.nodo-id=0")
+class CitaServiceConcurrencyTests {
+
+    private static final int RESERVAS_PARALELAS = 2000;
+    private static final int HILOS = 64;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MascotaRepository mascotaRepository;
+
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    @Autowired
+    private SedeRepository sedeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void soloUnaReservaGanaElMismoHorario() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nombreCompleto("Usuario Concurrencia")
+                .email("concurrencia-" + UUID.randomUUID() + "@test.com")
+                .telefono("900000000")
+                .passwordHash("sin-password")
+                .build());
+        Mascota mascota = mascotaRepository.save(Mascota.builder()
+                .nombre("Firulais")
+                .especie(Mascota.Especie.perro)
+                .fechaIngreso(LocalDate.now())
+                .usuario(usuario)
+                .build());
+        Veterinario veterinario = transactionTemplate.execute(status -> {
+            Veterinario nuevo = Veterinario.builder().nombreCompleto("Dr. Concurrencia").build();
+            entityManager.persist(nuevo);
+            return nuevo;
+        });
+        Servicio servicio = servicioRepository.save(Servicio.builder()
+                .nombre("Consulta Concurrencia")
+                .precio(50.0)
+                .veterinario(veterinario)
+                .build());
+        Sede sede = sedeRepository.save(Sede.builder()
+                .nombre("Sede Concurrencia")
+                .direccion("Av. Prueba 123")
+                .build());
+
+        CitaRequest request = CitaRequest.builder()
+                .mascotaId(mascota.getId())
+                .servicioId(servicio.getId())
+                .sedeId(sede.getId())
+                .fecha(LocalDate.now().plusDays(30))
+                .hora(LocalTime.of(10, 0))
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger exitosas = new AtomicInteger();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < RESERVAS_PARALELAS; i++) {
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    try {
+                        citaService.crearCita(request, usuario.getId());
+                        exitosas.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Horario ocupado: resultado esperado para todas menos una
+                    }
+                    return null;
+                }));
+            }
+
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(2, TimeUnit.MINUTES);
+            }
+
+            assertEquals(1, exitosas.get());
+            assertEquals(1, citaRepository.findByFechaAndSedeIdOrderByHoraAsc(request.getFecha(), sede.getId()).size());
+        } finally {
+            executor.shutdownNow();
+            transactionTemplate.executeWithoutResult(status -> {
+                citaRepository.findByFechaAndSedeIdOrderByHoraAsc(request.getFecha(), sede.getId())
+                        .forEach(cita -> citaService.cancelarCita(cita.getId(), usuario.getId()));
+            });
+            citaRepository.deleteAll(citaRepository.findByFechaAndSedeIdOrderByHoraAsc(request.getFecha(), sede.getId()));
+            servicioRepository.delete(servicio);
+            sedeRepository.delete(sede);
+            mascotaRepository.delete(mascota);
+            usuarioRepository.delete(usuario);
+            transactionTemplate.executeWithoutResult(status ->
+                    entityManager.remove(entityManager.find(Veterinario.class, veterinario.getId())));
+        }
+    }
+}
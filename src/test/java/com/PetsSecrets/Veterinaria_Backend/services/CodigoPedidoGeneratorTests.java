@@ -0,0 +1,114 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodigoPedidoGeneratorTests {
+
+    private static final int HILOS = 8;
+    private static final int CODIGOS_POR_HILO = 50_000;
+
+    @Test
+    void generaCodigosUnicosEnParalelo() throws Exception {
+        CodigoPedidoGenerator generador = new CodigoPedidoGenerator("0");
+        Set<String> codigos = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        try {
+            for (int i = 0; i < HILOS; i++) {
+                tareas.add(executor.submit(() -> {
+                    for (int j = 0; j < CODIGOS_POR_HILO; j++) {
+                        codigos.add(generador.generar());
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(HILOS * CODIGOS_POR_HILO, codigos.size());
+        assertTrue(codigos.stream().allMatch(c -> c.length() == 17 && c.startsWith("PED-")));
+    }
+
+    // Códigos por segundo con HILOS hilos generando a la vez; solo con -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmarkCodigosPorSegundo() throws Exception {
+        CodigoPedidoGenerator generador = new CodigoPedidoGenerator("0");
+        for (int ronda = 0; ronda <= 3; ronda++) {
+            ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+            List<Future<?>> tareas = new ArrayList<>();
+            long inicio = System.nanoTime();
+            try {
+                for (int i = 0; i < HILOS; i++) {
+                    tareas.add(executor.submit(() -> {
+                        for (int j = 0; j < CODIGOS_POR_HILO; j++) {
+                            generador.generar();
+                        }
+                    }));
+                }
+                for (Future<?> tarea : tareas) {
+                    tarea.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            // La ronda 0 es de calentamiento
+            if (ronda > 0) {
+                System.out.printf("Códigos de pedido (ronda %d): %,.0f por segundo%n",
+                        ronda, HILOS * CODIGOS_POR_HILO / segundos);
+            }
+        }
+    }
+
+    @Test
+    void codigosCrecenEnElTiempo() {
+        CodigoPedidoGenerator generador = new CodigoPedidoGenerator("0");
+        String anterior = generador.generar();
+        for (int i = 0; i < 10_000; i++) {
+            String siguiente = generador.generar();
+            assertTrue(siguiente.compareTo(anterior) > 0);
+            anterior = siguiente;
+        }
+    }
+
+    @Test
+    void elNodoConfiguradoTienePrioridadSobreElHost() {
+        assertEquals(7, CodigoPedidoGenerator.resolverNodo("7", "veterinaria-3"));
+        assertEquals(3, CodigoPedidoGenerator.resolverNodo("", "veterinaria-3"));
+        assertEquals(0, CodigoPedidoGenerator.resolverNodo(null, "veterinaria-backend-0"));
+    }
+
+    @Test
+    void sinNodoNiOrdinalNoArranca() {
+        assertThrows(IllegalStateException.class, () -> CodigoPedidoGenerator.resolverNodo(null, null));
+        assertThrows(IllegalStateException.class, () -> CodigoPedidoGenerator.resolverNodo(" ", "mi-portatil"));
+        assertThrows(IllegalStateException.class, () -> CodigoPedidoGenerator.resolverNodo("1024", null));
+        assertThrows(IllegalStateException.class, () -> CodigoPedidoGenerator.resolverNodo(null, "api-5000"));
+        assertThrows(IllegalStateException.class, () -> CodigoPedidoGenerator.resolverNodo("uno", null));
+    }
+
+    @Test
+    void elNodoVaEnLosBitsCentralesDelId() {
+        long id = new CodigoPedidoGenerator("5").siguienteId();
+        assertEquals(5, (id >>> 12) & 1023);
+    }
+}
@@ -0,0 +1,164 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.EstadisticasResponse;
+import com.PetsSecrets.Veterinaria_Backend.events.AdopcionCambiadaEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.CitaCambiadaEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.MascotaCambiadaEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.PedidoCambiadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.ProductoCambiadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioEliminadoEvent;
+import com.PetsSecrets.Veterinaria_Backend.events.UsuarioRegistradoEvent;
+import com.PetsSecrets.Veterinaria_Backend.models.Adopcion;
+import com.PetsSecrets.Veterinaria_Backend.models.Mascota;
+import com.PetsSecrets.Veterinaria_Backend.models.Pedido;
+import com.PetsSecrets.Veterinaria_Backend.repositories.AdopcionRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CitaRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.MascotaRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.PedidoRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.ProductoRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContadoresDashboardServiceTests {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    private final UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    private final MascotaRepository mascotaRepository = mock(MascotaRepository.class);
+    private final AdopcionRepository adopcionRepository = mock(AdopcionRepository.class);
+    private final CitaRepository citaRepository = mock(CitaRepository.class);
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+
+    private ContadoresDashboardService contadores;
+
+    @BeforeEach
+    void reconciliar() {
+        when(usuarioRepository.count()).thenReturn(10L);
+        when(mascotaRepository.countByEstadoAdopcion(Mascota.EstadoAdopcion.disponible)).thenReturn(4L);
+        when(pedidoRepository.countByEstado(Pedido.EstadoPedido.pendiente)).thenReturn(3L);
+        when(pedidoRepository.countByEstado(Pedido.EstadoPedido.entregado)).thenReturn(5L);
+        when(pedidoRepository.countProductosVendidos(Pedido.EstadoPedido.entregado)).thenReturn(12L);
+        when(pedidoRepository.sumIngresosByEstado(Pedido.EstadoPedido.entregado)).thenReturn(500.0);
+        when(citaRepository.countByFecha(HOY)).thenReturn(2L);
+        when(citaRepository.countCitasUltimaSemana(HOY.minusWeeks(1))).thenReturn(6L);
+        when(citaRepository.countCitasUltimoMes(HOY.minusMonths(1))).thenReturn(20L);
+        when(productoRepository.countByStockGreaterThan(0)).thenReturn(7L);
+        when(productoRepository.sumValorInventario()).thenReturn(1000.0);
+        when(adopcionRepository.countByEstado(Adopcion.EstadoAdopcion.aprobada)).thenReturn(1L);
+
+        contadores = new ContadoresDashboardService(usuarioRepository, mascotaRepository, adopcionRepository,
+                citaRepository, pedidoRepository, productoRepository);
+        contadores.reconciliar();
+    }
+
+    @Test
+    void reconciliarCargaLosTotalesDeLaBaseDeDatos() {
+        EstadisticasResponse estadisticas = contadores.obtenerEstadisticas();
+
+        assertEquals(10L, estadisticas.getUsuariosRegistrados());
+        assertEquals(4L, estadisticas.getMascotasAdopcion());
+        assertEquals(3L, estadisticas.getPedidosPendientes());
+        assertEquals(2L, estadisticas.getCitasHoy());
+        assertEquals(6L, estadisticas.getCitasSemana());
+        assertEquals(20L, estadisticas.getCitasMes());
+        assertEquals(1000.0, estadisticas.getValorInventario());
+        assertEquals(500.0, estadisticas.getIngresosTotales());
+    }
+
+    @Test
+    void entregarYDesentregarUnPedidoSeCompensan() {
+        contadores.onPedidoCambiado(new PedidoCambiadoEvent(1, Pedido.EstadoPedido.pendiente,
+                Pedido.EstadoPedido.entregado, new BigDecimal("80.50"), 3));
+
+        EstadisticasResponse entregado = contadores.obtenerEstadisticas();
+        assertEquals(2L, entregado.getPedidosPendientes());
+        assertEquals(6L, entregado.getPedidosCompletados());
+        assertEquals(15L, entregado.getProductosVendidos());
+        assertEquals(580.5, entregado.getIngresosTotales());
+
+        contadores.onPedidoCambiado(new PedidoCambiadoEvent(1, Pedido.EstadoPedido.entregado,
+                Pedido.EstadoPedido.cancelado, new BigDecimal("80.50"), 3));
+
+        EstadisticasResponse cancelado = contadores.obtenerEstadisticas();
+        assertEquals(2L, cancelado.getPedidosPendientes());
+        assertEquals(5L, cancelado.getPedidosCompletados());
+        assertEquals(12L, cancelado.getProductosVendidos());
+        assertEquals(500.0, cancelado.getIngresosTotales());
+    }
+
+    @Test
+    void unCambioQueNoCruzaElEstadoNoMueveElContador() {
+        contadores.onPedidoCambiado(new PedidoCambiadoEvent(1, Pedido.EstadoPedido.procesando,
+                Pedido.EstadoPedido.enviado, BigDecimal.TEN, 1));
+        contadores.onAdopcionCambiada(new AdopcionCambiadaEvent(1, Adopcion.EstadoAdopcion.pendiente,
+                Adopcion.EstadoAdopcion.rechazada));
+        contadores.onMascotaCambiada(new MascotaCambiadaEvent(1, Mascota.EstadoAdopcion.disponible, true,
+                Mascota.EstadoAdopcion.disponible, true));
+
+        EstadisticasResponse estadisticas = contadores.obtenerEstadisticas();
+        assertEquals(3L, estadisticas.getPedidosPendientes());
+        assertEquals(5L, estadisticas.getPedidosCompletados());
+        assertEquals(1L, estadisticas.getTotalAdopciones());
+        assertEquals(4L, estadisticas.getMascotasAdopcion());
+    }
+
+    @Test
+    void desactivarUnaMascotaDisponibleLaQuitaDeAdopcion() {
+        contadores.onMascotaCambiada(new MascotaCambiadaEvent(1, Mascota.EstadoAdopcion.disponible, true,
+                Mascota.EstadoAdopcion.disponible, false));
+        contadores.onAdopcionCambiada(new AdopcionCambiadaEvent(2, Adopcion.EstadoAdopcion.pendiente,
+                Adopcion.EstadoAdopcion.aprobada));
+
+        assertEquals(3L, contadores.obtenerEstadisticas().getMascotasAdopcion());
+        assertEquals(2L, contadores.obtenerEstadisticas().getTotalAdopciones());
+    }
+
+    @Test
+    void moverUnaCitaActualizaLasVentanasDeFechas() {
+        // Reprogramada de hoy a dentro de dos meses: sale de hoy, semana y mes
+        contadores.onCitaCambiada(new CitaCambiadaEvent(1, HOY, HOY.plusMonths(2)));
+        // Nueva cita para hoy
+        contadores.onCitaCambiada(new CitaCambiadaEvent(2, null, HOY));
+        // Reprogramada de hace dos semanas a hace tres días: entra en la semana
+        contadores.onCitaCambiada(new CitaCambiadaEvent(3, HOY.minusWeeks(2), HOY.minusDays(3)));
+
+        EstadisticasResponse estadisticas = contadores.obtenerEstadisticas();
+        assertEquals(2L, estadisticas.getCitasHoy());
+        assertEquals(7L, estadisticas.getCitasSemana());
+        assertEquals(20L, estadisticas.getCitasMes());
+    }
+
+    @Test
+    void elStockYElValorDelInventarioSiguenAlProducto() {
+        contadores.onProductoCambiado(new ProductoCambiadoEvent(1, 5, 20.0, 0, 20.0));
+        contadores.onProductoCambiado(new ProductoCambiadoEvent(2, 0, 10.0, 4, 12.5));
+        contadores.onUsuarioRegistrado(new UsuarioRegistradoEvent(11));
+        contadores.onUsuarioEliminado(new UsuarioEliminadoEvent(3));
+        contadores.onUsuarioRegistrado(new UsuarioRegistradoEvent(12));
+
+        EstadisticasResponse estadisticas = contadores.obtenerEstadisticas();
+        assertEquals(7L, estadisticas.getProductosStock());
+        assertEquals(950.0, estadisticas.getValorInventario());
+        assertEquals(11L, estadisticas.getUsuariosRegistrados());
+    }
+
+    @Test
+    void reconciliarCorrigeElDesvio() {
+        contadores.onUsuarioRegistrado(new UsuarioRegistradoEvent(11));
+        contadores.onPedidoCambiado(new PedidoCambiadoEvent(1, null, Pedido.EstadoPedido.pendiente, BigDecimal.ONE, 1));
+
+        contadores.reconciliar();
+
+        assertEquals(10L, contadores.obtenerEstadisticas().getUsuariosRegistrados());
+        assertEquals(3L, contadores.obtenerEstadisticas().getPedidosPendientes());
+    }
+}
@@ -0,0 +1,115 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.DisponibilidadCalendarioResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.DisponibilidadCalendarioResponse.SlotDisponibilidad;
+import com.PetsSecrets.Veterinaria_Backend.repositories.CitaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DisponibilidadServiceTests {
+
+    private static final int SEDE = 1;
+    private static final LocalDate MANANA = LocalDate.now().plusDays(1);
+
+    private final CitaRepository citaRepository = mock(CitaRepository.class);
+
+    private DisponibilidadService servicio;
+
+    @BeforeEach
+    void crear() {
+        List<Object[]> ocupados = new ArrayList<>();
+        ocupados.add(new Object[]{SEDE, MANANA, LocalTime.of(8, 40)});
+        when(citaRepository.findHorariosOcupadosDesde(any())).thenReturn(ocupados);
+
+        servicio = new DisponibilidadService(citaRepository);
+        ReflectionTestUtils.setField(servicio, "horaAperturaConfig", "08:00");
+        ReflectionTestUtils.setField(servicio, "horaCierreConfig", "10:00");
+        ReflectionTestUtils.setField(servicio, "duracionSlotMinutos", 30);
+        servicio.init();
+        servicio.reconstruirIndice();
+    }
+
+    @Test
+    void losDiasPrecargadosNoConsultanLaBaseDeDatos() {
+        assertFalse(servicio.estaDisponible(SEDE, MANANA, LocalTime.of(8, 40)));
+        assertTrue(servicio.estaDisponible(SEDE, MANANA, LocalTime.of(9, 0)));
+        // Día futuro sin citas en la precarga: libre sin ir a la base de datos
+        assertTrue(servicio.estaDisponible(SEDE, MANANA.plusDays(1), LocalTime.of(9, 0)));
+
+        verify(citaRepository, never()).findHorasOcupadas(any(), any());
+    }
+
+    @Test
+    void unSlotEstaOcupadoSiUnaCitaEmpiezaDentroDeSuVentana() {
+        DisponibilidadCalendarioResponse calendario = servicio.obtenerCalendario(SEDE, MANANA, MANANA);
+
+        List<SlotDisponibilidad> slots = calendario.getDias().get(0).getSlots();
+        assertEquals(List.of(LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0), LocalTime.of(9, 30)),
+                slots.stream().map(SlotDisponibilidad::getHora).toList());
+        assertEquals(List.of(true, false, true, true),
+                slots.stream().map(SlotDisponibilidad::isDisponible).toList());
+    }
+
+    @Test
+    void refrescarSinTransaccionRecargaElDiaEnElMomento() {
+        when(citaRepository.findHorasOcupadas(SEDE, MANANA)).thenReturn(List.of(LocalTime.of(9, 0)));
+
+        servicio.refrescarDespuesDeCommit(SEDE, MANANA);
+
+        assertTrue(servicio.estaDisponible(SEDE, MANANA, LocalTime.of(8, 40)));
+        assertFalse(servicio.estaDisponible(SEDE, MANANA, LocalTime.of(9, 0)));
+    }
+
+    // Dos commits sobre el mismo día: la lectura que empezó antes termina después y no pisa
+    // a la más reciente
+    @Test
+    void unaLecturaAnteriorNoReemplazaAUnaPosterior() {
+        boolean[] dentro = {false};
+        when(citaRepository.findHorasOcupadas(SEDE, MANANA)).thenAnswer(invocacion -> {
+            if (!dentro[0]) {
+                dentro[0] = true;
+                servicio.refrescarDespuesDeCommit(SEDE, MANANA);
+                return List.of(LocalTime.of(8, 40));
+            }
+            return List.of(LocalTime.of(8, 40), LocalTime.of(9, 30));
+        });
+
+        servicio.refrescarDespuesDeCommit(SEDE, MANANA);
+
+        assertFalse(servicio.estaDisponible(SEDE, MANANA, LocalTime.of(9, 30)));
+    }
+
+    @Test
+    void losDiasFueraDeLaPrecargaSeCarganUnaVez() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        when(citaRepository.findHorasOcupadas(SEDE, ayer)).thenReturn(List.of(LocalTime.of(8, 0)));
+
+        assertFalse(servicio.estaDisponible(SEDE, ayer, LocalTime.of(8, 0)));
+        assertTrue(servicio.estaDisponible(SEDE, ayer, LocalTime.of(8, 30)));
+
+        verify(citaRepository, times(1)).findHorasOcupadas(SEDE, ayer);
+    }
+
+    @Test
+    void rechazaRangosInvalidos() {
+        assertThrows(RuntimeException.class, () -> servicio.obtenerCalendario(SEDE, MANANA, MANANA.minusDays(1)));
+        assertThrows(RuntimeException.class, () -> servicio.obtenerCalendario(SEDE, MANANA, MANANA.plusDays(31)));
+    }
+}
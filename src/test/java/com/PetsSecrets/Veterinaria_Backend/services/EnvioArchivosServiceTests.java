@@ -0,0 +1,209 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnvioArchivosServiceTests {
+
+    private static final String HASH = "a".repeat(64);
+
+    private final EnvioArchivosService servicio = new EnvioArchivosService();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void nombrePorHashUsaEtagFuerteYCacheInmutable() throws IOException {
+        Path archivo = archivo(HASH + ".jpg", 1000);
+
+        MockHttpServletResponse response = enviar(new MockHttpServletRequest("GET", "/"), archivo);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"" + HASH + "\"", response.getHeader("ETag"));
+        assertTrue(response.getHeader("Cache-Control").contains("immutable"));
+        assertArrayEquals(Files.readAllBytes(archivo), response.getContentAsByteArray());
+    }
+
+    @Test
+    void ifNoneMatchRespondeNoModificadoSinCuerpo() throws IOException {
+        Path archivo = archivo(HASH + "-w320.jpg", 1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", "\"otro\", W/\"" + HASH + "-w320\"");
+
+        MockHttpServletResponse response = enviar(request, archivo);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void rangoDeBytesRespondeContenidoParcial() throws IOException {
+        Path archivo = archivo(HASH + ".png", 1000);
+        byte[] bytes = Files.readAllBytes(archivo);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=100-199");
+
+        MockHttpServletResponse response = enviar(request, archivo);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/1000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), response.getContentAsByteArray());
+
+        MockHttpServletRequest sufijo = new MockHttpServletRequest("GET", "/");
+        sufijo.addHeader("Range", "bytes=-10");
+        assertArrayEquals(Arrays.copyOfRange(bytes, 990, 1000), enviar(sufijo, archivo).getContentAsByteArray());
+    }
+
+    @Test
+    void rangoFueraDelArchivoEsInsatisfacible() throws IOException {
+        Path archivo = archivo(HASH + ".png", 1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=1000-");
+
+        MockHttpServletResponse response = enviar(request, archivo);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */1000", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void ifRangeDistintoIgnoraElRango() {
+        assertNull(EnvioArchivosService.rango("bytes=0-9", "\"otro\"", "\"" + HASH + "\"", 1000));
+        assertEquals(new EnvioArchivosService.Rango(0, 10),
+                EnvioArchivosService.rango("bytes=0-9", "\"" + HASH + "\"", "\"" + HASH + "\"", 1000));
+    }
+
+    @Test
+    void conSendfileDelegaEnElConectorSinEscribirBytes() throws IOException {
+        Path archivo = archivo(HASH + ".jpg", 1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute(EnvioArchivosService.SENDFILE_SOPORTE, Boolean.TRUE);
+        request.addHeader("Range", "bytes=500-");
+
+        MockHttpServletResponse response = enviar(request, archivo);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(archivo.toAbsolutePath().toString(), request.getAttribute(EnvioArchivosService.SENDFILE_ARCHIVO));
+        assertEquals(500L, request.getAttribute(EnvioArchivosService.SENDFILE_INICIO));
+        assertEquals(1000L, request.getAttribute(EnvioArchivosService.SENDFILE_FIN));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void archivoSinHashCalculaEtagDelContenido() throws IOException {
+        Path archivo = archivo("3f2a1c4e-0000-0000-0000-000000000000.jpg", 1000);
+
+        String etag = enviar(new MockHttpServletRequest("GET", "/"), archivo).getHeader("ETag");
+
+        assertEquals(66, etag.length());
+        assertTrue(enviar(new MockHttpServletRequest("GET", "/"), archivo).getHeader("Cache-Control").startsWith("max-age=86400"));
+    }
+
+    // Compara solicitudes por segundo y bytes asignados en el heap por solicitud al servir una
+    // imagen de 512 KB: copia por arreglo (como ResourceHttpRequestHandler), transferTo y sendfile.
+    // Solo con -Pbenchmark.
+    @Test
+    @Tag("benchmark")
+    void benchmarkEnvioDeImagen() throws IOException {
+        Path archivo = archivo(HASH + ".jpg", 512 * 1024);
+        int solicitudes = 2000;
+
+        medir("copia con byte[]", solicitudes, () -> {
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                StreamUtils.copy(entrada, new SalidaDescartada());
+            }
+        });
+        medir("transferTo", solicitudes, () -> servicio.enviar(new MockHttpServletRequest("GET", "/"),
+                respuestaDescartada(), archivo, MediaType.IMAGE_JPEG));
+        medir("sendfile", solicitudes, () -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+            request.setAttribute(EnvioArchivosService.SENDFILE_SOPORTE, Boolean.TRUE);
+            servicio.enviar(request, respuestaDescartada(), archivo, MediaType.IMAGE_JPEG);
+        });
+    }
+
+    private interface Envio {
+        void ejecutar() throws IOException;
+    }
+
+    private static void medir(String nombre, int solicitudes, Envio envio) throws IOException {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < solicitudes / 10; i++) {
+            envio.ejecutar();
+        }
+
+        long asignadosAntes = hilos.getCurrentThreadAllocatedBytes();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < solicitudes; i++) {
+            envio.ejecutar();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long asignados = hilos.getCurrentThreadAllocatedBytes() - asignadosAntes;
+
+        System.out.printf("%-16s %,10.0f solicitudes/s  %,10d bytes de heap por solicitud%n",
+                nombre, solicitudes * 1e9 / nanos, asignados / solicitudes);
+    }
+
+    private MockHttpServletResponse enviar(MockHttpServletRequest request, Path archivo) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        servicio.enviar(request, response, archivo, MediaType.IMAGE_JPEG);
+        return response;
+    }
+
+    private Path archivo(String nombre, int tamano) throws IOException {
+        byte[] bytes = new byte[tamano];
+        new Random(tamano).nextBytes(bytes);
+        return Files.write(directorio.resolve(nombre), bytes);
+    }
+
+    private static MockHttpServletResponse respuestaDescartada() {
+        return new MockHttpServletResponse() {
+            private final SalidaDescartada salida = new SalidaDescartada();
+
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return salida;
+            }
+        };
+    }
+
+    private static final class SalidaDescartada extends ServletOutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.FacetaConteo;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FacetasCatalogoTests {
+
+    private static final CategoriaResponse ALIMENTOS = new CategoriaResponse(1, "Alimentos", null);
+    private static final CategoriaResponse JUGUETES = new CategoriaResponse(2, "Juguetes", null);
+
+    private static final FacetasCatalogo FACETAS = FacetasCatalogo.construir(List.of(
+            producto(1, "Croquetas", 45.0, 10, ALIMENTOS, "activo"),
+            producto(2, "Snack dental", 15.0, 0, ALIMENTOS, "activo"),
+            producto(3, "Pelota", 12.0, 5, JUGUETES, "activo"),
+            producto(4, "Rascador", 150.0, 2, JUGUETES, "activo"),
+            producto(5, "Hueso de nylon", 18.0, 3, JUGUETES, "inactivo")));
+
+    @Test
+    void combinaFacetasConAndEntreEllasYOrDentroDeCadaUna() {
+        FacetasCatalogo.Resultado resultado = FACETAS.filtrar(
+                new FacetasCatalogo.Filtro(Set.of(1, 2), Set.of("0-20"), true, "activo"), 0, 10);
+
+        assertEquals(List.of(3), ids(resultado));
+        assertEquals(1, resultado.total());
+    }
+
+    @Test
+    void cadaConteoIgnoraSuPropiaFaceta() {
+        FacetasCatalogo.Resultado resultado = FACETAS.filtrar(
+                new FacetasCatalogo.Filtro(Set.of(2), null, true, "activo"), 0, 10);
+
+        assertEquals(Map.of("1", 1L, "2", 2L), conteos(resultado.categorias()));
+        assertEquals(Map.of("0-20", 1L, "20-50", 0L, "50-100", 0L, "100-200", 1L, "200-", 0L),
+                conteos(resultado.rangosPrecio()));
+        assertEquals(Map.of("true", 2L, "false", 0L), conteos(resultado.stock()));
+        assertEquals(Map.of("activo", 2L, "inactivo", 1L), conteos(resultado.estados()));
+    }
+
+    @Test
+    void paginaEnOrdenPorNombre() {
+        FacetasCatalogo.Filtro activos = new FacetasCatalogo.Filtro(null, null, null, "activo");
+
+        assertEquals(List.of(1, 3), ids(FACETAS.filtrar(activos, 0, 2)));
+        assertEquals(List.of(4, 2), ids(FACETAS.filtrar(activos, 2, 2)));
+    }
+
+    private static ProductoResponse producto(int id, String nombre, double precio, int stock,
+                                             CategoriaResponse categoria, String estado) {
+        return ProductoResponse.builder()
+                .id(id)
+                .nombre(nombre)
+                .precio(precio)
+                .stock(stock)
+                .estado(estado)
+                .categoria(categoria)
+                .build();
+    }
+
+    private static List<Integer> ids(FacetasCatalogo.Resultado resultado) {
+        return resultado.productos().stream().map(ProductoResponse::getId).toList();
+    }
+
+    private static Map<String, Long> conteos(List<FacetaConteo> faceta) {
+        return faceta.stream().collect(Collectors.toMap(FacetaConteo::valor, FacetaConteo::cantidad));
+    }
+}
@@ -0,0 +1,83 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FotoStorageServiceTests {
+
+    private static final byte[] IMAGEN = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3, 4, 5, 6, 7, 8};
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void mismaImagenSeGuardaUnaSolaVez() throws IOException {
+        FotoStorageService servicio = new FotoStorageService(directorio.toString(), 1024);
+
+        String primera = servicio.guardarDataUri(dataUri("image/png", IMAGEN));
+        String segunda = servicio.normalizarReferencia(dataUri("IMAGE/PNG", IMAGEN));
+
+        assertEquals(primera, segunda);
+        assertTrue(primera.startsWith(FotoStorageService.PREFIJO_REFERENCIA) && primera.endsWith(".png"));
+        assertEquals(1, archivos());
+
+        String nombre = primera.substring(FotoStorageService.PREFIJO_REFERENCIA.length());
+        Path archivo = servicio.buscar(nombre).orElseThrow();
+        assertArrayEquals(IMAGEN, Files.readAllBytes(archivo));
+        assertEquals("image/png", servicio.tipoContenido(nombre));
+    }
+
+    @Test
+    void rechazaTiposTamanosYBase64Invalidos() throws IOException {
+        FotoStorageService servicio = new FotoStorageService(directorio.toString(), 8);
+
+        assertThrows(RuntimeException.class, () -> servicio.guardarDataUri(dataUri("image/svg+xml", IMAGEN)));
+        assertThrows(RuntimeException.class, () -> servicio.guardarDataUri(dataUri("image/png", IMAGEN)));
+        assertThrows(RuntimeException.class, () -> servicio.guardarDataUri("data:image/png;base64,%%%"));
+        assertThrows(RuntimeException.class, () -> servicio.guardarDataUri("data:text/plain,hola"));
+        assertEquals(0, archivos());
+    }
+
+    @Test
+    void buscarSoloAceptaNombresPorHash() {
+        FotoStorageService servicio = new FotoStorageService(directorio.toString(), 1024);
+
+        assertTrue(servicio.buscar("../../etc/passwd").isEmpty());
+        assertTrue(servicio.buscar("a".repeat(64) + ".exe").isEmpty());
+        assertTrue(servicio.buscar("a".repeat(64) + ".png").isEmpty());
+        assertTrue(servicio.buscar(null).isEmpty());
+    }
+
+    @Test
+    void lasUrlsExternasSeConservan() {
+        FotoStorageService servicio = new FotoStorageService(directorio.toString(), 1024);
+
+        assertEquals("https://cdn.example.com/firulais.jpg",
+                servicio.normalizarReferencia("https://cdn.example.com/firulais.jpg"));
+        assertNull(servicio.normalizarReferencia(null));
+        assertThrows(RuntimeException.class,
+                () -> servicio.normalizarReferencia("https://cdn.example.com/" + "x".repeat(500)));
+    }
+
+    static String dataUri(String tipo, byte[] contenido) {
+        return "data:" + tipo + ";base64," + Base64.getEncoder().encodeToString(contenido);
+    }
+
+    private long archivos() throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            return rutas.filter(Files::isRegularFile).count();
+        }
+    }
+}
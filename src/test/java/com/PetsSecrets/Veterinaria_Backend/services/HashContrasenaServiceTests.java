@@ -0,0 +1,91 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashContrasenaServiceTests {
+
+    @Test
+    void costoDuplicaElTiempoPorCadaPunto() {
+        // 60 ms con costo 10: 120 (11), 240 (12); 480 ya pasa de 250
+        assertEquals(12, HashContrasenaService.costoParaObjetivo(60, 250));
+        assertEquals(HashContrasenaService.COSTO_MINIMO, HashContrasenaService.costoParaObjetivo(400, 250));
+        assertEquals(HashContrasenaService.COSTO_MAXIMO, HashContrasenaService.costoParaObjetivo(0.01, 250));
+    }
+
+    @Test
+    void verificaYPideActualizarHashesDeCostoMenor() {
+        HashContrasenaService servicio = servicio(new BCryptPasswordEncoder(5), 1, 4);
+
+        String hash = servicio.codificar("secreta");
+        assertTrue(servicio.coincide("secreta", hash));
+        assertFalse(servicio.coincide("otra", hash));
+        assertFalse(servicio.coincide("secreta", null));
+        assertTrue(servicio.requiereActualizacion(new BCryptPasswordEncoder(4).encode("secreta")));
+        assertFalse(servicio.requiereActualizacion(hash));
+    }
+
+    @Test
+    void conElPoolSaturadoRechazaSinEsperar() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch ocupado = new CountDownLatch(1);
+        PasswordEncoder lento = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence contrasena) {
+                if ("bloquear".contentEquals(contrasena)) {
+                    ocupado.countDown();
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence contrasena, String hash) {
+                return true;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HashContrasenaService servicio = new HashContrasenaService(lento, registry, 1, 1, 5000);
+        servicio.init();
+        try {
+            // Un hilo ocupado y un lugar en cola
+            CompletableFuture<String> enHilo = CompletableFuture.supplyAsync(() -> servicio.codificar("bloquear"));
+            assertTrue(ocupado.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> enCola = CompletableFuture.supplyAsync(() -> servicio.codificar("x"));
+            while (registry.get("auth.bcrypt.cola").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(RejectedExecutionException.class, () -> servicio.codificar("y"));
+            assertEquals(1.0, registry.counter("auth.bcrypt.rechazos").count());
+
+            liberar.countDown();
+            assertEquals("hash", enHilo.get(5, TimeUnit.SECONDS));
+            assertEquals("hash", enCola.get(5, TimeUnit.SECONDS));
+        } finally {
+            servicio.cerrar();
+        }
+    }
+
+    private static HashContrasenaService servicio(PasswordEncoder encoder, int hilos, int cola) {
+        HashContrasenaService servicio = new HashContrasenaService(encoder, new SimpleMeterRegistry(), hilos, cola, 5000);
+        servicio.init();
+        return servicio;
+    }
+}
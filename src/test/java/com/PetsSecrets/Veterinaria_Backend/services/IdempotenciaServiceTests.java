@@ -0,0 +1,352 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.models.IdempotenciaPedido;
+import com.PetsSecrets.Veterinaria_Backend.repositories.IdempotenciaPedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotenciaServiceTests {
+
+    private static final String CLAVE = "7:pedido-1";
+    private static final Map<String, Object> CARRITO_A = Map.of("direccion", "Calle 1");
+    private static final Map<String, Object> CARRITO_B = Map.of("direccion", "Calle 2");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Tabla idempotencia_pedidos compartida por todas las "instancias" del test
+    private final Tabla tabla = new Tabla();
+
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    @Test
+    void unDuplicadoSeReproduceSinEjecutarDeNuevo() {
+        IdempotenciaService servicio = servicio(repositorio());
+
+        ResponseEntity<?> primera = servicio.ejecutar(7, "pedido-1", CARRITO_A, this::crearPedido);
+        ResponseEntity<?> segunda = servicio.ejecutar(7, "pedido-1", CARRITO_A, this::crearPedido);
+
+        assertEquals(1, ejecuciones.get());
+        assertEquals(201, primera.getStatusCode().value());
+        assertEquals(201, segunda.getStatusCode().value());
+        assertEquals("true", segunda.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals(422, servicio.ejecutar(7, "pedido-1", CARRITO_B, this::crearPedido).getStatusCode().value());
+    }
+
+    @Test
+    void duplicadosConcurrentesEnDosInstanciasEjecutanUnaSolaVez() throws Exception {
+        IdempotenciaPedidoRepository repositorio = repositorio();
+        List<IdempotenciaService> instancias = List.of(servicio(repositorio), servicio(repositorio));
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseEntity<?>>> respuestas = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                IdempotenciaService servicio = instancias.get(i % 2);
+                respuestas.add(hilos.submit(() -> {
+                    salida.await();
+                    return servicio.ejecutar(7, "pedido-1", CARRITO_A, () -> {
+                        dormir(200);
+                        return crearPedido();
+                    });
+                }));
+            }
+            salida.countDown();
+            for (Future<ResponseEntity<?>> respuesta : respuestas) {
+                assertEquals(201, respuesta.get(10, TimeUnit.SECONDS).getStatusCode().value());
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    void elRelevoDeUnaReservaVencidaConservaLaHuella() {
+        tabla.filas.put(CLAVE, reservaVencida("otro", huella(CARRITO_A)));
+        IdempotenciaService servicio = servicio(repositorio());
+
+        // Otro cuerpo con la misma clave no ejecuta en lugar del original
+        assertEquals(422, servicio.ejecutar(7, "pedido-1", CARRITO_B, this::crearPedido).getStatusCode().value());
+        assertEquals(0, ejecuciones.get());
+        assertEquals("otro", tabla.filas.get(CLAVE).getPropietario());
+
+        assertEquals(201, servicio.ejecutar(7, "pedido-1", CARRITO_A, this::crearPedido).getStatusCode().value());
+        assertEquals(1, ejecuciones.get());
+        assertEquals(IdempotenciaPedido.Estado.completado, tabla.filas.get(CLAVE).getEstado());
+    }
+
+    @Test
+    void quienPerdioLaReservaNoPisaNiBorraLaDelRelevo() throws Exception {
+        IdempotenciaPedidoRepository repositorio = repositorio();
+        IdempotenciaService lenta = servicio(repositorio);
+        ReflectionTestUtils.setField(lenta, "plazoEnCursoSegundos", 0L);
+        IdempotenciaService relevo = servicio(repositorio);
+        CountDownLatch relevoTerminado = new CountDownLatch(1);
+
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            // La primera ejecución no renueva su plazo (0 s) y sigue corriendo mientras otra toma el relevo
+            Future<ResponseEntity<?>> primera = hilo.submit(() -> lenta.ejecutar(7, "pedido-1", CARRITO_A, () -> {
+                esperar(relevoTerminado);
+                throw new IllegalStateException("falló después de perder la reserva");
+            }));
+            esperarReserva();
+            dormir(10);
+
+            assertEquals(201, relevo.ejecutar(7, "pedido-1", CARRITO_A, this::crearPedido).getStatusCode().value());
+            relevoTerminado.countDown();
+            assertFalla(primera);
+        } finally {
+            hilo.shutdownNow();
+        }
+
+        IdempotenciaPedido fila = tabla.filas.get(CLAVE);
+        assertNotNull(fila);
+        assertEquals(IdempotenciaPedido.Estado.completado, fila.getEstado());
+        assertEquals(201, fila.getEstadoHttp());
+    }
+
+    @Test
+    void renovarMantieneLaReservaMientrasLaEjecucionSigueViva() throws Exception {
+        IdempotenciaPedidoRepository repositorio = repositorio();
+        IdempotenciaService servicio = servicio(repositorio);
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+
+        ExecutorService hilo = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<?>> enCurso = hilo.submit(() -> servicio.ejecutar(7, "pedido-1", CARRITO_A, () -> {
+                iniciada.countDown();
+                esperar(terminar);
+                return crearPedido();
+            }));
+            esperar(iniciada);
+            tabla.filas.get(CLAVE).setEnCursoHasta(LocalDateTime.now().minusSeconds(1));
+
+            servicio.renovarReservas();
+
+            assertTrue(tabla.filas.get(CLAVE).getEnCursoHasta().isAfter(LocalDateTime.now()));
+            terminar.countDown();
+            assertEquals(201, enCurso.get(5, TimeUnit.SECONDS).getStatusCode().value());
+        } finally {
+            hilo.shutdownNow();
+        }
+    }
+
+    @Test
+    void unaReservaVencidaSoloSeBorraSiSigueVencida() {
+        // La lectura devuelve la fila vencida, pero otra instancia ya la reemplazó por una reserva viva
+        IdempotenciaPedido viva = reservaVencida("otra-instancia", huella(CARRITO_A));
+        viva.setExpiraEn(LocalDateTime.now().plusHours(1));
+        viva.setEnCursoHasta(LocalDateTime.now().plusMinutes(2));
+        tabla.filas.put(CLAVE, viva);
+        IdempotenciaPedidoRepository repositorio = repositorio();
+        IdempotenciaPedido vencida = reservaVencida("otra-instancia", huella(CARRITO_A));
+        vencida.setExpiraEn(LocalDateTime.now().minusMinutes(1));
+        when(repositorio.findById(CLAVE)).thenReturn(Optional.of(vencida)).thenAnswer(invocacion -> tabla.buscar(CLAVE));
+        IdempotenciaService servicio = servicio(repositorio);
+        ReflectionTestUtils.setField(servicio, "esperaSegundos", 0L);
+
+        assertEquals(409, servicio.ejecutar(7, "pedido-1", CARRITO_A, this::crearPedido).getStatusCode().value());
+        assertEquals(0, ejecuciones.get());
+        assertEquals("otra-instancia", tabla.filas.get(CLAVE).getPropietario());
+        verify(repositorio, never()).deleteById(any());
+    }
+
+    private ResponseEntity<?> crearPedido() {
+        return ResponseEntity.status(201).body(Map.of("pedido", ejecuciones.incrementAndGet()));
+    }
+
+    private IdempotenciaService servicio(IdempotenciaPedidoRepository repositorio) {
+        IdempotenciaService servicio = new IdempotenciaService(repositorio, objectMapper);
+        ReflectionTestUtils.setField(servicio, "ttlHoras", 24L);
+        ReflectionTestUtils.setField(servicio, "maxEntradas", 100);
+        ReflectionTestUtils.setField(servicio, "esperaSegundos", 5L);
+        ReflectionTestUtils.setField(servicio, "plazoEnCursoSegundos", 120L);
+        ReflectionTestUtils.setField(servicio, "ttlErrorClienteMinutos", 5L);
+        servicio.init();
+        return servicio;
+    }
+
+    // Cada consulta del repositorio con la misma condición que su SQL, sobre la tabla en memoria
+    private IdempotenciaPedidoRepository repositorio() {
+        IdempotenciaPedidoRepository repositorio = mock(IdempotenciaPedidoRepository.class);
+        when(repositorio.findById(anyString())).thenAnswer(invocacion -> tabla.buscar(invocacion.getArgument(0)));
+        when(repositorio.reservar(anyString(), anyString(), anyString(), any(), any())).thenAnswer(invocacion ->
+                tabla.reservar(invocacion.getArgument(0), invocacion.getArgument(1), invocacion.getArgument(2),
+                        invocacion.getArgument(3), invocacion.getArgument(4)));
+        when(repositorio.tomarRelevo(anyString(), anyString(), anyString(), any(), any())).thenAnswer(invocacion ->
+                tabla.tomarRelevo(invocacion.getArgument(0), invocacion.getArgument(1), invocacion.getArgument(2),
+                        invocacion.getArgument(3), invocacion.getArgument(4)));
+        when(repositorio.renovar(anyString(), anyString(), any())).thenAnswer(invocacion ->
+                tabla.renovar(invocacion.getArgument(0), invocacion.getArgument(1), invocacion.getArgument(2)));
+        when(repositorio.completar(anyString(), anyString(), any(), any(), any())).thenAnswer(invocacion ->
+                tabla.completar(invocacion.getArgument(0), invocacion.getArgument(1), invocacion.getArgument(2),
+                        invocacion.getArgument(3), invocacion.getArgument(4)));
+        when(repositorio.liberar(anyString(), anyString())).thenAnswer(invocacion ->
+                tabla.liberar(invocacion.getArgument(0), invocacion.getArgument(1)));
+        when(repositorio.deleteVencida(anyString(), any())).thenAnswer(invocacion ->
+                tabla.deleteVencida(invocacion.getArgument(0), invocacion.getArgument(1)));
+        return repositorio;
+    }
+
+    private IdempotenciaPedido reservaVencida(String propietario, String huella) {
+        return IdempotenciaPedido.builder()
+                .clave(CLAVE)
+                .huellaSolicitud(huella)
+                .estado(IdempotenciaPedido.Estado.en_curso)
+                .expiraEn(LocalDateTime.now().plusHours(1))
+                .enCursoHasta(LocalDateTime.now().minusSeconds(1))
+                .propietario(propietario)
+                .build();
+    }
+
+    // Misma huella que IdempotenciaService: SHA-256 del cuerpo serializado
+    private String huella(Object solicitud) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(solicitud)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void esperarReserva() {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tabla.buscar(CLAVE).isEmpty()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("La reserva no llegó a la tabla");
+            }
+            dormir(5);
+        }
+    }
+
+    private static void assertFalla(Future<?> futuro) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> futuro.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Tabla {
+
+        private final Map<String, IdempotenciaPedido> filas = new HashMap<>();
+
+        synchronized Optional<IdempotenciaPedido> buscar(String clave) {
+            IdempotenciaPedido fila = filas.get(clave);
+            // Copia, como una entidad leída en otra transacción
+            return Optional.ofNullable(fila).map(f -> new IdempotenciaPedido(f.getClave(), f.getHuellaSolicitud(),
+                    f.getEstado(), f.getEstadoHttp(), f.getRespuesta(), f.getExpiraEn(), f.getEnCursoHasta(),
+                    f.getPropietario()));
+        }
+
+        synchronized int reservar(String clave, String huella, String propietario,
+                                  LocalDateTime expiraEn, LocalDateTime enCursoHasta) {
+            if (filas.containsKey(clave)) {
+                throw new DataIntegrityViolationException("Duplicate entry " + clave);
+            }
+            filas.put(clave, IdempotenciaPedido.builder().clave(clave).huellaSolicitud(huella)
+                    .estado(IdempotenciaPedido.Estado.en_curso).expiraEn(expiraEn)
+                    .enCursoHasta(enCursoHasta).propietario(propietario).build());
+            return 1;
+        }
+
+        synchronized int tomarRelevo(String clave, String huella, String propietario,
+                                     LocalDateTime ahora, LocalDateTime enCursoHasta) {
+            IdempotenciaPedido fila = filas.get(clave);
+            if (fila == null || !fila.getHuellaSolicitud().equals(huella) || !enCurso(fila)
+                    || (fila.getEnCursoHasta() != null && !fila.getEnCursoHasta().isBefore(ahora))) {
+                return 0;
+            }
+            fila.setPropietario(propietario);
+            fila.setEnCursoHasta(enCursoHasta);
+            return 1;
+        }
+
+        synchronized int renovar(String clave, String propietario, LocalDateTime enCursoHasta) {
+            IdempotenciaPedido fila = propia(clave, propietario);
+            if (fila == null) {
+                return 0;
+            }
+            fila.setEnCursoHasta(enCursoHasta);
+            return 1;
+        }
+
+        synchronized int completar(String clave, String propietario, Integer estadoHttp,
+                                   String respuesta, LocalDateTime expiraEn) {
+            IdempotenciaPedido fila = propia(clave, propietario);
+            if (fila == null) {
+                return 0;
+            }
+            fila.setEstado(IdempotenciaPedido.Estado.completado);
+            fila.setEstadoHttp(estadoHttp);
+            fila.setRespuesta(respuesta);
+            fila.setExpiraEn(expiraEn);
+            fila.setEnCursoHasta(null);
+            return 1;
+        }
+
+        synchronized int liberar(String clave, String propietario) {
+            return propia(clave, propietario) != null && filas.remove(clave) != null ? 1 : 0;
+        }
+
+        synchronized int deleteVencida(String clave, LocalDateTime ahora) {
+            IdempotenciaPedido fila = filas.get(clave);
+            return fila != null && fila.getExpiraEn().isBefore(ahora) && filas.remove(clave) != null ? 1 : 0;
+        }
+
+        private IdempotenciaPedido propia(String clave, String propietario) {
+            IdempotenciaPedido fila = filas.get(clave);
+            return fila != null && enCurso(fila) && Objects.equals(fila.getPropietario(), propietario) ? fila : null;
+        }
+
+        private static boolean enCurso(IdempotenciaPedido fila) {
+            return fila.getEstado() == IdempotenciaPedido.Estado.en_curso;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.repositories.ImagenArchivoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImagenStorageServiceTests {
+
+    private static final byte[] IMAGEN = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 1, 2, 3, 4, 5};
+
+    @TempDir
+    Path directorio;
+
+    // nombre -> referencias (tabla imagenes_archivos)
+    private final Map<String, Integer> referencias = new HashMap<>();
+
+    @Test
+    void laMismaImagenSubidaDosVecesOcupaUnSoloArchivo() throws IOException {
+        ImagenStorageService servicio = servicio();
+
+        ImagenStorageService.Imagen primera = servicio.guardar(new ByteArrayInputStream(IMAGEN), "jpg");
+        ImagenStorageService.Imagen segunda = servicio.guardar(new ByteArrayInputStream(IMAGEN), "jpg");
+
+        assertEquals(primera.nombre(), segunda.nombre());
+        assertEquals(ImagenStorageService.url(primera.nombre()), primera.url());
+        assertEquals(2, referencias.get(primera.nombre()));
+        assertEquals(1, archivos());
+        assertEquals(Optional.of(primera.ruta()), servicio.buscar(primera.nombre()));
+    }
+
+    @Test
+    void elArchivoSoloSeBorraAlLiberarLaUltimaReferencia() {
+        ImagenStorageService servicio = servicio();
+        ImagenStorageService.Imagen imagen = servicio.guardar(new ByteArrayInputStream(IMAGEN), "jpg");
+        servicio.guardar(new ByteArrayInputStream(IMAGEN), "jpg");
+
+        // Aún la usa otra subida: el archivo se conserva
+        assertEquals(Optional.empty(), servicio.liberar(imagen.nombre()));
+        assertTrue(Files.isRegularFile(imagen.ruta()));
+        assertEquals(1, referencias.get(imagen.nombre()));
+
+        assertEquals(Optional.of(imagen.ruta()), servicio.liberar(imagen.nombre()));
+        assertFalse(Files.exists(imagen.ruta()));
+        assertFalse(referencias.containsKey(imagen.nombre()));
+
+        assertThrows(ImagenStorageService.ImagenNoEncontradaException.class, () -> servicio.liberar(imagen.nombre()));
+    }
+
+    @Test
+    void liberarUnNombreDesconocidoEsNoEncontrada() {
+        ImagenStorageService servicio = servicio();
+
+        assertThrows(ImagenStorageService.ImagenNoEncontradaException.class,
+                () -> servicio.liberar("b".repeat(64) + ".png"));
+        assertThrows(ImagenStorageService.ImagenNoEncontradaException.class,
+                () -> servicio.liberar("../../application.properties"));
+    }
+
+    private ImagenStorageService servicio() {
+        return new ImagenStorageService(repositorio(), mock(PlatformTransactionManager.class), directorio.toString());
+    }
+
+    // Las tres consultas de ImagenArchivoRepository sobre un mapa en memoria
+    private ImagenArchivoRepository repositorio() {
+        ImagenArchivoRepository repositorio = mock(ImagenArchivoRepository.class);
+        when(repositorio.sumarReferencia(anyString(), anyLong(), any())).thenAnswer(invocacion -> {
+            referencias.merge(invocacion.getArgument(0), 1, Integer::sum);
+            return 1;
+        });
+        when(repositorio.restarReferencia(anyString())).thenAnswer(invocacion -> {
+            String nombre = invocacion.getArgument(0);
+            Integer actuales = referencias.get(nombre);
+            if (actuales == null || actuales <= 0) {
+                return 0;
+            }
+            referencias.put(nombre, actuales - 1);
+            return 1;
+        });
+        when(repositorio.eliminarSinReferencias(anyString())).thenAnswer(invocacion -> {
+            String nombre = invocacion.getArgument(0);
+            Integer actuales = referencias.get(nombre);
+            return actuales != null && actuales <= 0 && referencias.remove(nombre) != null ? 1 : 0;
+        });
+        return repositorio;
+    }
+
+    private long archivos() throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            return rutas.filter(Files::isRegularFile).count();
+        }
+    }
+}
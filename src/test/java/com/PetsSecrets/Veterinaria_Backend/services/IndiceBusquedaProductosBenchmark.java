@@ -0,0 +1,88 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark JMH: búsqueda en el índice invertido contra un recorrido equivalente a la consulta
+// anterior, LIKE %texto% sobre el nombre (sin índice: la base de datos lee todas las filas y
+// compara sin distinguir mayúsculas), con la primera página de 20 y el total.
+// Se lanza desde IndiceBusquedaProductosTests con -Pbenchmark.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndiceBusquedaProductosBenchmark {
+
+    private static final CategoriaResponse ALIMENTOS = new CategoriaResponse(1, "Alimentación", null);
+    private static final String[] NOMBRES = {"Croquetas", "Pelota", "Collar", "Arena", "Rascador", "Cama", "Shampoo", "Snack"};
+    private static final String[] ESPECIES = {"perro", "gato", "conejo", "hámster", "ave"};
+
+    @Param({"2000", "20000"})
+    int cantidad;
+
+    private List<ProductoResponse> productos;
+    private IndiceBusquedaProductos indice;
+    private int consulta;
+
+    @Setup
+    public void preparar() {
+        productos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            productos.add(ProductoResponse.builder()
+                    .id(i)
+                    .nombre(NOMBRES[i % NOMBRES.length] + " para " + ESPECIES[i % ESPECIES.length] + " modelo " + i)
+                    .descripcion("Producto de prueba número " + i)
+                    .precio(10.0)
+                    .stock(5)
+                    .estado("activo")
+                    .categoria(ALIMENTOS)
+                    .build());
+        }
+        indice = new IndiceBusquedaProductos();
+        indice.reconstruir(productos);
+    }
+
+    @Benchmark
+    public IndiceBusquedaProductos.Resultado indiceInvertido() {
+        return indice.buscar(siguienteConsulta(), 0, 20);
+    }
+
+    @Benchmark
+    public IndiceBusquedaProductos.Resultado recorridoLike() {
+        String texto = siguienteConsulta().toLowerCase(Locale.ROOT);
+        List<ProductoResponse> pagina = new ArrayList<>();
+        long total = 0;
+        for (ProductoResponse producto : productos) {
+            if (producto.getNombre().toLowerCase(Locale.ROOT).contains(texto)) {
+                if (pagina.size() < 20) {
+                    pagina.add(producto);
+                }
+                total++;
+            }
+        }
+        return new IndiceBusquedaProductos.Resultado(pagina, total);
+    }
+
+    private String siguienteConsulta() {
+        consulta = (consulta + 7) % cantidad;
+        return "modelo " + consulta;
+    }
+}
@@ -0,0 +1,178 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CategoriaResponse;
+import com.PetsSecrets.Veterinaria_Backend.dtos.ProductoResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceBusquedaProductosTests {
+
+    private static final CategoriaResponse ALIMENTOS = new CategoriaResponse(1, "Alimentación", null);
+    private static final CategoriaResponse JUGUETES = new CategoriaResponse(2, "Juguetes", null);
+    private static final CategoriaResponse ACCESORIOS = new CategoriaResponse(3, "Accesorios", null);
+
+    @Test
+    void ignoraTildesYMayusculas() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        assertEquals(List.of(1), ids(indice.buscar("CROQUETAS perró", 0, 10)));
+        // Mismo peso (categoría): desempate por nombre
+        assertEquals(List.of(2, 1), ids(indice.buscar("alimentacion", 0, 10)));
+    }
+
+    @Test
+    void encuentraPorPrefijoYConErroresDeTipeo() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        assertEquals(List.of(3), ids(indice.buscar("pelo", 0, 10)));
+        assertEquals(List.of(4), ids(indice.buscar("colar", 0, 10)));
+        assertEquals(List.of(4), ids(indice.buscar("collra", 0, 10)));
+    }
+
+    @Test
+    void ordenaPorRelevanciaDelCampo() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        // "gato" está en el nombre del 2 y solo en la descripción del 3
+        assertEquals(List.of(2, 3), ids(indice.buscar("gato", 0, 10)));
+    }
+
+    @Test
+    void actualizaIncrementalmenteYExcluyeInactivos() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        indice.actualizar(producto(4, "Arnés reflectivo", "Para paseos nocturnos", ACCESORIOS, "activo"));
+        assertEquals(List.of(), ids(indice.buscar("collar", 0, 10)));
+        assertEquals(List.of(4), ids(indice.buscar("arnes", 0, 10)));
+
+        indice.actualizar(producto(4, "Arnés reflectivo", "Para paseos nocturnos", ACCESORIOS, "inactivo"));
+        assertEquals(List.of(), ids(indice.buscar("arnes", 0, 10)));
+
+        indice.eliminar(1);
+        assertEquals(List.of(), ids(indice.buscar("croquetas", 0, 10)));
+    }
+
+    @Test
+    void soloCambiaElStockSinReindexar() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+        ProductoResponse conStock = producto(1, "Croquetas para perro adulto", "Alimento balanceado", ALIMENTOS, "activo");
+        conStock.setStock(0);
+        conStock.setPrecio(12.5);
+
+        indice.actualizar(conStock);
+
+        ProductoResponse encontrado = indice.buscar("croquetas", 0, 10).productos().get(0);
+        assertEquals(0, encontrado.getStock());
+        assertEquals(12.5, encontrado.getPrecio());
+        assertEquals(List.of(2, 1), ids(indice.buscar("alimentacion", 0, 10)));
+    }
+
+    @Test
+    void cambiarDeCategoriaMueveSoloSusTerminos() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        indice.actualizar(producto(1, "Croquetas para perro adulto", "Alimento balanceado", JUGUETES, "activo"));
+
+        assertEquals(List.of(2), ids(indice.buscar("alimentacion", 0, 10)));
+        assertEquals(List.of(1, 3), ids(indice.buscar("juguetes", 0, 10)));
+        assertEquals(List.of(1), ids(indice.buscar("croquetas", 0, 10)));
+    }
+
+    @Test
+    void aplicaVariosCambiosALaVez() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        indice.aplicar(List.of(
+                        producto(2, "Comida húmeda para gato senior", "Sobres de 85 g", ALIMENTOS, "activo"),
+                        producto(6, "Rascador de cartón", "Para gatos", JUGUETES, "activo")),
+                List.of(3));
+
+        assertEquals(List.of(2, 6), ids(indice.buscar("gato", 0, 10)));
+        assertEquals(List.of(), ids(indice.buscar("pelota", 0, 10)));
+    }
+
+    // Una búsqueda concurrente ve el producto antes o después del cambio, nunca sin indexar
+    @Test
+    void lasBusquedasNoVenCambiosAMedias() throws Exception {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+        AtomicBoolean terminado = new AtomicBoolean();
+        AtomicInteger vacias = new AtomicInteger();
+
+        Thread lector = new Thread(() -> {
+            while (!terminado.get()) {
+                if (indice.buscar("croquetas", 0, 10).total() != 1) {
+                    vacias.incrementAndGet();
+                }
+            }
+        });
+        lector.start();
+        for (int i = 0; i < 20_000; i++) {
+            indice.actualizar(producto(1, "Croquetas para perro adulto " + i, "Alimento balanceado",
+                    ALIMENTOS, "activo"));
+        }
+        terminado.set(true);
+        lector.join();
+
+        assertEquals(0, vacias.get());
+    }
+
+    @Test
+    void paginaResultados() {
+        IndiceBusquedaProductos indice = indiceDePrueba();
+
+        IndiceBusquedaProductos.Resultado primera = indice.buscar("co", 0, 1);
+        IndiceBusquedaProductos.Resultado segunda = indice.buscar("co", 1, 1);
+
+        assertEquals(2, primera.total());
+        assertEquals(1, primera.productos().size());
+        assertEquals(1, segunda.productos().size());
+        assertTrue(ids(primera).stream().noneMatch(ids(segunda)::contains));
+    }
+
+    // Comparación contra LIKE %texto% (IndiceBusquedaProductosBenchmark); solo con -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void benchmarkContraLike() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IndiceBusquedaProductosBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static IndiceBusquedaProductos indiceDePrueba() {
+        IndiceBusquedaProductos indice = new IndiceBusquedaProductos();
+        indice.reconstruir(List.of(
+                producto(1, "Croquetas para perro adulto", "Alimento balanceado", ALIMENTOS, "activo"),
+                producto(2, "Comida húmeda para gato", "Sobres de 85 g", ALIMENTOS, "activo"),
+                producto(3, "Pelota de goma", "Resistente, ideal para perros y gatos", JUGUETES, "activo"),
+                producto(4, "Collar ajustable", "Nylon con hebilla", ACCESORIOS, "activo"),
+                producto(5, "Cama acolchada", "Para mascotas grandes", ACCESORIOS, "inactivo")));
+        return indice;
+    }
+
+    private static ProductoResponse producto(int id, String nombre, String descripcion,
+                                             CategoriaResponse categoria, String estado) {
+        return ProductoResponse.builder()
+                .id(id)
+                .nombre(nombre)
+                .descripcion(descripcion)
+                .precio(10.0)
+                .stock(5)
+                .estado(estado)
+                .categoria(categoria)
+                .build();
+    }
+
+    private static List<Integer> ids(IndiceBusquedaProductos.Resultado resultado) {
+        return resultado.productos().stream().map(ProductoResponse::getId).toList();
+    }
+}
@@ -0,0 +1,52 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LimiteLoginServiceTests {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // IP: ráfaga de 3 y 60 por minuto (1 por segundo); email: ráfaga de 2 y 6 por minuto
+    private final LimiteLoginService limite = new LimiteLoginService(registry, 3, 60, 2, 6, 100);
+
+    @Test
+    void emailAgotadoEsperaLaRecargaAunqueCambieLaIp() {
+        assertEquals(0, limite.esperaSegundos("10.0.0.1", "ana@correo.com", 0));
+        assertEquals(0, limite.esperaSegundos("10.0.0.2", "ANA@correo.com ", 0));
+
+        assertEquals(10, limite.esperaSegundos("10.0.0.3", "ana@correo.com", 0));
+        assertEquals(0, limite.esperaSegundos("10.0.0.3", "ana@correo.com", 10 * SEGUNDO));
+        assertEquals(1.0, registry.counter("auth.login.limitados", "motivo", "email").count());
+    }
+
+    @Test
+    void ipAgotadaBloqueaCualquierEmailSinGastarSusTokens() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limite.esperaSegundos("10.0.0.1", "usuario" + i + "@correo.com", 0));
+        }
+        assertEquals(1, limite.esperaSegundos("10.0.0.1", "otro@correo.com", 0));
+        assertEquals(1.0, registry.counter("auth.login.limitados", "motivo", "ip").count());
+
+        // El intento rechazado por IP no consumió la cubeta del email
+        assertEquals(0, limite.esperaSegundos("10.0.0.9", "otro@correo.com", 0));
+        assertEquals(0, limite.esperaSegundos("10.0.0.9", "otro@correo.com", 0));
+    }
+
+    @Test
+    void laCubetaNoSuperaSuCapacidadTrasUnaPausaLarga() {
+        long despues = TimeUnit.HOURS.toNanos(1);
+        int permitidos = 0;
+        while (limite.esperaSegundos("10.0.0.1", null, despues) == 0) {
+            permitidos++;
+        }
+        assertEquals(3, permitidos);
+        assertEquals(0, limite.esperaSegundos("10.0.0.1", null, despues + SEGUNDO));
+    }
+}
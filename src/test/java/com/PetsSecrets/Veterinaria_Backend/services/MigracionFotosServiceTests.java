@@ -0,0 +1,124 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.repositories.MascotaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MigracionFotosServiceTests {
+
+    private static final byte[] IMAGEN_A = {1, 2, 3, 4, 5, 6};
+    private static final byte[] IMAGEN_B = {6, 5, 4, 3, 2, 1};
+
+    @TempDir
+    Path directorio;
+
+    // id -> foto_url
+    private final Map<Integer, String> fotos = new TreeMap<>();
+
+    // Foto que "otra solicitud" guarda entre la lectura del lote y el reemplazo
+    private Integer cambiarAntesDeReemplazar;
+    private String fotoNueva;
+
+    @Test
+    void migraLasDataUriYTerminaCuandoNoQuedanPendientes() {
+        fotos.put(1, FotoStorageServiceTests.dataUri("image/png", IMAGEN_A));
+        fotos.put(2, "https://cdn.example.com/firulais.jpg");
+        fotos.put(3, "data:image/png;base64,%%%");
+        fotos.put(4, FotoStorageServiceTests.dataUri("image/jpeg", IMAGEN_B));
+
+        MigracionFotosService migracion = migracion(2);
+        migracion.migrarLote();
+        migracion.migrarLote();
+        migracion.migrarLote();
+
+        assertTrue(fotos.get(1).startsWith(FotoStorageService.PREFIJO_REFERENCIA) && fotos.get(1).endsWith(".png"));
+        assertEquals("https://cdn.example.com/firulais.jpg", fotos.get(2));
+        // Base64 inválido: se salta y la fila queda como estaba
+        assertEquals("data:image/png;base64,%%%", fotos.get(3));
+        assertTrue(fotos.get(4).endsWith(".jpg"));
+        assertEquals(true, ReflectionTestUtils.getField(migracion, "terminada"));
+    }
+
+    @Test
+    void noPisaUnaFotoCambiadaAunqueTengaLaMismaLongitud() {
+        String original = FotoStorageServiceTests.dataUri("image/png", IMAGEN_A);
+        fotos.put(1, original);
+        cambiarAntesDeReemplazar = 1;
+        fotoNueva = FotoStorageServiceTests.dataUri("image/png", IMAGEN_B);
+        assertEquals(original.length(), fotoNueva.length());
+
+        migracion(10).migrarLote();
+
+        assertEquals(fotoNueva, fotos.get(1));
+    }
+
+    private MigracionFotosService migracion(int tamanoLote) {
+        MigracionFotosService migracion = new MigracionFotosService(repositorio(),
+                new FotoStorageService(directorio.toString(), 1024));
+        ReflectionTestUtils.setField(migracion, "tamanoLote", tamanoLote);
+        return migracion;
+    }
+
+    // Solo las dos consultas que usa la migración, con la misma semántica que las de MascotaRepository
+    private MascotaRepository repositorio() {
+        MascotaRepository repositorio = mock(MascotaRepository.class);
+        when(repositorio.findFotosPendientes(anyInt(), any(Pageable.class)))
+                .thenAnswer(invocacion -> pendientes(invocacion.getArgument(0), invocacion.getArgument(1)));
+        when(repositorio.reemplazarFoto(anyInt(), anyString(), anyString()))
+                .thenAnswer(invocacion -> reemplazar(invocacion.getArgument(0), invocacion.getArgument(1),
+                        invocacion.getArgument(2)));
+        return repositorio;
+    }
+
+    private List<MascotaRepository.FotoPendiente> pendientes(Integer desdeId, Pageable pagina) {
+        List<MascotaRepository.FotoPendiente> resultado = new ArrayList<>();
+        for (Map.Entry<Integer, String> fila : fotos.entrySet()) {
+            if (fila.getKey() > desdeId && fila.getValue().startsWith("data:") && resultado.size() < pagina.getPageSize()) {
+                Integer id = fila.getKey();
+                String fotoUrl = fila.getValue();
+                resultado.add(new MascotaRepository.FotoPendiente() {
+                    @Override
+                    public Integer getId() {
+                        return id;
+                    }
+
+                    @Override
+                    public String getFotoUrl() {
+                        return fotoUrl;
+                    }
+                });
+            }
+        }
+        return resultado;
+    }
+
+    private int reemplazar(Integer id, String huella, String referencia) {
+        if (id.equals(cambiarAntesDeReemplazar)) {
+            fotos.put(id, fotoNueva);
+        }
+        String actual = fotos.get(id);
+        if (actual == null || !actual.startsWith("data:")
+                || !FotoStorageService.sha256(actual.getBytes(StandardCharsets.UTF_8)).equals(huella)) {
+            return 0;
+        }
+        fotos.put(id, referencia);
+        return 1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MiniaturasServiceTests {
+
+    private static final int[] ANCHOS = {160, 320, 640, 1280};
+
+    @TempDir
+    Path directorio;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<MiniaturasService> servicios = new ArrayList<>();
+
+    @AfterEach
+    void cerrar() {
+        servicios.forEach(MiniaturasService::cerrar);
+    }
+
+    @Test
+    void eligeLaVarianteMasPequenaQueCubreElAncho() throws IOException {
+        Path original = imagen("foto.png", 800, 600);
+        MiniaturasService servicio = servicio();
+        servicio.generarVariantes(original);
+
+        assertEquals("foto-w160.png", nombre(servicio.resolver(original, 100)));
+        assertEquals("foto-w320.png", nombre(servicio.resolver(original, 200)));
+        assertEquals("foto-w640.png", nombre(servicio.resolver(original, 640)));
+        // 1280 no existe: sería mayor que el original
+        assertEquals(original, servicio.resolver(original, 700));
+        assertEquals(original, servicio.resolver(original, null));
+
+        BufferedImage variante = ImageIO.read(servicio.resolver(original, 200).toFile());
+        assertEquals(320, variante.getWidth());
+        assertEquals(240, variante.getHeight());
+    }
+
+    @Test
+    void elManifiestoSobreviveAUnReinicio() throws IOException {
+        Path original = imagen("foto.jpg", 500, 250);
+        servicio().generarVariantes(original);
+
+        Path manifiesto = directorio.resolve("variantes").resolve("foto.jpg.json");
+        MiniaturasService.Manifiesto leido = objectMapper.readValue(manifiesto.toFile(), MiniaturasService.Manifiesto.class);
+        assertEquals(new MiniaturasService.Manifiesto(500, 250, Map.of(160, "foto-w160.jpg", 320, "foto-w320.jpg")), leido);
+
+        // Instancia nueva, sin nada en memoria: sirve la variante a partir del manifiesto en disco
+        assertEquals("foto-w320.jpg", nombre(servicio().resolver(original, 300)));
+    }
+
+    @Test
+    void unaImagenIlegibleQuedaRegistradaSinVariantes() throws IOException {
+        Path original = directorio.resolve("danada.png");
+        Files.write(original, new byte[]{'n', 'o', ' ', 'e', 's', ' ', 'p', 'n', 'g'});
+        MiniaturasService servicio = servicio();
+
+        servicio.generarVariantes(original);
+
+        Path manifiesto = directorio.resolve("variantes").resolve("danada.png.json");
+        assertTrue(Files.isRegularFile(manifiesto));
+        assertEquals(new MiniaturasService.Manifiesto(0, 0, Map.of()),
+                objectMapper.readValue(manifiesto.toFile(), MiniaturasService.Manifiesto.class));
+        assertEquals(original, servicio.resolver(original, 160));
+        assertEquals(original, servicio().resolver(original, 160));
+    }
+
+    private MiniaturasService servicio() {
+        MiniaturasService servicio = new MiniaturasService(objectMapper, ANCHOS, 1, 10);
+        servicios.add(servicio);
+        return servicio;
+    }
+
+    private Path imagen(String nombre, int ancho, int alto) throws IOException {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < ancho; x++) {
+            for (int y = 0; y < alto; y++) {
+                imagen.setRGB(x, y, (x * 255 / ancho) << 16 | (y * 255 / alto) << 8);
+            }
+        }
+        Path archivo = directorio.resolve(nombre);
+        ImageIO.write(imagen, nombre.endsWith(".png") ? "png" : "jpg", archivo.toFile());
+        return archivo;
+    }
+
+    private static String nombre(Path archivo) {
+        return archivo.getFileName().toString();
+    }
+}
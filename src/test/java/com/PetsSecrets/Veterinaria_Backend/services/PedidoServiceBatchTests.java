@@ -0,0 +1,235 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CarritoItemRequest;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoRequest;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoResponse;
+import com.PetsSecrets.Veterinaria_Backend.models.*;
+import com.PetsSecrets.Veterinaria_Backend.repositories.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// El checkout de un carrito grande debe hacer un número de idas a la base de datos que no
+// crezca con la cantidad de líneas (detalles en batch y stock con un solo batchUpdate).
+// Se cuenta en el DataSource, así entran también las sentencias de JdbcTemplate.
+@SpringBootTest(properties = "app.pedidos.nodo-id=0")
+class PedidoServiceBatchTests {
+
+    private static final int LINEAS = 30;
+
+    // Usuario, carrito, código, pedido, generador de ids, batch de detalles, batch de stock,
+    // stock resultante, vaciado del carrito y lectura del catálogo después del commit
+    private static final int SENTENCIAS_MAXIMAS = 20;
+
+    // El generador de ids puede tener que pedir un bloque nuevo (SELECT ... FOR UPDATE + UPDATE)
+    private static final int DIFERENCIA_GENERADOR = 2;
+
+    // La del pedido más una segunda a la vez: el generador de ids de PedidoDetalle trabaja en
+    // una conexión aparte y la caché del catálogo lee en una transacción nueva tras el commit
+    private static final int CONEXIONES_SIMULTANEAS_MAXIMAS = 2;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private CarritoRepository carritoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void checkoutDeCarritoGrandeUsaSentenciasConstantes() {
+        Categoria categoria = categoriaRepository.save(Categoria.builder()
+                .nombre("Categoria Batch " + UUID.randomUUID())
+                .build());
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .nombreCompleto("Comprador Batch")
+                .email("batch-" + UUID.randomUUID() + "@test.com")
+                .telefono("900000000")
+                .passwordHash("sin-password")
+                .build());
+
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < LINEAS; i++) {
+            productos.add(productoRepository.save(Producto.builder()
+                    .nombre("Producto Batch " + i)
+                    .precio(5.0)
+                    .stock(10)
+                    .categoria(categoria)
+                    .build()));
+        }
+
+        List<Integer> pedidos = new ArrayList<>();
+        try {
+            // Calentamiento: primera consulta de cada tipo y fila del generador de ids
+            checkout(usuario, productos.subList(0, 1), pedidos);
+
+            Medicion pequeno = checkout(usuario, productos.subList(0, 3), pedidos);
+            Medicion grande = checkout(usuario, productos, pedidos);
+
+            assertTrue(grande.sentencias() <= SENTENCIAS_MAXIMAS, "Sentencias: " + grande.sentencias());
+            assertTrue(grande.sentencias() - pequeno.sentencias() <= DIFERENCIA_GENERADOR,
+                    "Sentencias con 3 líneas: " + pequeno.sentencias() + ", con " + LINEAS + ": " + grande.sentencias());
+            assertTrue(grande.conexionesSimultaneas() <= CONEXIONES_SIMULTANEAS_MAXIMAS,
+                    "Conexiones simultáneas: " + grande.conexionesSimultaneas());
+        } finally {
+            pedidos.forEach(pedidoRepository::deleteById);
+            carritoRepository.findByUsuarioId(usuario.getId()).ifPresent(carritoRepository::delete);
+            usuarioRepository.delete(usuario);
+            productoRepository.deleteAll(productos);
+            categoriaRepository.deleteById(categoria.getId());
+        }
+    }
+
+    private Medicion checkout(Usuario usuario, List<Producto> productos, List<Integer> pedidos) {
+        for (Producto producto : productos) {
+            carritoService.agregarProductoAlCarrito(usuario.getId(), new CarritoItemRequest(producto.getId(), 2));
+        }
+        PedidoRequest request = PedidoRequest.builder()
+                .direccion("Av. Prueba 123")
+                .ciudad("Lima")
+                .telefonoContacto("900000000")
+                .metodoPago("yape")
+                .build();
+
+        ContadorJdbc.iniciar();
+        try {
+            PedidoResponse pedido = pedidoService.crearPedidoDesdeCarrito(usuario.getId(), request);
+            pedidos.add(pedido.getId());
+            assertEquals(productos.size(), pedido.getDetalles().size());
+            return new Medicion(ContadorJdbc.SENTENCIAS.get(), ContadorJdbc.MAXIMO_ABIERTAS.get());
+        } finally {
+            ContadorJdbc.detener();
+        }
+    }
+
+    private record Medicion(int sentencias, int conexionesSimultaneas) {
+    }
+
+    @TestConfiguration
+    static class Configuracion {
+
+        @Bean
+        static BeanPostProcessor contadorJdbc() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof ContadorJdbc)
+                            ? new ContadorJdbc(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    // Cuenta las idas a la base de datos (un executeBatch es una sola) y las conexiones abiertas
+    // a la vez, solo del hilo que mide: las tareas programadas no entran en la cuenta
+    static final class ContadorJdbc extends DelegatingDataSource {
+
+        static final AtomicInteger SENTENCIAS = new AtomicInteger();
+        static final AtomicInteger MAXIMO_ABIERTAS = new AtomicInteger();
+        private static final AtomicInteger ABIERTAS = new AtomicInteger();
+        private static volatile Thread medido;
+
+        ContadorJdbc(DataSource origen) {
+            super(origen);
+        }
+
+        static void iniciar() {
+            SENTENCIAS.set(0);
+            MAXIMO_ABIERTAS.set(0);
+            ABIERTAS.set(0);
+            medido = Thread.currentThread();
+        }
+
+        static void detener() {
+            medido = null;
+        }
+
+        private static boolean midiendo() {
+            return medido == Thread.currentThread();
+        }
+
+        @Override
+        @NonNull
+        public Connection getConnection() throws SQLException {
+            return contar(super.getConnection());
+        }
+
+        @Override
+        @NonNull
+        public Connection getConnection(@NonNull String usuario, @NonNull String contrasena) throws SQLException {
+            return contar(super.getConnection(usuario, contrasena));
+        }
+
+        private static Connection contar(Connection conexion) {
+            boolean contada = midiendo();
+            if (contada) {
+                MAXIMO_ABIERTAS.accumulateAndGet(ABIERTAS.incrementAndGet(), Math::max);
+            }
+            boolean[] cerrada = {false};
+            return (Connection) Proxy.newProxyInstance(ContadorJdbc.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, metodo, argumentos) -> {
+                        if (metodo.getName().equals("close") && contada && !cerrada[0]) {
+                            cerrada[0] = true;
+                            ABIERTAS.decrementAndGet();
+                        }
+                        Object resultado = invocar(conexion, metodo, argumentos);
+                        if (resultado instanceof Statement sentencia && metodo.getReturnType().isInterface()) {
+                            return envolver(sentencia, metodo.getReturnType());
+                        }
+                        return resultado;
+                    });
+        }
+
+        private static Object envolver(Statement sentencia, Class<?> tipo) {
+            return Proxy.newProxyInstance(ContadorJdbc.class.getClassLoader(), new Class<?>[]{tipo},
+                    (proxy, metodo, argumentos) -> {
+                        if (metodo.getName().startsWith("execute") && midiendo()) {
+                            SENTENCIAS.incrementAndGet();
+                        }
+                        return invocar(sentencia, metodo, argumentos);
+                    });
+        }
+
+        private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+            try {
+                return metodo.invoke(destino, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.dtos.CarritoItemRequest;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoRequest;
+import com.PetsSecrets.Veterinaria_Backend.dtos.PedidoResponse;
+import com.PetsSecrets.Veterinaria_Backend.models.*;
+import com.PetsSecrets.Veterinaria_Backend.repositories.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Checkout concurrente de un único producto con poco stock:
+// verifica que no haya sobreventa y mide pedidos por segundo (benchmark, con -Pbenchmark).
+@SpringBootTest(properties = "app.pedidos.nodo-id=0")
+class PedidoServiceStockConcurrencyTests {
+
+    private static final int STOCK_INICIAL = 100;
+    private static final int COMPRADORES = 400;
+    private static final int HILOS = 32;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private CarritoRepository carritoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private record Resultado(int exitosos, int sinStock, int stockFinal, double segundos) {
+    }
+
+    @Test
+    void checkoutConcurrenteNoSobrevende() throws Exception {
+        Resultado resultado = checkoutConcurrente();
+
+        assertEquals(STOCK_INICIAL, resultado.exitosos());
+        assertEquals(COMPRADORES - STOCK_INICIAL, resultado.sinStock());
+        assertEquals(0, resultado.stockFinal());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkPedidosPorSegundo() throws Exception {
+        // Una ronda de calentamiento (JIT, pool de conexiones) y tres medidas
+        checkoutConcurrente();
+        for (int ronda = 1; ronda <= 3; ronda++) {
+            Resultado resultado = checkoutConcurrente();
+            System.out.printf("Checkout concurrente (ronda %d): %d pedidos, %d sin stock, %.1f pedidos/s%n",
+                    ronda, resultado.exitosos(), resultado.sinStock(), COMPRADORES / resultado.segundos());
+            assertEquals(STOCK_INICIAL, resultado.exitosos());
+        }
+    }
+
+    private Resultado checkoutConcurrente() throws Exception {
+        Categoria categoria = categoriaRepository.save(Categoria.builder()
+                .nombre("Categoria Stock " + UUID.randomUUID())
+                .build());
+        Producto producto = productoRepository.save(Producto.builder()
+                .nombre("Producto Hot")
+                .precio(10.0)
+                .stock(STOCK_INICIAL)
+                .categoria(categoria)
+                .build());
+
+        List<Usuario> compradores = new ArrayList<>();
+        for (int i = 0; i < COMPRADORES; i++) {
+            Usuario usuario = usuarioRepository.save(Usuario.builder()
+                    .nombreCompleto("Comprador " + i)
+                    .email("stock-" + UUID.randomUUID() + "@test.com")
+                    .telefono("900000000")
+                    .passwordHash("sin-password")
+                    .build());
+            carritoService.agregarProductoAlCarrito(usuario.getId(),
+                    new CarritoItemRequest(producto.getId(), 1));
+            compradores.add(usuario);
+        }
+
+        PedidoRequest request = PedidoRequest.builder()
+                .direccion("Av. Prueba 123")
+                .ciudad("Lima")
+                .telefonoContacto("900000000")
+                .metodoPago("tarjeta")
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger sinStock = new AtomicInteger();
+        ConcurrentLinkedQueue<Integer> pedidosCreados = new ConcurrentLinkedQueue<>();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        try {
+            for (Usuario comprador : compradores) {
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    try {
+                        PedidoResponse pedido = pedidoService.crearPedidoDesdeCarrito(comprador.getId(), request);
+                        pedidosCreados.add(pedido.getId());
+                        exitosos.incrementAndGet();
+                    } catch (StockInsuficienteException e) {
+                        sinStock.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(2, TimeUnit.MINUTES);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+            return new Resultado(exitosos.get(), sinStock.get(),
+                    productoRepository.findById(producto.getId()).orElseThrow().getStock(), segundos);
+        } finally {
+            executor.shutdownNow();
+            pedidosCreados.forEach(pedidoRepository::deleteById);
+            for (Usuario comprador : compradores) {
+                carritoRepository.findByUsuarioId(comprador.getId()).ifPresent(carritoRepository::delete);
+                usuarioRepository.delete(comprador);
+            }
+            productoRepository.deleteById(producto.getId());
+            categoriaRepository.deleteById(categoria.getId());
+        }
+    }
+}
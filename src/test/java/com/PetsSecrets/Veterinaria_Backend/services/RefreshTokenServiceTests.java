@@ -0,0 +1,122 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.models.RefreshToken;
+import com.PetsSecrets.Veterinaria_Backend.models.Usuario;
+import com.PetsSecrets.Veterinaria_Backend.repositories.RefreshTokenRepository;
+import com.PetsSecrets.Veterinaria_Backend.repositories.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTests {
+
+    private static final Usuario USUARIO = Usuario.builder()
+            .id(7)
+            .email("ana@correo.com")
+            .rol(Usuario.Rol.usuario)
+            .build();
+
+    // id (hash) -> fila de refresh_tokens
+    private final Map<String, RefreshToken> filas = new HashMap<>();
+
+    @Test
+    void cadaRotacionEntregaUnTokenNuevo() {
+        RefreshTokenService servicio = servicio(10);
+        String login = servicio.emitir(7);
+
+        String rotado = servicio.rotar(login).orElseThrow().refreshToken();
+
+        assertNotEquals(login, rotado);
+        assertTrue(servicio.rotar(rotado).isPresent());
+    }
+
+    @Test
+    void dosRefrescosSimultaneosNoRevocanLaFamilia() {
+        RefreshTokenService servicio = servicio(10);
+        String login = servicio.emitir(7);
+
+        String primero = servicio.rotar(login).orElseThrow().refreshToken();
+        // Otra pestaña envía el mismo token justo después
+        String segundo = servicio.rotar(login).orElseThrow().refreshToken();
+
+        assertNotEquals(primero, segundo);
+        assertTrue(servicio.rotar(segundo).isPresent());
+        assertEquals(4, filas.size());
+    }
+
+    @Test
+    void reusarUnTokenFueraDelMargenRevocaLaFamilia() {
+        RefreshTokenService servicio = servicio(0);
+        String login = servicio.emitir(7);
+        String rotado = servicio.rotar(login).orElseThrow().refreshToken();
+        filas.values().forEach(fila -> {
+            if (fila.getUsadoEn() != null) {
+                fila.setUsadoEn(fila.getUsadoEn().minusSeconds(1));
+            }
+        });
+
+        assertTrue(servicio.rotar(login).isEmpty());
+        assertTrue(servicio.rotar(rotado).isEmpty());
+        assertTrue(filas.isEmpty());
+    }
+
+    @Test
+    void reusarUnTokenCuyoSucesorYaSeUsoRevocaLaFamilia() {
+        RefreshTokenService servicio = servicio(10);
+        String login = servicio.emitir(7);
+        String rotado = servicio.rotar(login).orElseThrow().refreshToken();
+        servicio.rotar(rotado).orElseThrow();
+
+        // El cliente legítimo ya siguió adelante: quien presenta login lo copió
+        assertTrue(servicio.rotar(login).isEmpty());
+        assertTrue(filas.isEmpty());
+    }
+
+    private RefreshTokenService servicio(long graciaSegundos) {
+        RefreshTokenService servicio = new RefreshTokenService(refreshTokens(), usuarios());
+        ReflectionTestUtils.setField(servicio, "expiracionDias", 30L);
+        ReflectionTestUtils.setField(servicio, "graciaSegundos", graciaSegundos);
+        return servicio;
+    }
+
+    // Las consultas de RefreshTokenRepository que usa la rotación, sobre un mapa en memoria
+    private RefreshTokenRepository refreshTokens() {
+        RefreshTokenRepository repositorio = mock(RefreshTokenRepository.class);
+        when(repositorio.findParaRotar(anyString()))
+                .thenAnswer(invocacion -> Optional.ofNullable(filas.get(invocacion.<String>getArgument(0))));
+        when(repositorio.findById(anyString()))
+                .thenAnswer(invocacion -> Optional.ofNullable(filas.get(invocacion.<String>getArgument(0))));
+        when(repositorio.save(any(RefreshToken.class))).thenAnswer(invocacion -> {
+            RefreshToken fila = invocacion.getArgument(0);
+            filas.put(fila.getId(), fila);
+            return fila;
+        });
+        doAnswer(invocacion -> filas.remove(invocacion.<RefreshToken>getArgument(0).getId()))
+                .when(repositorio).delete(any(RefreshToken.class));
+        when(repositorio.deleteByFamilia(anyString())).thenAnswer(invocacion -> {
+            String familia = invocacion.getArgument(0);
+            int antes = filas.size();
+            filas.values().removeIf(fila -> fila.getFamilia().equals(familia));
+            return antes - filas.size();
+        });
+        return repositorio;
+    }
+
+    private UsuarioRepository usuarios() {
+        UsuarioRepository repositorio = mock(UsuarioRepository.class);
+        when(repositorio.findById(USUARIO.getId())).thenReturn(Optional.of(USUARIO));
+        return repositorio;
+    }
+}
@@ -0,0 +1,86 @@
+package com.PetsSecrets.Veterinaria_Backend.services;
+
+import com.PetsSecrets.Veterinaria_Backend.models.Cita;
+import com.PetsSecrets.Veterinaria_Backend.models.ReservaHorario;
+import com.PetsSecrets.Veterinaria_Backend.models.Sede;
+import com.PetsSecrets.Veterinaria_Backend.repositories.ReservaHorarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservaHorarioServiceTests {
+
+    private static final LocalDate FECHA = LocalDate.now().plusDays(3);
+    private static final LocalTime HORA = LocalTime.of(10, 0);
+
+    private final ReservaHorarioRepository repositorio = mock(ReservaHorarioRepository.class);
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+
+    private ReservaHorarioService servicio;
+
+    @BeforeEach
+    void crear() {
+        servicio = new ReservaHorarioService(repositorio, metricas);
+        servicio.registrarMetricas();
+        when(repositorio.findByCitaId(any())).thenReturn(Optional.empty());
+        when(repositorio.existsBySedeIdAndFechaAndHora(1, FECHA, HORA)).thenReturn(true);
+    }
+
+    @Test
+    void duplicadoSinReservaConservaSuHorario() {
+        Cita duplicada = cita(Cita.EstadoCita.confirmada);
+
+        servicio.sincronizarReserva(duplicada, true);
+
+        verify(repositorio, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void duplicadoQueCambiaDeHorarioNecesitaUnHorarioLibre() {
+        Cita duplicada = cita(Cita.EstadoCita.confirmada);
+        when(repositorio.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_reserva_sede_fecha_hora"));
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> servicio.sincronizarReserva(duplicada, false));
+
+        assertEquals("El horario ya está ocupado", error.getMessage());
+    }
+
+    @Test
+    void citaConReservaLaActualiza() {
+        ReservaHorario reserva = ReservaHorario.builder().id(9).citaId(5).sedeId(1).fecha(FECHA).hora(HORA).build();
+        when(repositorio.findByCitaId(5)).thenReturn(Optional.of(reserva));
+
+        servicio.sincronizarReserva(cita(Cita.EstadoCita.completada), true);
+
+        verify(repositorio).saveAndFlush(reserva);
+    }
+
+    @Test
+    void laCompletacionInformaLasCitasQueQuedanSinReserva() {
+        when(repositorio.completarReservasDesde(any())).thenReturn(4);
+        when(repositorio.findCitasActivasSinReservaDesde(any())).thenReturn(List.of(12, 15));
+
+        servicio.completarReservasExistentes();
+
+        assertEquals(2.0, metricas.get("citas.reservas.duplicadas").gauge().value());
+    }
+
+    private static Cita cita(Cita.EstadoCita estado) {
+        return Cita.builder().id(5).sede(Sede.builder().id(1).build()).fecha(FECHA).hora(HORA).estado(estado).build();
+    }
+}